@@ -6,11 +6,17 @@ import de.unistuttgart.vis.vita.model.dao.DaoFactory;
 import de.unistuttgart.vis.vita.model.dao.DocumentDao;
 import de.unistuttgart.vis.vita.model.document.AnalysisParameters;
 import de.unistuttgart.vis.vita.model.document.Document;
+import de.unistuttgart.vis.vita.model.progress.ModuleMetrics;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 
@@ -20,16 +26,33 @@ import javax.inject.Inject;
 import javax.persistence.EntityManager;
 
 /**
- * Maintains a document queue and controls start and stop of their analysis
+ * Maintains a document queue and controls start and stop of their analysis.
+ * <p>
+ * Up to {@link #getMaxConcurrentAnalyses()} documents are analyzed at the same time. Waiting
+ * documents are ordered by their submission time plus an estimated analysis duration derived from
+ * the file size, so short texts overtake huge novels, but a big document can not be starved by an
+ * endless stream of small ones.
  */
 @ApplicationScoped public class AnalysisController {
+  /**
+   * The system property which can be used to configure the number of concurrent analyses
+   */
+  public static final String MAX_CONCURRENT_ANALYSES_PROPERTY = "vita.analysis.concurrency";
+
+  private static final int DEFAULT_MAX_CONCURRENT_ANALYSES = 1;
+
+  /**
+   * The penalty a document gets in the queue per kilobyte of its file
+   */
+  private static final long QUEUE_PENALTY_MILLIS_PER_KILOBYTE = 20;
+
   private Model model;
   private AnalysisExecutorFactory executorFactory;
+  private int maxConcurrentAnalyses;
 
-  private Queue<Document> analysisQueue = new PriorityQueue<>();
-  private boolean isAnalysisRunning;
-  private AnalysisExecutor currentExecuter;
-  private Document currentDocument;
+  private Queue<QueuedDocument> analysisQueue = new PriorityQueue<>();
+  private Map<String, AnalysisExecutor> runningAnalyses = new LinkedHashMap<>();
+  private long queueSequence;
 
   /**
    * New instance of the controller with given model. It will be created a new empty module
@@ -60,8 +83,25 @@ import javax.persistence.EntityManager;
   }
 
   public AnalysisController(Model model, AnalysisExecutorFactory executorFactory) {
+    this(model, executorFactory, getDefaultMaxConcurrentAnalyses());
+  }
+
+  /**
+   * New instance of the controller with given model and executor factory which analyzes up to the
+   * given number of documents at the same time.
+   *
+   * @param model                 The model to use.
+   * @param executorFactory       The factory which creates the executors for the documents.
+   * @param maxConcurrentAnalyses The maximum number of documents to be analyzed concurrently.
+   */
+  public AnalysisController(Model model, AnalysisExecutorFactory executorFactory,
+      int maxConcurrentAnalyses) {
+    if (maxConcurrentAnalyses < 1) {
+      throw new IllegalArgumentException("maxConcurrentAnalyses must be at least 1");
+    }
     this.executorFactory = executorFactory;
     this.model = model;
+    this.maxConcurrentAnalyses = maxConcurrentAnalyses;
 
     // only for Unit-tests, otherwise these fields are injected automatically
     if (model != null) {
@@ -86,6 +126,14 @@ import javax.persistence.EntityManager;
         }
       }
     });
+
+    // occurrences stored by older versions do not know their entity and sentence position yet
+    model.runInTransaction(new TransactionalAction() {
+      @Override public void run(EntityManager em, DaoFactory daoFactory) {
+        daoFactory.getOccurrenceDao().fillMissingEntityIds();
+        daoFactory.getOccurrenceDao().fillMissingSentencePositions();
+      }
+    });
   }
 
   /**
@@ -137,35 +185,121 @@ import javax.persistence.EntityManager;
   }
 
   private synchronized void scheduleDocumentAnalyisis(Document document) {
-    if (isAnalysisRunning) {
-      analysisQueue.add(document);
-    } else {
+    if (runningAnalyses.size() < maxConcurrentAnalyses) {
       startAnalysis(document);
+    } else {
+      analysisQueue.add(new QueuedDocument(document, queueSequence++));
     }
   }
 
   private synchronized void startAnalysis(final Document document) {
     setStatus(document.getId(), AnalysisStatus.RUNNING);
+    LiveProgressRegistry.getInstance().start(document.getId());
     Path path = document.getFilePath();
     
     if (path == null){
       throw new UnsupportedOperationException("There is no file associated with the document");
     }
     
-    currentExecuter = executorFactory.createExecutor(document);
-    currentExecuter.start();
-    currentDocument = document;
-    isAnalysisRunning = true;
+    final AnalysisExecutor executor = executorFactory.createExecutor(document);
+    runningAnalyses.put(document.getId(), executor);
 
-    currentExecuter.addObserver(new AnalysisObserver() {
+    executor.addObserver(new AnalysisObserver() {
       @Override public void onFinish(AnalysisExecutor executor) {
-        setStatus(document.getId(), AnalysisStatus.FINISHED);
-        startNextAnalysis();
+        onAnalysisEnded(document.getId(), executor, AnalysisStatus.FINISHED);
       }
 
       @Override public void onFail(AnalysisExecutor executor) {
-        setStatus(document.getId(), AnalysisStatus.FAILED);
-        startNextAnalysis();
+        onAnalysisEnded(document.getId(), executor, AnalysisStatus.FAILED);
+      }
+    });
+    executor.start();
+  }
+
+  /**
+   * Frees the slot of an analysis that has finished or failed, starts the next documents and
+   * stores the metrics of its modules. The metrics are collected while holding the lock, but
+   * persisted after releasing it, so that the transaction does not block the other documents.
+   *
+   * @param documentId the id of the analyzed document
+   * @param executor   the executor which has analyzed the document
+   * @param status     the final status of the document
+   */
+  private void onAnalysisEnded(String documentId, AnalysisExecutor executor,
+      AnalysisStatus status) {
+    List<ModuleMetrics> metrics = endAnalysis(documentId, executor, status);
+    if (metrics != null) {
+      saveModuleMetrics(metrics);
+    }
+  }
+
+  /**
+   * Removes a finished or failed analysis from the running ones and starts the next documents
+   *
+   * @param documentId the id of the analyzed document
+   * @param executor   the executor which has analyzed the document
+   * @param status     the final status of the document
+   * @return the metrics of the finished modules, or null if the analysis has been cancelled
+   */
+  private synchronized List<ModuleMetrics> endAnalysis(String documentId,
+      AnalysisExecutor executor, AnalysisStatus status) {
+    // the analysis may have been cancelled in the meantime
+    if (runningAnalyses.get(documentId) != executor) {
+      return null;
+    }
+
+    runningAnalyses.remove(documentId);
+    setStatus(documentId, status);
+    LiveProgressRegistry.getInstance().finish(documentId, status);
+    List<ModuleMetrics> metrics = createModuleMetrics(documentId, executor.getModuleTimings());
+    startNextAnalyses();
+    return metrics;
+  }
+
+  /**
+   * Creates the metrics of the modules that have finished for the given document
+   *
+   * @param documentId the id of the analyzed document
+   * @param timings    the timings reported by the executor
+   * @return the metrics of the finished modules
+   */
+  private List<ModuleMetrics> createModuleMetrics(String documentId, List<ModuleTiming> timings) {
+    List<ModuleMetrics> metricsList = new ArrayList<>();
+    for (ModuleTiming timing : timings) {
+      if (!timing.isFinished()) {
+        continue;
+      }
+
+      ModuleMetrics metrics = new ModuleMetrics();
+      metrics.setDocumentId(documentId);
+      metrics.setModuleName(timing.getModuleClass().getName());
+      metrics.setWeight(timing.getWeight());
+      metrics.setDurationMillis(timing.getActualDurationMillis());
+      metrics.setPredictedDurationMillis(timing.getPredictedDurationMillis());
+      metrics.setCharacterCount(timing.getCharacterCount());
+      metrics.setChapterCount(timing.getChapterCount());
+      metrics.setAnnotationCount(timing.getAnnotationCount());
+      metrics.setPeakHeapDeltaBytes(timing.getPeakHeapDeltaBytes());
+      metricsList.add(metrics);
+    }
+    return metricsList;
+  }
+
+  /**
+   * Persists the given module metrics
+   *
+   * @param metricsList the metrics to persist
+   */
+  private void saveModuleMetrics(final List<ModuleMetrics> metricsList) {
+    if (metricsList.isEmpty()) {
+      return;
+    }
+
+    model.runInTransaction(new TransactionalAction() {
+      @Override public void run(EntityManager em, DaoFactory daoFactory) {
+        for (ModuleMetrics metrics : metricsList) {
+          daoFactory.getModuleMetricsDao().save(metrics);
+        }
       }
     });
   }
@@ -198,16 +332,16 @@ import javax.persistence.EntityManager;
    * @param documentID The document which is analyzed.
    */
   public synchronized void cancelAnalysis(String documentID) {
-    if (currentDocument != null && currentDocument.getId().equals(documentID)) {
-      currentExecuter.cancel();
-      currentDocument = null;
-      currentExecuter = null;
+    AnalysisExecutor executor = runningAnalyses.remove(documentID);
+    if (executor != null) {
+      executor.cancel();
       setStatus(documentID, AnalysisStatus.CANCELLED);
-      startNextAnalysis();
+      LiveProgressRegistry.getInstance().finish(documentID, AnalysisStatus.CANCELLED);
+      startNextAnalyses();
     } else {
-      Iterator<Document> it = analysisQueue.iterator();
+      Iterator<QueuedDocument> it = analysisQueue.iterator();
       while (it.hasNext()) {
-        if (it.next().getId().equals(documentID)) {
+        if (it.next().getDocument().getId().equals(documentID)) {
           // Only set status to cancelled if it is currently running or scheduled
           setStatus(documentID, AnalysisStatus.CANCELLED);
           it.remove();
@@ -218,15 +352,12 @@ import javax.persistence.EntityManager;
   }
 
   /**
-   * Continues processing the queue after an analysis has finished or failed
+   * Continues processing the queue until all analysis slots are occupied
    */
-  private synchronized void startNextAnalysis() {
-    if (analysisQueue.isEmpty()) {
-      isAnalysisRunning = false;
-      return;
+  private synchronized void startNextAnalyses() {
+    while (runningAnalyses.size() < maxConcurrentAnalyses && !analysisQueue.isEmpty()) {
+      startAnalysis(analysisQueue.remove().getDocument());
     }
-
-    startAnalysis(analysisQueue.remove());
   }
 
   /**
@@ -247,8 +378,8 @@ import javax.persistence.EntityManager;
   }
 
   /**
-   * Gets the number of documents that are currently waiting for being analyzed. The document
-   * currently being analyzed does not count to this value.
+   * Gets the number of documents that are currently waiting for being analyzed. The documents
+   * currently being analyzed do not count to this value.
    *
    * @return the number of documents in queue
    */
@@ -256,13 +387,51 @@ import javax.persistence.EntityManager;
     return analysisQueue.size();
   }
 
+  /**
+   * Gets the number of documents that are being analyzed at the moment
+   *
+   * @return the number of running analyses
+   */
+  public synchronized int documentsInProgress() {
+    return runningAnalyses.size();
+  }
+
   /**
    * Indicates whether a document is being analyzed at the moment
    *
    * @return true, if an analysis is in process, false otherwise
    */
   public synchronized boolean isWorking() {
-    return isAnalysisRunning;
+    return !runningAnalyses.isEmpty();
+  }
+
+  /**
+   * Gets the number of documents that may be analyzed at the same time
+   *
+   * @return the maximum number of concurrent analyses
+   */
+  public synchronized int getMaxConcurrentAnalyses() {
+    return maxConcurrentAnalyses;
+  }
+
+  /**
+   * Changes the number of documents that may be analyzed at the same time. If the number is
+   * increased, queued documents are started immediately. Running analyses are not affected if it
+   * is decreased.
+   *
+   * @param maxConcurrentAnalyses the maximum number of concurrent analyses, at least 1
+   */
+  public synchronized void setMaxConcurrentAnalyses(int maxConcurrentAnalyses) {
+    if (maxConcurrentAnalyses < 1) {
+      throw new IllegalArgumentException("maxConcurrentAnalyses must be at least 1");
+    }
+    this.maxConcurrentAnalyses = maxConcurrentAnalyses;
+    startNextAnalyses();
+  }
+
+  private static int getDefaultMaxConcurrentAnalyses() {
+    return Math.max(1, Integer.getInteger(MAX_CONCURRENT_ANALYSES_PROPERTY,
+        DEFAULT_MAX_CONCURRENT_ANALYSES));
   }
 
   private void setStatus(final String documentId, final AnalysisStatus status) {
@@ -275,4 +444,49 @@ import javax.persistence.EntityManager;
       }
     });
   }
+
+  /**
+   * A document waiting in the queue. Documents are ordered by their virtual start time, which is the
+   * time they have been enqueued plus a penalty proportional to their file size.
+   */
+  private static class QueuedDocument implements Comparable<QueuedDocument> {
+    private final Document document;
+    private final long sequenceNumber;
+    private final long virtualStartTime;
+
+    public QueuedDocument(Document document, long sequenceNumber) {
+      this.document = document;
+      this.sequenceNumber = sequenceNumber;
+      this.virtualStartTime = System.currentTimeMillis()
+          + getFileSize(document.getFilePath()) / 1024 * QUEUE_PENALTY_MILLIS_PER_KILOBYTE;
+    }
+
+    public Document getDocument() {
+      return document;
+    }
+
+    @Override
+    public int compareTo(QueuedDocument other) {
+      if (virtualStartTime != other.virtualStartTime) {
+        return virtualStartTime < other.virtualStartTime ? -1 : 1;
+      }
+      if (sequenceNumber != other.sequenceNumber) {
+        return sequenceNumber < other.sequenceNumber ? -1 : 1;
+      }
+      return 0;
+    }
+
+    private static long getFileSize(Path path) {
+      if (path == null) {
+        return 0;
+      }
+
+      try {
+        return Files.size(path);
+      } catch (IOException e) {
+        // the file is checked when the analysis starts, treat it as small for now
+        return 0;
+      }
+    }
+  }
 }
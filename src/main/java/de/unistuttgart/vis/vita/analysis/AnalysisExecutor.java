@@ -2,10 +2,14 @@ package de.unistuttgart.vis.vita.analysis;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,10 +17,25 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
+import de.unistuttgart.vis.vita.analysis.results.ImportResult;
+import de.unistuttgart.vis.vita.analysis.results.NLPResult;
+import de.unistuttgart.vis.vita.model.document.Chapter;
+import de.unistuttgart.vis.vita.model.document.DocumentPart;
+
 /**
  * Controls the execution of the analysis of a single document
  */
 public class AnalysisExecutor {
+  /**
+   * Stores all modules of this analysis
+   */
+  private List<ModuleExecutionState> allModules;
+
+  /**
+   * Stores the modules that have successfully finished
+   */
+  private Set<ModuleExecutionState> finishedModules = new HashSet<>();
+
   /**
    * Stores the modules that have not yet been started, with the modules they are waiting for
    */
@@ -27,28 +46,76 @@ public class AnalysisExecutor {
    */
   private List<ModuleExecutionState> runningModules;
 
+  /**
+   * Stores the pending executions of the running modules
+   */
+  private Map<ModuleExecutionState, Future<?>> moduleFutures = new HashMap<>();
+
   /**
    * Stores the modules that have encountered an exception and their exception
    */
   private Map<ModuleClass, Exception> failedModules = new HashMap<>();
 
-  private AnalysisStatus status = AnalysisStatus.READY;
+  /**
+   * Maps each module to the modules that observe its progress, i.e. the module itself and the
+   * modules that directly or indirectly depend on it. Does not change after construction.
+   */
+  private final Map<ModuleClass, ModuleExecutionState[]> progressObservers = new HashMap<>();
+
+  private volatile AnalysisStatus status = AnalysisStatus.READY;
 
   private List<AnalysisObserver> observers = new ArrayList<>();
 
   private List<Object> resultsSoFar = new ArrayList<>();
 
+  /**
+   * The size of the document, as far as it is known from the results so far
+   */
+  private ImportResult importResult;
+  private int characterCount;
+  private int chapterCount;
+  private int annotationCount;
+
   private static final Logger LOGGER = Logger.getLogger(AnalysisExecutor.class.getName());
 
   private static final long MIN_MILLISECONDS_BETWEEN_PROGRESS_REPORTS = 1000;
 
+  private final AnalysisThreadPool threadPool;
+
   /**
-   * Creates an executor for the scheduled modules
+   * Creates an executor for the scheduled modules which uses the application-wide analysis thread
+   * pool
+   *
    * @param scheduledModules the modules to execute
    */
   public AnalysisExecutor(Iterable<ModuleExecutionState> scheduledModules) {
+    this(scheduledModules, Threads.getAnalysisThreadPool());
+  }
+
+  /**
+   * Creates an executor for the scheduled modules
+   *
+   * @param scheduledModules the modules to execute
+   * @param threadPool the pool in which the modules are executed
+   */
+  public AnalysisExecutor(Iterable<ModuleExecutionState> scheduledModules,
+      AnalysisThreadPool threadPool) {
     this.scheduledModules = Lists.newArrayList(scheduledModules);
+    this.allModules = ImmutableList.copyOf(scheduledModules);
+    this.threadPool = threadPool;
     runningModules = new ArrayList<>();
+
+    for (ModuleExecutionState moduleState : allModules) {
+      List<ModuleExecutionState> observingModules = new ArrayList<>();
+      for (ModuleExecutionState observingModule : allModules) {
+        if (observingModule == moduleState || observingModule.getDirectAndIndirectDependencies()
+            .contains(moduleState.getModuleClass())) {
+          observingModules.add(observingModule);
+        }
+      }
+      progressObservers.put(moduleState.getModuleClass(),
+          observingModules.toArray(new ModuleExecutionState[observingModules.size()]));
+    }
   }
 
   /**
@@ -86,18 +153,29 @@ public class AnalysisExecutor {
   }
 
   /**
-   * Starts all modules whose dependencies are finished
+   * Starts all modules whose dependencies are finished, those on the critical path first
    */
   private synchronized void startExecutableModules() {
+    List<ModuleExecutionState> executableModules = new ArrayList<>();
     Iterator<ModuleExecutionState> it = scheduledModules.iterator();
     while (it.hasNext()) {
       ModuleExecutionState moduleState = it.next();
       if (moduleState.isExecutable()) {
-        startModuleExecution(moduleState);
+        executableModules.add(moduleState);
         it.remove();
       }
     }
 
+    Collections.sort(executableModules, new Comparator<ModuleExecutionState>() {
+      @Override
+      public int compare(ModuleExecutionState o1, ModuleExecutionState o2) {
+        return Double.compare(o2.getCriticalPathWeight(), o1.getCriticalPathWeight());
+      }
+    });
+    for (ModuleExecutionState moduleState : executableModules) {
+      startModuleExecution(moduleState);
+    }
+
     // Check if there is a dependency deadlock (there are remaining modules, but none could execute)
     if (runningModules.isEmpty() && !scheduledModules.isEmpty()) {
       Exception ex =
@@ -136,19 +214,17 @@ public class AnalysisExecutor {
   }
   
   /**
-   * Starts a thread executing the module
+   * Submits the module to the thread pool, prioritized by the weight of its critical path
    *
    * @param moduleState the module to execute
    */
   private synchronized void startModuleExecution(final ModuleExecutionState moduleState) {
-    LOGGER.info("Starting " + moduleState.getModuleClass());
-    moduleState.startTimer();
+    LOGGER.info("Starting " + moduleState.getModuleClass() + " in " + threadPool);
+    moduleState.setInputSize(characterCount, chapterCount, annotationCount);
 
-    Thread thread = new Thread(new ModuleRunner(moduleState));
-    thread.setName("Analysis " + moduleState.getModuleClass());
-    thread.start();
-    moduleState.setThread(thread);
     runningModules.add(moduleState);
+    moduleFutures.put(moduleState, threadPool.submit(new ModuleRunner(moduleState),
+        moduleState.getCriticalPathWeight()));
   }
 
   private synchronized void onModuleFinished(ModuleExecutionState moduleState, Object result) {
@@ -162,28 +238,72 @@ public class AnalysisExecutor {
         moduleState.getDurationMillis() + " ms");
 
     resultsSoFar.add(result);
+    finishedModules.add(moduleState);
+    updateInputSize(result);
 
     for (ModuleExecutionState module : getActiveModules()) {
       module.notifyModuleFinished(moduleState.getModuleClass(), result);
     }
+    moduleState.stopObservingProgress();
     runningModules.remove(moduleState);
+    moduleFutures.remove(moduleState);
     startExecutableModules();
     checkFinished();
   }
 
-  private synchronized void onModuleProgress(ModuleExecutionState moduleState, double progress) {
+  /**
+   * Records the progress of a module. Modules may call this very often, so this does neither lock
+   * nor allocate: the progress is always stored in the module's own state, but it is only
+   * propagated to the observing modules once per MIN_MILLISECONDS_BETWEEN_PROGRESS_REPORTS.
+   *
+   * @param moduleState the module that reports its progress
+   * @param observers the modules observing the progress of that module
+   * @param progress the new progress
+   */
+  private void onModuleProgress(ModuleExecutionState moduleState,
+      ModuleExecutionState[] observers, double progress) {
     // Ignore calls after failure / cancel
     if (status != AnalysisStatus.RUNNING) {
       return;
     }
 
-    if (moduleState.getLastProgressReport() < MIN_MILLISECONDS_BETWEEN_PROGRESS_REPORTS) {
+    ModuleClass moduleClass = moduleState.getModuleClass();
+    moduleState.updateProgress(moduleClass, progress);
+    if (!moduleState.tryStartProgressReport(MIN_MILLISECONDS_BETWEEN_PROGRESS_REPORTS)) {
       return;
     }
-    moduleState.resetLastProgressReportTime();
+    moduleState.sampleHeapUsage();
 
-    for (ModuleExecutionState module : getActiveModules()) {
-      module.notifyModuleProgress(moduleState.getModuleClass(), progress);
+    for (int i = 0; i < observers.length; i++) {
+      if (observers[i].isObservingProgress()) {
+        observers[i].notifyModuleProgress(moduleClass, progress);
+      }
+    }
+  }
+
+  /**
+   * Updates the known size of the document from the result of a finished module
+   *
+   * @param result the result of the module
+   */
+  private void updateInputSize(Object result) {
+    if (result instanceof ImportResult) {
+      importResult = (ImportResult) result;
+      characterCount = importResult.getTotalLength();
+      chapterCount = 0;
+      for (DocumentPart part : importResult.getParts()) {
+        chapterCount += part.getChapters().size();
+      }
+    }
+
+    if (result instanceof NLPResult && importResult != null) {
+      int count = 0;
+      for (DocumentPart part : importResult.getParts()) {
+        for (Chapter chapter : part.getChapters()) {
+          count += ((NLPResult) result).getAnnotationsForChapter(chapter).size();
+        }
+      }
+      annotationCount = Math.max(annotationCount, count);
     }
   }
 
@@ -195,7 +315,9 @@ public class AnalysisExecutor {
 
     LOGGER.log(Level.SEVERE, "Module " + moduleState.getModuleClass() + " failed", e);
 
+    moduleState.stopObservingProgress();
     runningModules.remove(moduleState);
+    moduleFutures.remove(moduleState);
     failedModules.put(moduleState.getModuleClass(), e);
     removeModuleAndDependencies(moduleState);
     checkFinished();
@@ -211,11 +333,45 @@ public class AnalysisExecutor {
 
   private synchronized void checkFinished() {
     if (scheduledModules.isEmpty() && runningModules.isEmpty()) {
+      logModuleTimings();
       setStatus(failedModules.isEmpty() ? AnalysisStatus.FINISHED : AnalysisStatus.FAILED);
       cleanUp();
     }
   }
 
+  /**
+   * Compares the duration of each module with the duration predicted by its weight. The
+   * predictions are calibrated by the time the finished modules took per unit of weight.
+   *
+   * @return the timings of all modules of this analysis, including those not yet finished
+   */
+  public synchronized List<ModuleTiming> getModuleTimings() {
+    long finishedMillis = 0;
+    double finishedWeight = 0;
+    for (ModuleExecutionState moduleState : finishedModules) {
+      finishedMillis += moduleState.getDurationMillis();
+      finishedWeight += moduleState.getModuleClass().getWeight();
+    }
+    double millisPerWeight = finishedWeight > 0 ? finishedMillis / finishedWeight : 0;
+
+    List<ModuleTiming> timings = new ArrayList<>();
+    for (ModuleExecutionState moduleState : allModules) {
+      long predictedMillis = Math.round(moduleState.getModuleClass().getWeight() * millisPerWeight);
+      long actualMillis =
+          finishedModules.contains(moduleState) ? moduleState.getDurationMillis() : -1;
+      timings.add(new ModuleTiming(moduleState, predictedMillis, actualMillis));
+    }
+    return timings;
+  }
+
+  private void logModuleTimings() {
+    StringBuilder builder = new StringBuilder("Module timings (predicted vs. actual):");
+    for (ModuleTiming timing : getModuleTimings()) {
+      builder.append("\n  ").append(timing);
+    }
+    LOGGER.info(builder.toString());
+  }
+
   /**
    * Recursively removes the module and all modules that depend on it. Will notify the dependent
    * modules that their dependency has failed
@@ -223,6 +379,7 @@ public class AnalysisExecutor {
    * @param moduleToRemove the module to remove
    */
   private synchronized void removeModuleAndDependencies(ModuleExecutionState moduleToRemove) {
+    moduleToRemove.stopObservingProgress();
     scheduledModules.remove(moduleToRemove);
     List<ModuleExecutionState> scheduledModulesCopy = ImmutableList.copyOf(scheduledModules);
     for (ModuleExecutionState dependentModule : scheduledModulesCopy) {
@@ -244,8 +401,13 @@ public class AnalysisExecutor {
       status = AnalysisStatus.CANCELLED;
     }
 
-    for (ModuleExecutionState state : runningModules) {
-      state.getThread().interrupt();
+    // interrupts running modules and prevents queued ones from being started by the pool
+    for (Future<?> future : moduleFutures.values()) {
+      future.cancel(true);
+    }
+    moduleFutures.clear();
+    for (ModuleExecutionState moduleState : allModules) {
+      moduleState.stopObservingProgress();
     }
     scheduledModules.clear();
     cleanUp();
@@ -265,6 +427,7 @@ public class AnalysisExecutor {
    */
   private class ModuleRunner implements Runnable{
     final ModuleExecutionState moduleState;
+    final ModuleExecutionState[] observers;
     final ModuleResultProvider resultProvider;
     final Module<?> instance;
 
@@ -275,18 +438,26 @@ public class AnalysisExecutor {
      */
     public ModuleRunner(ModuleExecutionState moduleState){
       this.moduleState = moduleState;
+      this.observers = progressObservers.get(moduleState.getModuleClass());
       this.resultProvider =  moduleState.getResultProvider();
       this.instance  = moduleState.getInstance();
     }
     
     @Override
     public void run() {
+      Thread thread = Thread.currentThread();
+      String poolThreadName = thread.getName();
+      thread.setName("Analysis " + moduleState.getModuleClass());
+      moduleState.setThread(thread);
+      // measure the execution only, not the time spent waiting for a free thread
+      moduleState.startTimer();
+
       Object result;
       try {
         result = instance.execute(resultProvider, new ProgressListener() {
           @Override
           public void observeProgress(double progress) {
-            onModuleProgress(moduleState, progress);
+            onModuleProgress(moduleState, observers, progress);
           }
         });
         if (result == null) {
@@ -296,6 +467,8 @@ public class AnalysisExecutor {
       } catch(Exception e) {
         onModuleFailed(moduleState, e);
         return;
+      } finally {
+        thread.setName(poolThreadName);
       }
       onModuleFinished(moduleState, result);
     }
@@ -47,6 +47,7 @@ public class AnalysisScheduler {
     }
 
     scheduleModule(targetModule, null);
+    calculateCriticalPathWeights();
   }
   
   /**
@@ -96,6 +97,47 @@ public class AnalysisScheduler {
     return true;
   }
 
+  /**
+   * Calculates for each scheduled module the weight of the heaviest chain of modules that can only
+   * start after it, so that the executor can prefer modules on the critical path
+   */
+  private void calculateCriticalPathWeights() {
+    Map<ModuleClass, Set<ModuleClass>> dependents = new HashMap<>();
+    for (ModuleExecutionState state : scheduledModules.values()) {
+      for (ModuleClass dependency : state.getDependencies()) {
+        if (!dependents.containsKey(dependency)) {
+          dependents.put(dependency, new HashSet<ModuleClass>());
+        }
+        dependents.get(dependency).add(state.getModuleClass());
+      }
+    }
+
+    Map<ModuleClass, Double> criticalPathWeights = new HashMap<>();
+    for (ModuleExecutionState state : scheduledModules.values()) {
+      state.setCriticalPathWeight(
+          getCriticalPathWeight(state.getModuleClass(), dependents, criticalPathWeights));
+    }
+  }
+
+  private double getCriticalPathWeight(ModuleClass moduleClass,
+      Map<ModuleClass, Set<ModuleClass>> dependents, Map<ModuleClass, Double> knownWeights) {
+    if (knownWeights.containsKey(moduleClass)) {
+      return knownWeights.get(moduleClass);
+    }
+
+    double maxDependentWeight = 0;
+    if (dependents.containsKey(moduleClass)) {
+      for (ModuleClass dependent : dependents.get(moduleClass)) {
+        maxDependentWeight = Math.max(maxDependentWeight,
+            getCriticalPathWeight(dependent, dependents, knownWeights));
+      }
+    }
+
+    double weight = moduleClass.getWeight() + maxDependentWeight;
+    knownWeights.put(moduleClass, weight);
+    return weight;
+  }
+
   /**
    * Gets the module that should be used when a specific result is required
    * @param resultClass the required result
@@ -0,0 +1,180 @@
+package de.unistuttgart.vis.vita.analysis;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded thread pool for executing analysis modules which keeps track of its utilization.
+ * <p>
+ * The number of threads is fixed, so running many analyses at the same time queues the modules
+ * instead of creating more and more threads. Modules executed by this pool must not block waiting
+ * for other tasks of the same pool, otherwise the pool could deadlock.
+ * <p>
+ * Waiting tasks are started in the order of their priority (see
+ * {@link #submit(Runnable, double)}); tasks with the same priority are started in the order they
+ * have been submitted.
+ */
+public class AnalysisThreadPool extends ThreadPoolExecutor {
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  private final AtomicInteger activeThreads = new AtomicInteger();
+  private final AtomicInteger peakActiveThreads = new AtomicInteger();
+  private final AtomicLong submittedTasks = new AtomicLong();
+  private final AtomicLong taskSequence = new AtomicLong();
+
+  /**
+   * Creates a pool with the given number of threads
+   *
+   * @param threadCount the maximum number of modules executed at the same time
+   */
+  public AnalysisThreadPool(int threadCount) {
+    super(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+        new PriorityBlockingQueue<Runnable>(), new AnalysisThreadFactory());
+    // do not keep idle threads when no analysis is running
+    allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Submits a task which will be started before all waiting tasks with a lower priority
+   *
+   * @param task the task to execute
+   * @param priority the priority, higher values are started first
+   * @return a future representing the pending completion of the task
+   */
+  public Future<?> submit(Runnable task, double priority) {
+    PrioritizedTask<Void> futureTask = new PrioritizedTask<>(task, null, priority);
+    execute(futureTask);
+    return futureTask;
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    submittedTasks.incrementAndGet();
+    if (command instanceof PrioritizedTask) {
+      super.execute(command);
+    } else {
+      super.execute(new PrioritizedTask<Void>(command, null, 0));
+    }
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    return new PrioritizedTask<>(runnable, value, 0);
+  }
+
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+    return new PrioritizedTask<>(callable, 0);
+  }
+
+  @Override
+  protected void beforeExecute(Thread thread, Runnable runnable) {
+    super.beforeExecute(thread, runnable);
+    int active = activeThreads.incrementAndGet();
+    int peak = peakActiveThreads.get();
+    while (active > peak && !peakActiveThreads.compareAndSet(peak, active)) {
+      peak = peakActiveThreads.get();
+    }
+  }
+
+  @Override
+  protected void afterExecute(Runnable runnable, Throwable throwable) {
+    activeThreads.decrementAndGet();
+    super.afterExecute(runnable, throwable);
+  }
+
+  /**
+   * Gets the number of tasks which are waiting for a free thread
+   *
+   * @return the queue depth
+   */
+  public int getQueueDepth() {
+    return getQueue().size();
+  }
+
+  /**
+   * Gets the number of threads that are currently executing a task
+   *
+   * @return the number of busy threads
+   */
+  public int getActiveThreadCount() {
+    return activeThreads.get();
+  }
+
+  /**
+   * Gets the highest number of threads that have been executing tasks at the same time
+   *
+   * @return the peak number of busy threads
+   */
+  public int getPeakActiveThreadCount() {
+    return peakActiveThreads.get();
+  }
+
+  /**
+   * Gets the number of tasks that have been submitted to this pool since its creation
+   *
+   * @return the number of submitted tasks
+   */
+  public long getSubmittedTaskCount() {
+    return submittedTasks.get();
+  }
+
+  @Override
+  public String toString() {
+    return "AnalysisThreadPool [threads=" + getMaximumPoolSize() + ", active="
+        + getActiveThreadCount() + ", peak=" + getPeakActiveThreadCount() + ", queued="
+        + getQueueDepth() + ", completed=" + getCompletedTaskCount() + "]";
+  }
+
+  /**
+   * A task that is ordered by its priority and then by the time it has been created
+   */
+  private class PrioritizedTask<T> extends FutureTask<T>
+      implements Comparable<PrioritizedTask<?>> {
+    private final double priority;
+    private final long sequenceNumber = taskSequence.getAndIncrement();
+
+    public PrioritizedTask(Runnable runnable, T value, double priority) {
+      super(runnable, value);
+      this.priority = priority;
+    }
+
+    public PrioritizedTask(Callable<T> callable, double priority) {
+      super(callable);
+      this.priority = priority;
+    }
+
+    @Override
+    public int compareTo(PrioritizedTask<?> other) {
+      if (priority != other.priority) {
+        return priority > other.priority ? -1 : 1;
+      }
+      if (sequenceNumber != other.sequenceNumber) {
+        return sequenceNumber < other.sequenceNumber ? -1 : 1;
+      }
+      return 0;
+    }
+  }
+
+  /**
+   * Creates named daemon threads so that idle pool threads do not prevent the JVM from exiting
+   */
+  private static class AnalysisThreadFactory implements ThreadFactory {
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "Analysis worker " + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
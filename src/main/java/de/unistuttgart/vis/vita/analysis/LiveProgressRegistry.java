@@ -0,0 +1,212 @@
+package de.unistuttgart.vis.vita.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import de.unistuttgart.vis.vita.model.progress.AnalysisProgress;
+
+/**
+ * Keeps the progress of the documents being analyzed in memory, so that it can be queried without
+ * accessing the data base.
+ * <p>
+ * The progress of a document is stored as a snapshot which is replaced on every change, so
+ * snapshots returned by this registry never change and must not be modified.
+ * <p>
+ * The listeners are notified in an executor, so that slow listeners like waiting HTTP clients do
+ * not block the analysis thread which changes the progress.
+ */
+public class LiveProgressRegistry {
+  private static final LiveProgressRegistry INSTANCE =
+      new LiveProgressRegistry(Threads.getGlobalExecutorService());
+
+  private final ConcurrentMap<String, AnalysisProgress> snapshots = new ConcurrentHashMap<>();
+
+  /**
+   * The listeners waiting for the next change of a document, guarded by this
+   */
+  private final Map<String, List<ChangeListener>> listeners = new HashMap<>();
+
+  private final Executor notificationExecutor;
+
+  /**
+   * Creates a registry which notifies its listeners in the given executor
+   *
+   * @param notificationExecutor the executor in which the listeners are called
+   */
+  LiveProgressRegistry(Executor notificationExecutor) {
+    this.notificationExecutor = notificationExecutor;
+  }
+
+  /**
+   * Gets the application-wide registry
+   *
+   * @return the registry
+   */
+  public static LiveProgressRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Starts tracking the progress of a document whose analysis has just been started. The progress
+   * of all features is zero.
+   *
+   * @param documentId the id of the document
+   */
+  public void start(String documentId) {
+    AnalysisProgress progress = new AnalysisProgress();
+    progress.setStatus(AnalysisStatus.RUNNING);
+    publish(documentId, progress, false);
+  }
+
+  /**
+   * Changes the progress of a tracked document. Does nothing if the document is not tracked.
+   *
+   * @param documentId the id of the document
+   * @param update the change to apply to a copy of the current progress
+   */
+  public void update(String documentId, ProgressUpdate update) {
+    List<ChangeListener> listenersToNotify;
+    AnalysisProgress progress;
+    synchronized (this) {
+      AnalysisProgress oldProgress = snapshots.get(documentId);
+      if (oldProgress == null) {
+        return;
+      }
+      progress = new AnalysisProgress(oldProgress);
+      update.apply(progress);
+      snapshots.put(documentId, progress);
+      listenersToNotify = listeners.remove(documentId);
+    }
+    notifyListeners(listenersToNotify, progress);
+  }
+
+  /**
+   * Stops tracking the progress of a document whose analysis has ended. The final status must
+   * already have been persisted, because the progress is read from the data base afterwards.
+   *
+   * @param documentId the id of the document
+   * @param status the final status
+   */
+  public void finish(String documentId, final AnalysisStatus status) {
+    AnalysisProgress oldProgress = snapshots.get(documentId);
+    if (oldProgress == null) {
+      return;
+    }
+    AnalysisProgress progress = new AnalysisProgress(oldProgress);
+    progress.setStatus(status);
+    publish(documentId, progress, true);
+  }
+
+  /**
+   * Gets the progress of a tracked document
+   *
+   * @param documentId the id of the document
+   * @return the progress, or null if the document is not being analyzed
+   */
+  public AnalysisProgress getProgress(String documentId) {
+    return snapshots.get(documentId);
+  }
+
+  /**
+   * Registers a listener which is called once when the progress of the document changes next. If
+   * it has already changed since the known progress has been read, the listener is called
+   * immediately in this thread.
+   *
+   * @param documentId the id of the document
+   * @param knownProgress the progress returned by {@link #getProgress(String)}, or null if the
+   *        document has not been tracked
+   * @param listener the listener to call
+   */
+  public void addChangeListener(String documentId, AnalysisProgress knownProgress,
+      ChangeListener listener) {
+    AnalysisProgress currentProgress;
+    synchronized (this) {
+      currentProgress = snapshots.get(documentId);
+      if (currentProgress == knownProgress) {
+        List<ChangeListener> documentListeners = listeners.get(documentId);
+        if (documentListeners == null) {
+          documentListeners = new ArrayList<>();
+          listeners.put(documentId, documentListeners);
+        }
+        documentListeners.add(listener);
+        return;
+      }
+    }
+    listener.onChange(currentProgress);
+  }
+
+  /**
+   * Removes a listener that has not been called, e.g. because the client has stopped waiting
+   *
+   * @param documentId the id of the document
+   * @param listener the listener to remove
+   */
+  public synchronized void removeChangeListener(String documentId, ChangeListener listener) {
+    List<ChangeListener> documentListeners = listeners.get(documentId);
+    if (documentListeners != null) {
+      documentListeners.remove(listener);
+      if (documentListeners.isEmpty()) {
+        listeners.remove(documentId);
+      }
+    }
+  }
+
+  private void publish(String documentId, AnalysisProgress progress, boolean isFinal) {
+    List<ChangeListener> listenersToNotify;
+    synchronized (this) {
+      if (isFinal) {
+        snapshots.remove(documentId);
+      } else {
+        snapshots.put(documentId, progress);
+      }
+      listenersToNotify = listeners.remove(documentId);
+    }
+    notifyListeners(listenersToNotify, progress);
+  }
+
+  private void notifyListeners(List<ChangeListener> listenersToNotify,
+      final AnalysisProgress progress) {
+    if (listenersToNotify != null) {
+      for (final ChangeListener listener : listenersToNotify) {
+        // each listener on its own, so that one slow client does not delay the others
+        notificationExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            listener.onChange(progress);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * A change to the progress of a document
+   */
+  public interface ProgressUpdate {
+    /**
+     * Applies the change
+     *
+     * @param progress a copy of the current progress which should be modified
+     */
+    void apply(AnalysisProgress progress);
+  }
+
+  /**
+   * Is notified when the progress of a document changes. Changes are reported in a thread of the
+   * notification executor.
+   */
+  public interface ChangeListener {
+    /**
+     * Is called when the progress has changed
+     *
+     * @param progress the new progress, or null if the document is not tracked any more and the
+     *        progress should be read from the data base
+     */
+    void onChange(AnalysisProgress progress);
+  }
+}
@@ -137,6 +137,14 @@ public final class ModuleClass {
     return clazz.hashCode();
   }
 
+  /**
+   * Gets the fully qualified name of the module class
+   * @return the class name
+   */
+  public String getName() {
+    return clazz.getName();
+  }
+
   @Override
   public String toString() {
     return clazz.toString();
@@ -5,6 +5,8 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.commons.lang.StringUtils;
 
@@ -12,18 +14,43 @@ import org.apache.commons.lang.StringUtils;
  * The state maintained by the AnalyisController for the execution of a module
  */
 public class ModuleExecutionState {
+  /**
+   * Progress values are stored as fixed-point numbers with this many units for a progress of 1
+   */
+  private static final long PROGRESS_SCALE = 1 << 20;
+
+  /**
+   * Module weights are stored as fixed-point numbers with this many units for a weight of 1
+   */
+  private static final long WEIGHT_SCALE = 1000;
+
   private ModuleClass clazz;
   private Module<?> instance;
+  private Set<ModuleClass> dependencies;
   private Set<ModuleClass> remainingDependencies;
   private ModuleResultProviderImpl resultProvider;
   private boolean isExecutable;
   private Thread thread;
-  private Map<ModuleClass, Double> progressMap;
   private Set<ModuleClass> directAndIndirectDependencies;
-  private double currentProgress;
-  private long lastProgressReport;
+
+  /**
+   * Maps this module and its dependencies to their slot in progressValues and progressWeights
+   */
+  private final Map<ModuleClass, Integer> progressSlots;
+  private final AtomicLongArray progressValues;
+  private final long[] progressWeights;
+  private final long totalProgressWeight;
+  private final AtomicLong weightedProgressSum = new AtomicLong();
+  private final AtomicLong lastProgressReport = new AtomicLong();
+  private volatile boolean isObservingProgress = true;
   private long startTimeMillis;
   private long endTimeMillis;
+  private double criticalPathWeight;
+  private long heapUsedAtStart;
+  private long peakHeapUsed;
+  private int inputCharacterCount;
+  private int inputChapterCount;
+  private int inputAnnotationCount;
 
   /**
    * Constructs a new execution state from a module class and its dependencies
@@ -38,17 +65,57 @@ public class ModuleExecutionState {
     this.clazz = clazz;
     this.instance = optionalInstance;
     this.directAndIndirectDependencies = new HashSet<>(directAndIndirectDependencies);
+    this.dependencies = new HashSet<>(dependencies);
     remainingDependencies = new HashSet<>(dependencies);
     resultProvider = new ModuleResultProviderImpl();
     isExecutable = remainingDependencies.isEmpty();
-    progressMap = new HashMap<>();
 
     // Initialize progress
+    Map<ModuleClass, Integer> slots = new HashMap<>();
     for (ModuleClass dependency : directAndIndirectDependencies) {
-      progressMap.put(dependency, 0.);
+      slots.put(dependency, slots.size());
     }
-    progressMap.put(clazz, 0.0);
-    currentProgress = 0;
+    if (!slots.containsKey(clazz)) {
+      slots.put(clazz, slots.size());
+    }
+    progressSlots = Collections.unmodifiableMap(slots);
+    progressValues = new AtomicLongArray(slots.size());
+    progressWeights = new long[slots.size()];
+    long totalWeight = 0;
+    for (Map.Entry<ModuleClass, Integer> slot : slots.entrySet()) {
+      progressWeights[slot.getValue()] = Math.round(slot.getKey().getWeight() * WEIGHT_SCALE);
+      totalWeight += progressWeights[slot.getValue()];
+    }
+    totalProgressWeight = totalWeight;
+    criticalPathWeight = clazz.getWeight();
+  }
+
+  /**
+   * Gets the modules this module directly depends on
+   *
+   * @return the direct dependencies as unmodifiable set
+   */
+  public Set<ModuleClass> getDependencies() {
+    return Collections.unmodifiableSet(dependencies);
+  }
+
+  /**
+   * Gets the weight of the most expensive chain of modules starting with this module and ending
+   * with a module nothing depends on. Modules with a higher value should be started first.
+   *
+   * @return the weight of this module plus the critical path weight of its heaviest dependent
+   */
+  public double getCriticalPathWeight() {
+    return criticalPathWeight;
+  }
+
+  /**
+   * Sets the weight of the critical path starting with this module
+   *
+   * @param criticalPathWeight the weight, at least the module's own weight
+   */
+  public void setCriticalPathWeight(double criticalPathWeight) {
+    this.criticalPathWeight = criticalPathWeight;
   }
 
   /**
@@ -106,7 +173,8 @@ public class ModuleExecutionState {
           "The provided result is not assignable to the claimed module's result type");
     }
 
-    putProgress(module, 1.0);
+    updateProgress(module, 1.0);
+    dispatchProgress();
 
     synchronized (remainingDependencies) {
       if (!remainingDependencies.contains(module)) {
@@ -131,7 +199,59 @@ public class ModuleExecutionState {
    * @param progress the new progress of that module
    */
   public void notifyModuleProgress(ModuleClass module, double progress) {
-    putProgress(module, progress);
+    updateProgress(module, progress);
+    dispatchProgress();
+  }
+
+  /**
+   * Stores the progress of the module itself, a direct or indirect dependency without reporting it
+   * to the instance. Does neither lock nor allocate, so it can be called for every progress report.
+   *
+   * @param module the module whose progress has changed
+   * @param progress the new progress of that module
+   * @return true, if the progress of this module has changed
+   */
+  public boolean updateProgress(ModuleClass module, double progress) {
+    if (progress < 0 || progress > 1) {
+      throw new IllegalArgumentException("progress must be between 0 and 1, inclusively");
+    }
+
+    Integer slot = progressSlots.get(module);
+    if (slot == null) {
+      return false;
+    }
+
+    long value = Math.round(progress * PROGRESS_SCALE);
+    long oldValue = progressValues.getAndSet(slot, value);
+    if (oldValue == value) {
+      return false;
+    }
+    weightedProgressSum.addAndGet(progressWeights[slot] * (value - oldValue));
+    return true;
+  }
+
+  /**
+   * Reports the current progress to the instance
+   */
+  public void dispatchProgress() {
+    getInstance().observeProgress(getProgress());
+  }
+
+  /**
+   * Indicates whether this module still observes the progress of the module itself and its
+   * dependencies. This is the case until it is finished, has failed or has been cancelled.
+   *
+   * @return true, if progress reports should still be dispatched to this module
+   */
+  public boolean isObservingProgress() {
+    return isObservingProgress;
+  }
+
+  /**
+   * Stops the dispatching of progress reports to this module
+   */
+  public void stopObservingProgress() {
+    isObservingProgress = false;
   }
 
   /**
@@ -188,42 +308,16 @@ public class ModuleExecutionState {
     this.thread = thread;
   }
 
-  private void putProgress(ModuleClass module, double progress) {
-    if (progress < 0 || progress > 1) {
-      throw new IllegalArgumentException("progress must be between 0 and 1, inclusively");
-    }
-
-    synchronized (progressMap) {
-      if (!progressMap.containsKey(module)) {
-        return;
-      }
-
-      progressMap.put(module, progress);
-      currentProgress = calculateProgress();
-    }
-
-    getInstance().observeProgress(currentProgress);
-  }
-
   /**
    * Gets the progress of this module and its direct and indirect dependencies
    *
    * @return a value between 0 and 1
    */
   public double getProgress() {
-    return currentProgress;
-  }
-
-  private double calculateProgress() {
-    double sum = 0;
-    double sumWeights = 0;
-
-    for (Map.Entry<ModuleClass, Double> clazzEntry : progressMap.entrySet()) {
-      sum += clazzEntry.getKey().getWeight() * clazzEntry.getValue();
-      sumWeights += clazzEntry.getKey().getWeight();
+    if (totalProgressWeight == 0) {
+      return 0;
     }
-
-    return sum / sumWeights;
+    return (double) weightedProgressSum.get() / (totalProgressWeight * PROGRESS_SCALE);
   }
 
   @Override
@@ -246,16 +340,67 @@ public class ModuleExecutionState {
 
   public void startTimer() {
     startTimeMillis = System.currentTimeMillis();
+    heapUsedAtStart = getUsedHeap();
+    peakHeapUsed = heapUsedAtStart;
   }
 
   public void stopTimer() {
     endTimeMillis = System.currentTimeMillis();
+    sampleHeapUsage();
   }
 
   public long getDurationMillis() {
     return endTimeMillis - startTimeMillis;
   }
 
+  /**
+   * Records the current heap usage. Is called on start, on progress reports and on finish.
+   */
+  public void sampleHeapUsage() {
+    peakHeapUsed = Math.max(peakHeapUsed, getUsedHeap());
+  }
+
+  /**
+   * Gets the highest heap usage observed while the module was running minus the usage at its
+   * start. As the heap is shared with other modules and the garbage collector runs independently,
+   * this is only an approximation of the memory the module needed.
+   *
+   * @return the peak heap delta in bytes
+   */
+  public long getPeakHeapDeltaBytes() {
+    return peakHeapUsed - heapUsedAtStart;
+  }
+
+  private static long getUsedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Stores the size of the document as it was known when the module was started
+   *
+   * @param characterCount the number of characters of all chapters
+   * @param chapterCount the number of chapters
+   * @param annotationCount the number of NLP annotations
+   */
+  public void setInputSize(int characterCount, int chapterCount, int annotationCount) {
+    this.inputCharacterCount = characterCount;
+    this.inputChapterCount = chapterCount;
+    this.inputAnnotationCount = annotationCount;
+  }
+
+  public int getInputCharacterCount() {
+    return inputCharacterCount;
+  }
+
+  public int getInputChapterCount() {
+    return inputChapterCount;
+  }
+
+  public int getInputAnnotationCount() {
+    return inputAnnotationCount;
+  }
+
   private static class ModuleResultProviderImpl implements ModuleResultProvider {
 
     private Map<Class<?>, Object> results = new HashMap<>();
@@ -286,14 +431,31 @@ public class ModuleExecutionState {
    * @return the time, or {@link Integer#MAX_VALUE} if never set
    */
   public long getLastProgressReport() {
-    if (lastProgressReport == 0) {
+    long lastReport = lastProgressReport.get();
+    if (lastReport == 0) {
       return Integer.MAX_VALUE;
     }
 
-    return System.currentTimeMillis() - lastProgressReport;
+    return System.currentTimeMillis() - lastReport;
   }
 
   public void resetLastProgressReportTime() {
-    this.lastProgressReport = System.currentTimeMillis();
+    lastProgressReport.set(System.currentTimeMillis());
+  }
+
+  /**
+   * Resets the time of the last progress report if at least the given time has passed since then.
+   * Of concurrent callers, only one succeeds, so that reports are coalesced.
+   *
+   * @param minMillisBetweenReports the minimum time between two reports in milliseconds
+   * @return true, if the caller should report the progress
+   */
+  public boolean tryStartProgressReport(long minMillisBetweenReports) {
+    long lastReport = lastProgressReport.get();
+    long now = System.currentTimeMillis();
+    if (lastReport != 0 && now - lastReport < minMillisBetweenReports) {
+      return false;
+    }
+    return lastProgressReport.compareAndSet(lastReport, now);
   }
 }
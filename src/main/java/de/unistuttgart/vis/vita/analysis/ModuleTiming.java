@@ -0,0 +1,138 @@
+package de.unistuttgart.vis.vita.analysis;
+
+/**
+ * Compares the predicted and the actual duration of a module execution and describes the size of
+ * the input the module has processed
+ */
+public class ModuleTiming {
+  private final ModuleClass moduleClass;
+  private final double criticalPathWeight;
+  private final long predictedDurationMillis;
+  private final long actualDurationMillis;
+  private int characterCount;
+  private int chapterCount;
+  private int annotationCount;
+  private long peakHeapDeltaBytes;
+
+  /**
+   * Creates a new timing record
+   *
+   * @param moduleClass the executed module
+   * @param criticalPathWeight the weight of the critical path starting at this module
+   * @param predictedDurationMillis the duration predicted from the module weight
+   * @param actualDurationMillis the measured duration, or -1 if the module has not finished
+   */
+  public ModuleTiming(ModuleClass moduleClass, double criticalPathWeight,
+      long predictedDurationMillis, long actualDurationMillis) {
+    this.moduleClass = moduleClass;
+    this.criticalPathWeight = criticalPathWeight;
+    this.predictedDurationMillis = predictedDurationMillis;
+    this.actualDurationMillis = actualDurationMillis;
+  }
+
+  /**
+   * Creates a timing record for the given module execution
+   *
+   * @param moduleState the executed module
+   * @param predictedDurationMillis the duration predicted from the module weight
+   * @param actualDurationMillis the measured duration, or -1 if the module has not finished
+   */
+  public ModuleTiming(ModuleExecutionState moduleState, long predictedDurationMillis,
+      long actualDurationMillis) {
+    this(moduleState.getModuleClass(), moduleState.getCriticalPathWeight(),
+        predictedDurationMillis, actualDurationMillis);
+    characterCount = moduleState.getInputCharacterCount();
+    chapterCount = moduleState.getInputChapterCount();
+    annotationCount = moduleState.getInputAnnotationCount();
+    if (actualDurationMillis >= 0) {
+      peakHeapDeltaBytes = moduleState.getPeakHeapDeltaBytes();
+    }
+  }
+
+  public ModuleClass getModuleClass() {
+    return moduleClass;
+  }
+
+  /**
+   * Gets the weight declared in the module's annotation
+   *
+   * @return the weight
+   */
+  public double getWeight() {
+    return moduleClass.getWeight();
+  }
+
+  public double getCriticalPathWeight() {
+    return criticalPathWeight;
+  }
+
+  /**
+   * Gets the duration predicted from the module's weight, calibrated by the modules finished so far
+   *
+   * @return the predicted duration in milliseconds
+   */
+  public long getPredictedDurationMillis() {
+    return predictedDurationMillis;
+  }
+
+  /**
+   * Gets the measured duration of the module
+   *
+   * @return the duration in milliseconds, or -1 if the module has not finished yet
+   */
+  public long getActualDurationMillis() {
+    return actualDurationMillis;
+  }
+
+  /**
+   * Indicates whether the module has finished and the actual duration is known
+   *
+   * @return true, if the module has finished
+   */
+  public boolean isFinished() {
+    return actualDurationMillis >= 0;
+  }
+
+  /**
+   * Gets the number of characters of the document known when the module was started
+   *
+   * @return the number of characters, or 0 if the document had not been imported yet
+   */
+  public int getCharacterCount() {
+    return characterCount;
+  }
+
+  /**
+   * Gets the number of chapters of the document known when the module was started
+   *
+   * @return the number of chapters, or 0 if the document had not been imported yet
+   */
+  public int getChapterCount() {
+    return chapterCount;
+  }
+
+  /**
+   * Gets the number of NLP annotations known when the module was started
+   *
+   * @return the number of annotations, or 0 if the NLP analysis had not finished yet
+   */
+  public int getAnnotationCount() {
+    return annotationCount;
+  }
+
+  /**
+   * Gets the approximate additional heap the module has used at its peak
+   *
+   * @return the heap delta in bytes, or 0 if the module has not finished
+   */
+  public long getPeakHeapDeltaBytes() {
+    return peakHeapDeltaBytes;
+  }
+
+  @Override
+  public String toString() {
+    return moduleClass + ": weight " + getWeight() + ", critical path " + criticalPathWeight
+        + ", predicted " + predictedDurationMillis + " ms, actual "
+        + (isFinished() ? actualDurationMillis + " ms" : "n/a");
+  }
+}
@@ -2,13 +2,32 @@ package de.unistuttgart.vis.vita.analysis;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 
 /**
- * Provides an application-wide thread pool
+ * Provides application-wide thread pools
  */
 public class Threads {
+  /**
+   * The system property which can be used to configure the number of analysis module threads
+   */
+  public static final String ANALYSIS_THREADS_PROPERTY = "vita.analysis.threads";
+
+  private static final int MIN_ANALYSIS_THREADS = 2;
+
+  /**
+   * Unbounded because tasks of this pool wait for other tasks of this pool (e.g. the importers)
+   */
   private static final ExecutorService GLOBAL_EXECUTOR = Executors.newCachedThreadPool();
 
+  /**
+   * For data-parallel computations within a module, with one thread per processor
+   */
+  private static final ForkJoinPool FORK_JOIN_POOL = new ForkJoinPool();
+
+  private static final AnalysisThreadPool ANALYSIS_THREAD_POOL =
+      new AnalysisThreadPool(getAnalysisThreadCount());
+
   /**
    * Gets an application-wide thread pool
    * @return
@@ -16,4 +35,28 @@ public class Threads {
   public static ExecutorService getGlobalExecutorService() {
     return GLOBAL_EXECUTOR;
   }
+
+  /**
+   * Gets the application-wide fork/join pool for splitting the work of a module into small tasks
+   *
+   * @return the fork/join pool
+   */
+  public static ForkJoinPool getForkJoinPool() {
+    return FORK_JOIN_POOL;
+  }
+
+  /**
+   * Gets the application-wide bounded thread pool in which the analysis modules are executed
+   *
+   * @return the analysis thread pool
+   */
+  public static AnalysisThreadPool getAnalysisThreadPool() {
+    return ANALYSIS_THREAD_POOL;
+  }
+
+  private static int getAnalysisThreadCount() {
+    int defaultCount = Math.max(MIN_ANALYSIS_THREADS, Runtime.getRuntime().availableProcessors());
+    return Math.max(MIN_ANALYSIS_THREADS,
+        Integer.getInteger(ANALYSIS_THREADS_PROPERTY, defaultCount));
+  }
 }
@@ -3,6 +3,8 @@ package de.unistuttgart.vis.vita.analysis.modules;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 
+import de.unistuttgart.vis.vita.analysis.LiveProgressRegistry;
+import de.unistuttgart.vis.vita.analysis.LiveProgressRegistry.ProgressUpdate;
 import de.unistuttgart.vis.vita.analysis.Module;
 import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
 import de.unistuttgart.vis.vita.analysis.ProgressListener;
@@ -18,6 +20,7 @@ import de.unistuttgart.vis.vita.model.progress.FeatureProgress;
 public abstract class AbstractFeatureModule<T> extends Module<T> {
   private Model model;
   private String documentId;
+  private volatile boolean isProgressCompleted;
 
   @Override
   public void dependencyFinished(Class<?> resultClass, Object result) {
@@ -28,23 +31,18 @@ public abstract class AbstractFeatureModule<T> extends Module<T> {
     }
   }
 
+  /**
+   * Passes the progress to the {@link FeatureProgressWriter} which writes it in the background
+   */
   @Override
   public void observeProgress(double progress) {
-    if (documentId == null || model == null) {
-      // cannot report progress yet
+    if (documentId == null || model == null || isProgressCompleted) {
+      // cannot report progress yet, or not any more
       return;
     }
 
-    EntityManager em = model.getEntityManager();
-    Document doc = getDocument(em);
-    em.getTransaction().begin();
-    for (FeatureProgress featureProgress : getProgresses(doc.getProgress())) {
-      if (!featureProgress.isReady()) {
-        featureProgress.setProgress(progress);
-      }
-    }
-    em.getTransaction().commit();
-    em.close();
+    updateLiveProgress(progress, false, false);
+    FeatureProgressWriter.getInstance().submit(this, progress);
   }
 
   @Override
@@ -59,14 +57,18 @@ public abstract class AbstractFeatureModule<T> extends Module<T> {
 
       T result = storeResults(results, document, em, progressListener);
 
-      em.merge(document);
+      if (!em.contains(document)) {
+        document = em.merge(document);
+      }
 
+      completeProgress();
       for (FeatureProgress featureProgress : getProgresses(document.getProgress())) {
         featureProgress.setProgress(1);
         featureProgress.setReady(true);
       }
       em.getTransaction().commit();
       em.close();
+      updateLiveProgress(1, true, false);
 
       return result;
     } catch (Exception e) {
@@ -84,7 +86,7 @@ public abstract class AbstractFeatureModule<T> extends Module<T> {
    * Does the actual work of storing the feature results in the document
    *
    * @param results the results of the dependencies
-   * @param document will be merged automatically afterwards
+   * @param document will be merged automatically afterwards if it has been detached
    * @param em the entity manager, in case other entities need to be persisted
    * @param progressListener
    * @return the desired result for this module
@@ -98,7 +100,37 @@ public abstract class AbstractFeatureModule<T> extends Module<T> {
    */
   protected abstract Iterable<FeatureProgress> getProgresses(AnalysisProgress progress);
 
+  Model getModel() {
+    return model;
+  }
+
+  String getDocumentId() {
+    return documentId;
+  }
+
+  /**
+   * Indicates whether the module has written its final progress so that further progress reports
+   * must be ignored
+   *
+   * @return true, if the module has completed or failed
+   */
+  boolean isProgressCompleted() {
+    return isProgressCompleted;
+  }
+
+  /**
+   * Stops reporting progress and discards the progress not yet written
+   */
+  private void completeProgress() {
+    isProgressCompleted = true;
+    FeatureProgressWriter.getInstance().discard(this);
+  }
+
   private Document getDocument(EntityManager em) {
+    return getDocument(em, documentId);
+  }
+
+  static Document getDocument(EntityManager em, String documentId) {
     TypedQuery<Document> query = em.createNamedQuery("Document.findDocumentById", Document.class);
     query.setParameter("documentId", documentId);
     return query.getSingleResult();
@@ -110,6 +142,7 @@ public abstract class AbstractFeatureModule<T> extends Module<T> {
       return;
     }
 
+    completeProgress();
     EntityManager em = model.getEntityManager();
     Document doc = getDocument(em);
     em.getTransaction().begin();
@@ -120,6 +153,34 @@ public abstract class AbstractFeatureModule<T> extends Module<T> {
     }
     em.getTransaction().commit();
     em.close();
+    updateLiveProgress(0, false, true);
+  }
+
+  /**
+   * Updates the progress of the features in the {@link LiveProgressRegistry}
+   *
+   * @param progress the new progress, ignored if the features have failed
+   * @param isReady whether the features are ready
+   * @param isFailed whether the features have failed
+   */
+  private void updateLiveProgress(final double progress, final boolean isReady,
+      final boolean isFailed) {
+    LiveProgressRegistry.getInstance().update(documentId, new ProgressUpdate() {
+      @Override
+      public void apply(AnalysisProgress analysisProgress) {
+        for (FeatureProgress featureProgress : getProgresses(analysisProgress)) {
+          if (featureProgress.isReady() || featureProgress.isFailed()) {
+            continue;
+          }
+          if (isFailed) {
+            featureProgress.setFailed(true);
+          } else {
+            featureProgress.setProgress(progress);
+            featureProgress.setReady(isReady);
+          }
+        }
+      }
+    });
   }
 
 }
@@ -8,6 +8,7 @@ package de.unistuttgart.vis.vita.analysis.modules;
 import de.unistuttgart.vis.vita.analysis.Module;
 import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
 import de.unistuttgart.vis.vita.analysis.ProgressListener;
+import de.unistuttgart.vis.vita.analysis.Threads;
 import de.unistuttgart.vis.vita.analysis.annotations.AnalysisModule;
 import de.unistuttgart.vis.vita.analysis.modules.gate.NLPConstants;
 import de.unistuttgart.vis.vita.analysis.results.BasicEntityCollection;
@@ -19,13 +20,17 @@ import de.unistuttgart.vis.vita.model.document.DocumentPart;
 import de.unistuttgart.vis.vita.model.entity.Attribute;
 import de.unistuttgart.vis.vita.model.entity.AttributeType;
 import de.unistuttgart.vis.vita.model.entity.BasicEntity;
+import de.unistuttgart.vis.vita.model.entity.EntityType;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import gate.Annotation;
 
@@ -39,23 +44,28 @@ public class EntityAttributeModule extends Module<EntityAttributes> {
   private ImportResult importResult;
   private NLPResult nlpResult;
   private BasicEntityCollection entities;
-  private Map<BasicEntity, Set<AttributeType>> containedTypes;
   private Map<BasicEntity, Set<Attribute>> entityToAttribute;
 
+  /**
+   * The entities by their names. Persons are looked up first, because only person annotations have
+   * a gender.
+   */
+  private Map<String, BasicEntity> personsByName;
+  private Map<String, BasicEntity> otherEntitiesByName;
+
   @Override
   public EntityAttributes execute(ModuleResultProvider results, ProgressListener progressListener)
       throws Exception {
     importResult = results.getResultFor(ImportResult.class);
     nlpResult = results.getResultFor(NLPResult.class);
     entities = results.getResultFor(BasicEntityCollection.class);
-    containedTypes = new HashMap<>();
     entityToAttribute = new HashMap<>();
 
     for (BasicEntity basicEntity : entities.getEntities()) {
-      containedTypes.put(basicEntity, new HashSet<AttributeType>());
       entityToAttribute.put(basicEntity, new HashSet<Attribute>());
     }
 
+    buildNameIndex();
     startAnalysis();
 
     return new EntityAttributes() {
@@ -67,46 +77,96 @@ public class EntityAttributeModule extends Module<EntityAttributes> {
   }
 
   /**
-   * Starts the analysis through the whole annotations.
+   * Maps each name to the first entity which has it.
    */
-  private void startAnalysis() {
-    List<DocumentPart> documentParts = importResult.getParts();
+  private void buildNameIndex() {
+    personsByName = new HashMap<>();
+    otherEntitiesByName = new HashMap<>();
+
+    for (BasicEntity basicEntity : entities.getEntities()) {
+      Map<String, BasicEntity> index =
+          basicEntity.getType() == EntityType.PERSON ? personsByName : otherEntitiesByName;
+      for (Attribute attribute : basicEntity.getNameAttributes()) {
+        if (!index.containsKey(attribute.getContent())) {
+          index.put(attribute.getContent(), basicEntity);
+        }
+      }
+    }
+  }
 
-    for (DocumentPart part : documentParts) {
-      List<Chapter> chapters = part.getChapters();
+  /**
+   * Starts the analysis through the whole annotations. The chapters are analyzed in parallel on the
+   * shared fork/join pool, and the first gender found in the document is applied to each entity.
+   */
+  private void startAnalysis() {
+    List<ForkJoinTask<Map<BasicEntity, String>>> tasks = new ArrayList<>();
 
-      for (Chapter chapter : chapters) {
-        Set<Annotation> annotations = filterEntityAnnotations(
-            nlpResult.getAnnotationsForChapter(chapter));
+    for (DocumentPart part : importResult.getParts()) {
+      for (Chapter chapter : part.getChapters()) {
+        tasks.add(Threads.getForkJoinPool().submit(new ChapterGenderTask(chapter)));
+      }
+    }
 
-        for (Annotation annieAnnotation : annotations) {
-          if (annieAnnotation.getFeatures().containsKey(NLPConstants.FEATURE_GENDER)) {
-            String annotatedText = getAnnotatedText(chapter.getText(), annieAnnotation);
-            applyGender(annotatedText, annieAnnotation);
+    Set<BasicEntity> entitiesWithGender = new HashSet<>();
+    try {
+      for (ForkJoinTask<Map<BasicEntity, String>> task : tasks) {
+        for (Map.Entry<BasicEntity, String> entry : task.join().entrySet()) {
+          if (entitiesWithGender.add(entry.getKey())) {
+            entityToAttribute.get(entry.getKey()).add(
+                new Attribute(AttributeType.GENDER, entry.getValue()));
           }
         }
       }
+    } finally {
+      for (ForkJoinTask<Map<BasicEntity, String>> task : tasks) {
+        task.cancel(true);
+      }
     }
   }
 
   /**
-   * Applies the gender attribute to the given entity name. If a gender already exists in the entity
-   * do nothing.
+   * Finds the genders within a single chapter.
+   */
+  private class ChapterGenderTask extends RecursiveTask<Map<BasicEntity, String>> {
+    private static final long serialVersionUID = 1L;
+
+    private final Chapter chapter;
+
+    public ChapterGenderTask(Chapter chapter) {
+      this.chapter = chapter;
+    }
+
+    @Override
+    protected Map<BasicEntity, String> compute() {
+      return findGenders(chapter);
+    }
+  }
+
+  /**
+   * Finds the first gender of each entity within a chapter.
    *
-   * @param entityName      A name of the desired entity.
-   * @param annieAnnotation The current annotation.
+   * @param chapter The chapter.
+   * @return The gender by entity.
    */
-  private void applyGender(String entityName, Annotation annieAnnotation) {
-    BasicEntity theEntity = getEntityForName(entityName);
+  private Map<BasicEntity, String> findGenders(Chapter chapter) {
+    Map<BasicEntity, String> genders = new HashMap<>();
+    Set<Annotation> annotations = filterEntityAnnotations(
+        nlpResult.getAnnotationsForChapter(chapter));
+
+    for (Annotation annieAnnotation : annotations) {
+      Object gender = annieAnnotation.getFeatures().get(NLPConstants.FEATURE_GENDER);
 
-    if (theEntity != null && !containedTypes.get(theEntity).contains(AttributeType.GENDER)) {
-        Object gender = annieAnnotation.getFeatures().get(NLPConstants.FEATURE_GENDER);
+      if (gender != null) {
+        String annotatedText = getAnnotatedText(chapter.getText(), annieAnnotation);
+        BasicEntity theEntity = getEntityForName(annotatedText);
 
-        if (gender != null) {
-          entityToAttribute.get(theEntity).add(new Attribute(AttributeType.GENDER, gender.toString()));
-          containedTypes.get(theEntity).add(AttributeType.GENDER);
+        if (theEntity != null && !genders.containsKey(theEntity)) {
+          genders.put(theEntity, gender.toString());
         }
       }
+    }
+
+    return genders;
   }
 
   /**
@@ -116,15 +176,8 @@ public class EntityAttributeModule extends Module<EntityAttributes> {
    * @return The correct entity or null if not found.
    */
   private BasicEntity getEntityForName(String entityName) {
-    for (BasicEntity basicEntity : entities.getEntities()) {
-      for (Attribute attribute : basicEntity.getNameAttributes()) {
-        if (attribute.getContent().equals(entityName)) {
-          return basicEntity;
-        }
-      }
-    }
-
-    return null;
+    BasicEntity person = personsByName.get(entityName);
+    return person != null ? person : otherEntitiesByName.get(entityName);
   }
 
   /**
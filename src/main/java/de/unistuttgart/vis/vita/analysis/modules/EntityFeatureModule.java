@@ -1,5 +1,6 @@
 package de.unistuttgart.vis.vita.analysis.modules;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -22,6 +23,7 @@ import de.unistuttgart.vis.vita.model.document.Chapter;
 import de.unistuttgart.vis.vita.model.document.Document;
 import de.unistuttgart.vis.vita.model.document.DocumentMetrics;
 import de.unistuttgart.vis.vita.model.document.DocumentPart;
+import de.unistuttgart.vis.vita.model.document.Occurrence;
 import de.unistuttgart.vis.vita.model.entity.BasicEntity;
 import de.unistuttgart.vis.vita.model.entity.Entity;
 import de.unistuttgart.vis.vita.model.entity.EntityRelation;
@@ -47,6 +49,18 @@ public class EntityFeatureModule extends AbstractFeatureModule<EntityFeatureModu
   private static final double FIRST_LOOP_DURATION_FRACTION = 0.3;
   private static final double SECOND_LOOP_DURATION_FRACTION = 0.2;
 
+  /**
+   * The number of entities persisted before the pending inserts are flushed and the entities are
+   * detached
+   */
+  static final int ENTITY_BATCH_SIZE = 100;
+
+  /**
+   * The number of relations persisted before the pending inserts are flushed and the relations are
+   * detached
+   */
+  static final int RELATION_BATCH_SIZE = 1000;
+
   // the rest is for committing the transaction
 
   @Override
@@ -54,8 +68,10 @@ public class EntityFeatureModule extends AbstractFeatureModule<EntityFeatureModu
       EntityManager em, ProgressListener progressListener) throws Exception {
     List<BasicEntity> basicEntities = result.getResultFor(EntityRanking.class).getRankedEntities();
 
+    saveSentencesIntoChapters(document, result.getResultFor(SentenceDetectionResult.class));
     Map<BasicEntity, Entity> realEntities =
         storeEntities(document, basicEntities, result, em, progressListener);
+    updateDocumentMetrics(document);
     storeRelations(realEntities, basicEntities, result, em, progressListener);
 
     return this;
@@ -68,7 +84,9 @@ public class EntityFeatureModule extends AbstractFeatureModule<EntityFeatureModu
   }
 
   /**
-   * Persists the found Entities.
+   * Persists the found Entities. They are persisted in batches of {@link #ENTITY_BATCH_SIZE}, each
+   * followed by a flush, so that the pending inserts do not pile up until the commit. The flushed
+   * entities are detached to keep the persistence context small.
    * 
    * @param document - The document the results belong to.
    * @param basicEntities - The found BasicEntities in the document.
@@ -83,7 +101,7 @@ public class EntityFeatureModule extends AbstractFeatureModule<EntityFeatureModu
     Map<BasicEntity, Entity> realEntities = new HashMap<>();
     EntityAttributes entityAttributes = result.getResultFor(EntityAttributes.class);
     EntityWordCloudResult wordClouds = result.getResultFor(EntityWordCloudResult.class);
-    SentenceDetectionResult sentences = result.getResultFor(SentenceDetectionResult.class);
+    List<Entity> batch = new ArrayList<>(ENTITY_BATCH_SIZE);
 
     // create Entity
     int currentPersonRanking = 1;
@@ -105,16 +123,18 @@ public class EntityFeatureModule extends AbstractFeatureModule<EntityFeatureModu
       }
 
       setEntityAttributes(entity, basicEntity, entityAttributes, wordClouds);
-      updateDocumentMetrics(document);
-      saveSentencesIntoChapters(document, sentences);
-
-      persistEntity(entity, em);
       realEntities.put(basicEntity, entity);
 
+      batch.add(entity);
+      if (batch.size() == ENTITY_BATCH_SIZE) {
+        persistEntities(batch, em);
+      }
+
       progressListener.observeProgress(FIRST_LOOP_DURATION_FRACTION * currentIndex
           / basicEntities.size());
       currentIndex++;
     }
+    persistEntities(batch, em);
     return realEntities;
   }
 
@@ -132,6 +152,7 @@ public class EntityFeatureModule extends AbstractFeatureModule<EntityFeatureModu
       List<BasicEntity> basicEntities, ModuleResultProvider result, EntityManager em,
       ProgressListener progressListener) {
     EntityRelations relations = result.getResultFor(EntityRelations.class);
+    List<EntityRelation> batch = new ArrayList<>(RELATION_BATCH_SIZE);
     int currentIndex = 0;
     for (BasicEntity basicSourceEntity : basicEntities) {
       Entity source = realEntities.get(basicSourceEntity);
@@ -147,12 +168,16 @@ public class EntityFeatureModule extends AbstractFeatureModule<EntityFeatureModu
             createRelation(source, target, targetEntry.getValue(),
                 relations.getWeightOverTime(basicSourceEntity, targetEntry.getKey()));
 
-        persistRelation(relation, em);
+        batch.add(relation);
+        if (batch.size() == RELATION_BATCH_SIZE) {
+          persistRelations(batch, em);
+        }
       }
 
       progressListener.observeProgress(FIRST_LOOP_DURATION_FRACTION + SECOND_LOOP_DURATION_FRACTION
           * currentIndex / basicEntities.size());
     }
+    persistRelations(batch, em);
   }
 
   /**
@@ -203,24 +228,54 @@ public class EntityFeatureModule extends AbstractFeatureModule<EntityFeatureModu
   }
 
   /**
-   * Persists the given Entity.
+   * Persists the given Entities, flushes and detaches them. The batch is empty afterwards.
+   * <p>
+   * The sentences of the occurrences stay managed because entities of later batches refer to them.
    * 
-   * @param entity - The Entity to persist.
+   * @param batch - The Entities to persist.
    * @param em - The Entity Manager.
    */
-  private void persistEntity(Entity entity, EntityManager em) {
-    em.persist(entity);
-    em.persist(entity.getWordCloud());
+  private void persistEntities(List<Entity> batch, EntityManager em) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    for (Entity entity : batch) {
+      em.persist(entity);
+      em.persist(entity.getWordCloud());
+    }
+    em.flush();
+
+    for (Entity entity : batch) {
+      for (Occurrence occurrence : entity.getOccurrences()) {
+        em.detach(occurrence);
+      }
+      em.detach(entity.getWordCloud());
+      em.detach(entity);
+    }
+    batch.clear();
   }
 
   /**
-   * Perists the given Relation.
+   * Persists the given Relations, flushes and detaches them. The batch is empty afterwards.
    * 
-   * @param relation - The Relation to persist.
+   * @param batch - The Relations to persist.
    * @param em - The Entity Manager.
    */
-  private void persistRelation(EntityRelation relation, EntityManager em) {
-    em.persist(relation);
+  private void persistRelations(List<EntityRelation> batch, EntityManager em) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    for (EntityRelation relation : batch) {
+      em.persist(relation);
+    }
+    em.flush();
+
+    for (EntityRelation relation : batch) {
+      em.detach(relation);
+    }
+    batch.clear();
   }
 
   /**
@@ -2,17 +2,29 @@ package de.unistuttgart.vis.vita.analysis.modules;
 
 import java.util.*;
 
+import com.google.common.collect.Iterables;
+
+import de.unistuttgart.vis.vita.model.document.Occurrence;
 import de.unistuttgart.vis.vita.model.entity.Attribute;
 import de.unistuttgart.vis.vita.model.entity.BasicEntity;
 import de.unistuttgart.vis.vita.model.entity.EntityType;
 
 /**
  * Merges entities with the same names into each other.
+ * <p>
+ * The added entities are only grouped while adding them, using a union-find structure over their
+ * indices. The names and occurrences of each group are concatenated once when the result is
+ * requested. The most recently added entity of a group represents it in the result.
  */
 public class EntityMerger {
+  private static final int INITIAL_CAPACITY = 16;
+
   // The map is used to assure no name of a known entity is used twice.
-  private Map<EntityIdentifier, BasicEntity> entitiesByName = new HashMap<>();
-  private List<BasicEntity> result = new ArrayList<BasicEntity>();
+  private Map<EntityIdentifier, Integer> entitiesByName = new HashMap<>();
+  private List<BasicEntity> entities = new ArrayList<>();
+  private int[] parents = new int[INITIAL_CAPACITY];
+  private List<BasicEntity> result = new ArrayList<>();
+  private boolean isResultUpToDate = true;
 
   /**
    * The Entity Identifier defines whether an Entity equals another Entity or not. To do so, this
@@ -58,7 +70,7 @@ public class EntityMerger {
 
   /**
    * Adds all the Entities and merges them into the already added Entities.
-   * 
+   *
    * @param entities - The new Entities.
    */
   public void addAll(Iterable<BasicEntity> entities) {
@@ -69,57 +81,139 @@ public class EntityMerger {
 
   /**
    * Adds an Entity and merges it into the already added Entities.
-   * 
+   *
    * @param entity - The new Entity.
    */
   public void add(BasicEntity entity) {
-    Set<BasicEntity> existingEntitiesWithSameName = getEntitiesCalledAs(entity);
-
-    // Merge all old entities in the new one, and re-point the names to the new one
-    for (BasicEntity existingEntity : existingEntitiesWithSameName) {
-      entity.merge(existingEntity);
-      result.remove(existingEntity);
+    int index = entities.size();
+    entities.add(entity);
+    if (index == parents.length) {
+      parents = Arrays.copyOf(parents, parents.length * 2);
     }
+    parents[index] = index;
 
-    result.add(entity);
-    addEntityNames(entity);
-  }
-
-  /**
-   * Gets all the known entities that have a name the given entity also has.
-   * 
-   * @param entity the entity whose names to look for
-   * @return the set of entities that match
-   */
-  private Set<BasicEntity> getEntitiesCalledAs(BasicEntity entity) {
-    Set<BasicEntity> entitiesWithSameName = new HashSet<>();
+    // Group the entity with all known entities having one of its names
     for (Attribute attr : entity.getNameAttributes()) {
-      EntityIdentifier identifier = new EntityIdentifier(attr.getContent(), entity.getType());
-      if (entitiesByName.containsKey(identifier)) {
-        entitiesWithSameName.add(entitiesByName.get(identifier));
+      Integer existingIndex =
+          entitiesByName.put(new EntityIdentifier(attr.getContent(), entity.getType()), index);
+      if (existingIndex != null) {
+        union(existingIndex, index);
       }
     }
-    return entitiesWithSameName;
+    isResultUpToDate = false;
   }
 
   /**
    * Gets a view of the merged entity list. Make sure all entities were added, otherwise this is not
    * the final result!
-   * 
+   *
    * @return The merged Entities at this moment.
    */
   public List<BasicEntity> getResult() {
+    if (!isResultUpToDate) {
+      mergeGroups();
+    }
     return Collections.unmodifiableList(result);
   }
 
   /**
-   * Adds references for all the names. Will override already existing references.
-   * 
-   * @param entity the entity whose names to add
+   * Merges the entities of each group into the most recently added one. The groups are ordered by
+   * their most recently added entity.
+   * <p>
+   * Afterwards, the merged entities replace the added ones, so that entities added later are
+   * merged into them without merging the same names and occurrences twice.
    */
-  private void addEntityNames(BasicEntity entity) {
-    for (Attribute attr : entity.getNameAttributes()) {
-      entitiesByName.put(new EntityIdentifier(attr.getContent(), entity.getType()), entity);
+  private void mergeGroups() {
+    int count = entities.size();
+
+    // Link the members of each group from the most recently added to the first one
+    int[] heads = new int[count];
+    int[] next = new int[count];
+    Arrays.fill(heads, -1);
+    for (int i = 0; i < count; i++) {
+      int root = find(i);
+      next[i] = heads[root];
+      heads[root] = i;
+    }
+
+    List<BasicEntity> merged = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      int head = heads[find(i)];
+      if (head == i) {
+        merged.add(mergeGroup(head, next));
+      }
+    }
+
+    result = merged;
+    entities = new ArrayList<>(merged);
+    entitiesByName.clear();
+    for (int i = 0; i < entities.size(); i++) {
+      parents[i] = i;
+      BasicEntity entity = entities.get(i);
+      for (Attribute attr : entity.getNameAttributes()) {
+        entitiesByName.put(new EntityIdentifier(attr.getContent(), entity.getType()), i);
+      }
+    }
+    isResultUpToDate = true;
+  }
+
+  /**
+   * Concatenates the names and occurrences of all members of a group into its first member.
+   *
+   * @param head - the index of the first member, which represents the group
+   * @param next - the index of the following member for each member, -1 for the last one
+   * @return the entity representing the group
+   */
+  private BasicEntity mergeGroup(int head, int[] next) {
+    BasicEntity entity = entities.get(head);
+    if (next[head] == -1) {
+      return entity;
+    }
+
+    List<Iterable<Attribute>> names = new ArrayList<>();
+    int occurrenceCount = 0;
+    for (int i = head; i != -1; i = next[i]) {
+      names.add(entities.get(i).getNameAttributes());
+      occurrenceCount += entities.get(i).getOccurrences().size();
+    }
+
+    List<Occurrence> occurrences = new ArrayList<>(occurrenceCount);
+    for (int i = head; i != -1; i = next[i]) {
+      occurrences.addAll(entities.get(i).getOccurrences());
+    }
+
+    entity.setNameAttributes(Attribute.merge(Iterables.concat(names)));
+    entity.setOccurrences(occurrences);
+    return entity;
+  }
+
+  /**
+   * Finds the index representing the group of the given index, compressing the path on the way.
+   *
+   * @param index the index of an entity
+   * @return the index of the root of its group
+   */
+  private int find(int index) {
+    int root = index;
+    while (parents[root] != root) {
+      root = parents[root];
+    }
+    while (parents[index] != root) {
+      int parent = parents[index];
+      parents[index] = root;
+      index = parent;
+    }
+    return root;
+  }
+
+  /**
+   * Joins the groups of the given indices.
+   */
+  private void union(int first, int second) {
+    int firstRoot = find(first);
+    int secondRoot = find(second);
+    if (firstRoot != secondRoot) {
+      parents[Math.min(firstRoot, secondRoot)] = Math.max(firstRoot, secondRoot);
     }
   }
 }
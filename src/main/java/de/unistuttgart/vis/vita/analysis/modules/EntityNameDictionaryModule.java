@@ -0,0 +1,46 @@
+package de.unistuttgart.vis.vita.analysis.modules;
+
+import de.unistuttgart.vis.vita.analysis.Module;
+import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
+import de.unistuttgart.vis.vita.analysis.ProgressListener;
+import de.unistuttgart.vis.vita.analysis.annotations.AnalysisModule;
+import de.unistuttgart.vis.vita.analysis.results.BasicEntityCollection;
+import de.unistuttgart.vis.vita.analysis.results.EntityNameDictionary;
+import de.unistuttgart.vis.vita.model.entity.Attribute;
+import de.unistuttgart.vis.vita.model.entity.BasicEntity;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds a case-insensitive dictionary of the names of all entities, so that the word cloud
+ * modules can find the entity of a word without iterating over all entities.
+ */
+@AnalysisModule(dependencies = {BasicEntityCollection.class}, weight = 0.1)
+public class EntityNameDictionaryModule extends Module<EntityNameDictionary> {
+
+  @Override
+  public EntityNameDictionary execute(ModuleResultProvider results,
+      ProgressListener progressListener) {
+    final Map<String, String> entityIdsByName = new HashMap<>();
+
+    // if several entities have the same name, the last one wins
+    for (BasicEntity entity : results.getResultFor(BasicEntityCollection.class).getEntities()) {
+      for (Attribute attribute : entity.getNameAttributes()) {
+        entityIdsByName.put(normalize(attribute.getContent()), entity.getEntityId());
+      }
+    }
+
+    return new EntityNameDictionary() {
+      @Override
+      public String getEntityIdForName(String name) {
+        return entityIdsByName.get(normalize(name));
+      }
+    };
+  }
+
+  private static String normalize(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+}
@@ -7,6 +7,7 @@ package de.unistuttgart.vis.vita.analysis.modules;
 import de.unistuttgart.vis.vita.analysis.Module;
 import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
 import de.unistuttgart.vis.vita.analysis.ProgressListener;
+import de.unistuttgart.vis.vita.analysis.Threads;
 import de.unistuttgart.vis.vita.analysis.annotations.AnalysisModule;
 import de.unistuttgart.vis.vita.analysis.modules.gate.NLPConstants;
 import de.unistuttgart.vis.vita.analysis.results.BasicEntityCollection;
@@ -32,6 +33,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import gate.Annotation;
 import gate.creole.ANNIEConstants;
@@ -46,7 +49,6 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
   private static final int MINIMUM_ENTITY_OCCURRENCES = 2;
   private static final List<String> TYPES_PERSON = Arrays.asList(
       ANNIEConstants.PERSON_ANNOTATION_TYPE, NLPConstants.TYPE_PERSON_STANFORD);
-  private Map<Integer, BasicEntity> idMap = new HashMap<>();
   private Set<BasicEntity> entities = new HashSet<>();
   private ImportResult importResult;
   private SentenceDetectionResult sentenceDetectionResult;
@@ -76,10 +78,10 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
     analysisParameters = result.getResultFor(AnalysisParameters.class);
     this.progressListener = progressListener;
 
-    startAnalysis();
+    List<List<BasicEntity>> chapterEntities = startAnalysis();
 
     progressListener.observeProgress(1);
-    mergeSameEntities();
+    mergeSameEntities(chapterEntities);
     filterEntities();
     sortNames();
     return buildResult();
@@ -87,10 +89,14 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
 
   /**
    * Merges all entities that have the same name
+   *
+   * @param chapterEntities The entities found in each chapter, in the order of the chapters.
    */
-  private void mergeSameEntities() {
+  private void mergeSameEntities(List<List<BasicEntity>> chapterEntities) {
     EntityMerger merger = new EntityMerger();
-    merger.addAll(entities);
+    for (List<BasicEntity> entitiesOfChapter : chapterEntities) {
+      merger.addAll(entitiesOfChapter);
+    }
     entities = new HashSet<>(merger.getResult());
   }
 
@@ -126,47 +132,65 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
   }
 
   /**
-   * Starts the analysis by going through all annotations and create or update the necessary
-   * entities. Manages the progress of the analysis.
+   * Starts the analysis by going through all annotations and create the necessary entities. The
+   * chapters do not share annotation ids and are analyzed in parallel; their entities are merged
+   * afterwards. Manages the progress of the analysis.
+   *
+   * @return The entities found in each chapter, in the order of the chapters.
    */
-  private void startAnalysis() {
-    double currentProgress;
-    List<DocumentPart> documentParts = importResult.getParts();
-    int currentPart = 0;
-    int currentChapter = 0;
-    int currentAnnotation = 0;
-    double partFactor = 1.0 / documentParts.size();
-
-    for (DocumentPart part : documentParts) {
-      List<Chapter> chapters = part.getChapters();
-      double chapterFactor = 1. / chapters.size();
-      double partProgress = ((double) currentPart) / documentParts.size();
-
-      for (Chapter chapter : chapters) {
-        Set<Annotation> annotations = nlpResult.getAnnotationsForChapter(chapter);
-        double chapterProgress = partFactor * ((double) currentChapter) / chapters.size();
-
-        for (Annotation annieAnnotation : annotations) {
-          double annotProgress = chapterFactor * ((double) currentAnnotation) / annotations.size();
-         
-          createBasicEntity(annieAnnotation, chapter);
-          
-          // compute and set progress
-          currentProgress = partProgress + chapterProgress + annotProgress;
-          progressListener.observeProgress(currentProgress);
-
-          currentAnnotation++;
-        }
+  private List<List<BasicEntity>> startAnalysis() {
+    List<ForkJoinTask<List<BasicEntity>>> tasks = new ArrayList<>();
+    for (DocumentPart part : importResult.getParts()) {
+      for (Chapter chapter : part.getChapters()) {
+        tasks.add(Threads.getForkJoinPool().submit(new ChapterAnalysisTask(chapter)));
+      }
+    }
+
+    List<List<BasicEntity>> chapterEntities = new ArrayList<>();
+    try {
+      for (ForkJoinTask<List<BasicEntity>> task : tasks) {
+        chapterEntities.add(task.join());
+        progressListener.observeProgress(((double) chapterEntities.size()) / tasks.size());
+      }
+    } finally {
+      for (ForkJoinTask<List<BasicEntity>> task : tasks) {
+        task.cancel(true);
+      }
+    }
+    return chapterEntities;
+  }
+
+  /**
+   * Creates the entities of a single chapter.
+   */
+  private class ChapterAnalysisTask extends RecursiveTask<List<BasicEntity>> {
+    private static final long serialVersionUID = 1L;
 
-        currentAnnotation = 0;
-        currentChapter++;
+    private final Chapter chapter;
+
+    public ChapterAnalysisTask(Chapter chapter) {
+      this.chapter = chapter;
+    }
 
-        // Do not confuse annotation ids of different chapters
-        idMap.clear();
+    @Override
+    protected List<BasicEntity> compute() {
+      // Annotation ids are only valid within the chapter
+      Map<Integer, BasicEntity> idMap = new HashMap<>();
+      List<BasicEntity> chapterEntities = new ArrayList<>();
+
+      List<Annotation> annotations = new ArrayList<>();
+      for (Annotation annieAnnotation : nlpResult.getAnnotationsForChapter(chapter)) {
+        if (!isUnlikelyName(annieAnnotation, chapter)) {
+          annotations.add(annieAnnotation);
+        }
       }
 
-      currentChapter = 0;
-      currentPart++;
+      List<Occurrence> occurrences = getOccurrences(annotations, chapter);
+      for (int i = 0; i < annotations.size(); i++) {
+        createBasicEntity(annotations.get(i), occurrences.get(i), chapter, idMap,
+            chapterEntities);
+      }
+      return chapterEntities;
     }
   }
 
@@ -184,22 +208,33 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
     };
   }
 
+  /**
+   * Checks whether the filter for unlikely names is activated and fits to the annotation.
+   *
+   * @param theAnnotation The annotation to work with.
+   * @param chapter The chapter in which the annotation can be found.
+   * @return true if the annotation should be ignored.
+   */
+  private boolean isUnlikelyName(Annotation theAnnotation, Chapter chapter) {
+    return analysisParameters.getStopEntityFilter()
+        && characterNotMatchesUnlikelyNameStart(chapter.getText().charAt(
+            theAnnotation.getStartNode().getOffset().intValue()));
+  }
+
   /**
    * Creates a new entity out of the annotation in the given chapter. If the entity already exists
-   * it will be updated with the matching position. Will do nothing, when a filter for unlikely
-   * names is activated and fits to this entity.
+   * it will be updated with the matching position.
    * 
    * @param theAnnotation The annotation to work with.
+   * @param occurrence The Occurrence of the annotation.
    * @param chapter The chapter in which the annotation can be found.
+   * @param idMap The entities of the chapter by the ids of their annotations.
+   * @param chapterEntities The entities of the chapter, new entities are added.
    */
-  private void createBasicEntity(Annotation theAnnotation, Chapter chapter) {
-    String firstChar = "" + getAnnotatedText(chapter.getText(), theAnnotation).charAt(0);
-    if (analysisParameters.getStopEntityFilter() && characterNotMatchesUnlikelyNameStart(firstChar)) {
-      return;
-    }
-
-    BasicEntity entity = getExistingEntityForAnnotation(theAnnotation);
+  private void createBasicEntity(Annotation theAnnotation, Occurrence occurrence,
+      Chapter chapter, Map<Integer, BasicEntity> idMap, List<BasicEntity> chapterEntities) {
     String annotatedText = getAnnotatedText(chapter.getText(), theAnnotation);
+    BasicEntity entity = getExistingEntityForAnnotation(theAnnotation, idMap);
 
     EntityType type = getEntityType(theAnnotation);
 
@@ -209,9 +244,8 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
       entity.setType(type);
 
       idMap.put(theAnnotation.getId(), entity);
-      entities.add(entity);
+      chapterEntities.add(entity);
     }
-    Occurrence occurrence = getOccurences(theAnnotation, chapter);
 
     updateNameAttributes(entity, annotatedText, occurrence);
 
@@ -225,8 +259,9 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
    * @return true: The character seems to be a name-start-character. false: The character is most
    *         likely not a name-start-character.
    */
-  private boolean characterNotMatchesUnlikelyNameStart(String character) {
-    return character.matches("^[a-z0-9\\W]");
+  private boolean characterNotMatchesUnlikelyNameStart(char character) {
+    // Same as the pattern [a-z0-9\W]: anything but an upper case ASCII letter or an underscore
+    return !(character >= 'A' && character <= 'Z' || character == '_');
   }
   
   /**
@@ -271,10 +306,12 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
    *
    * @param theAnnotation
    * @param theAnnotation The annotation to work with.
+   * @param idMap The entities of the chapter by the ids of their annotations.
    * @return The existing entity if found else null.
    */
   @SuppressWarnings("unchecked")
-  private BasicEntity getExistingEntityForAnnotation(Annotation theAnnotation) {
+  private BasicEntity getExistingEntityForAnnotation(Annotation theAnnotation,
+      Map<Integer, BasicEntity> idMap) {
     List<Integer> matches = (List<Integer>) theAnnotation.getFeatures().get("matches");
 
     // If no matches are found
@@ -292,16 +329,21 @@ public class EntityRecognitionModule extends Module<BasicEntityCollection> {
   }
 
   /**
-   * Creates an Occurrence for the given annotation. The Occurrence has the offset in the given
-   * chapter.
+   * Creates the Occurrences for the given annotations. The Occurrences have the offsets in the
+   * given chapter.
    * 
-   * @param theAnnotation The annotation to work with.
-   * @param chapter The chapter in which the annotation can be found.
-   * @return The Occurrence of the annotation.
+   * @param annotations The annotations to work with.
+   * @param chapter The chapter in which the annotations can be found.
+   * @return The Occurrences of the annotations, in the same order.
    */
-  private Occurrence getOccurences(Annotation theAnnotation, Chapter chapter) {
-    return sentenceDetectionResult.createOccurrence(chapter, theAnnotation.getStartNode()
-        .getOffset().intValue(), theAnnotation.getEndNode().getOffset().intValue());
+  private List<Occurrence> getOccurrences(List<Annotation> annotations, Chapter chapter) {
+    int[] startOffsets = new int[annotations.size()];
+    int[] endOffsets = new int[annotations.size()];
+    for (int i = 0; i < annotations.size(); i++) {
+      startOffsets[i] = annotations.get(i).getStartNode().getOffset().intValue();
+      endOffsets[i] = annotations.get(i).getEndNode().getOffset().intValue();
+    }
+    return sentenceDetectionResult.createOccurrences(chapter, startOffsets, endOffsets);
   }
 
   /**
@@ -1,11 +1,12 @@
 package de.unistuttgart.vis.vita.analysis.modules;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import de.unistuttgart.vis.vita.analysis.Module;
 import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
@@ -15,235 +16,432 @@ import de.unistuttgart.vis.vita.analysis.results.BasicEntityCollection;
 import de.unistuttgart.vis.vita.analysis.results.EntityRelations;
 import de.unistuttgart.vis.vita.analysis.results.ImportResult;
 import de.unistuttgart.vis.vita.model.document.AnalysisParameters;
+import de.unistuttgart.vis.vita.model.document.EnumRelationWindow;
 import de.unistuttgart.vis.vita.model.document.Occurrence;
 import de.unistuttgart.vis.vita.model.document.Sentence;
 import de.unistuttgart.vis.vita.model.entity.BasicEntity;
 
+/**
+ * Finds relations between entities which occur close to each other. By default, the weight of a
+ * relation is the number of sentences with both entities. The window in which entities are related
+ * can be enlarged to several sentences or to a number of characters. The weights are normalized
+ * over the whole document and over each time step.
+ * <p>
+ * The entities get dense int ids, and the weights are counted per unordered pair of entities in a
+ * single sweep over the occurrences in document order. Relations are symmetric, so each pair is
+ * stored only once.
+ */
 @AnalysisModule(dependencies = {BasicEntityCollection.class, ImportResult.class,
     AnalysisParameters.class}, weight = 0.1)
 public class EntityRelationModule extends Module<EntityRelations> {
 
   private int timeSteps;
-
-  private WeightsMap globalMap = new WeightsMap();
-  private WeightsMap[] stepMaps;
   private int totalLength;
+  private EnumRelationWindow windowUnit;
+  private int windowSize;
+
+  private List<BasicEntity> entities;
+  private Map<BasicEntity, Integer> entityIds;
+
+  private PairTable pairs = new PairTable();
+  private int[] pairWeights = new int[16];
+  private int maxWeight;
+
+  /**
+   * The weights of each pair in the time steps as sequence of (step, weight) with ascending steps.
+   * Time steps without relation are left out.
+   */
+  private int[][] pairStepWeights = new int[16][];
+  private int[] pairStepWeightsLength = new int[16];
+  private int[] maxStepWeights;
+
+  /**
+   * The related entities of entity i are relatedEntities[relatedStart[i] .. relatedStart[i+1]-1],
+   * the pairs of these relations at the same positions of relatedPairs.
+   */
+  private int[] relatedStart;
+  private int[] relatedEntities;
+  private int[] relatedPairs;
 
   @Override
   public EntityRelations execute(ModuleResultProvider results, ProgressListener progressListener)
       throws Exception {
-    Collection<BasicEntity> basicEntities =
-        results.getResultFor(BasicEntityCollection.class).getEntities();
+    entities = new ArrayList<>(results.getResultFor(BasicEntityCollection.class).getEntities());
     totalLength = results.getResultFor(ImportResult.class).getTotalLength();
 
-    timeSteps = results.getResultFor(AnalysisParameters.class).getRelationTimeStepCount();
-    stepMaps = new WeightsMap[timeSteps];
-    initialiseWeightsMapElements();
-
-    Map<Sentence, Set<BasicEntity>> entitiesInSentenceMap =
-        removeUnnecessaryEntries(getSentenceEntitiesMap(basicEntities));
-
-    createRelationsBetweenEntities(entitiesInSentenceMap);
-
+    AnalysisParameters parameters = results.getResultFor(AnalysisParameters.class);
+    timeSteps = parameters.getRelationTimeStepCount();
+    windowUnit = parameters.getRelationWindow();
+    windowSize = parameters.getRelationWindowSize();
+    if (windowSize < 1) {
+      // an empty window would remove the units from the sweep before adding them
+      throw new IllegalArgumentException("relation window size must be at least 1");
+    }
+    maxStepWeights = new int[timeSteps];
 
-    globalMap.normalizeWeights();
-    for (WeightsMap map : stepMaps) {
-      // Normalize each step individually for better normalization over time periods
-      // This means that relations in ranges with few relations are ranked higher, but that
-      // may actually be accurate, because it would be a more important relation.
-      map.normalizeWeights();
+    entityIds = new HashMap<>();
+    for (int i = 0; i < entities.size(); i++) {
+      entityIds.put(entities.get(i), i);
     }
 
+    createRelationsBetweenEntities();
+    createRelatedEntitiesIndex();
+
     return new EntityRelations() {
       @Override
       public Map<BasicEntity, Double> getRelatedEntities(BasicEntity entity) {
-        return globalMap.getMap().get(entity);
+        Integer entityId = entityIds.get(entity);
+        if (entityId == null || relatedStart[entityId] == relatedStart[entityId + 1]) {
+          return null;
+        }
+
+        Map<BasicEntity, Double> relations = new HashMap<>();
+        for (int i = relatedStart[entityId]; i < relatedStart[entityId + 1]; i++) {
+          relations.put(entities.get(relatedEntities[i]),
+              (double) pairWeights[relatedPairs[i]] / maxWeight);
+        }
+        return relations;
       }
 
       @Override
       public double[] getWeightOverTime(BasicEntity entity1, BasicEntity entity2) {
+        // Each step is normalized individually for better normalization over time periods
+        // This means that relations in ranges with few relations are ranked higher, but that
+        // may actually be accurate, because it would be a more important relation.
         double[] weights = new double[timeSteps];
-        for (int i = 0; i < timeSteps; i++) {
-          weights[i] = stepMaps[i].getNormalizedWeight(entity1, entity2);
+        int pair = getPair(entity1, entity2);
+        if (pair < 0) {
+          return weights;
+        }
+
+        int[] stepWeights = pairStepWeights[pair];
+        for (int i = 0; i < pairStepWeightsLength[pair]; i += 2) {
+          int step = stepWeights[i];
+          weights[step] = (double) stepWeights[i + 1] / maxStepWeights[step];
         }
         return weights;
       }
     };
   }
 
-  private void initialiseWeightsMapElements() {
-    for (int i = 0; i < stepMaps.length; i++) {
-      stepMaps[i] = new WeightsMap();
-    }
-  }
-
   /**
-   * Creates the relationship between entities of every sentence in the globalMap and stepsMap.
-   * 
-   * @param entitiesInSentenceMap
+   * Divides the occurrences into units, which are the sentences or, if the window is measured in
+   * characters, the occurrences themselves. Then counts the relations in a single sweep over the
+   * units in document order.
    */
-  private void createRelationsBetweenEntities(Map<Sentence, Set<BasicEntity>> entitiesInSentenceMap) {
-
-    for (Map.Entry<Sentence, Set<BasicEntity>> entry : entitiesInSentenceMap.entrySet()) {
-      int currentStepMapIndex =
-          (entry.getKey().getRange().getStart().getOffset() * timeSteps) / totalLength;
-      for (BasicEntity sourceEntity : entry.getValue()) {
-        for (BasicEntity targetEntity : entry.getValue()) {
-          if (sourceEntity != targetEntity) {
-            globalMap.increaseWeightsAsymmetrically(sourceEntity, targetEntity, timeSteps);
-            stepMaps[currentStepMapIndex].increaseWeightsAsymmetrically(sourceEntity, targetEntity,
-                timeSteps);
-          }
+  private void createRelationsBetweenEntities() {
+    // one entry (unit key, entity id) per occurrence, sorted by unit and entity
+    int occurrenceCount = 0;
+    for (BasicEntity entity : entities) {
+      occurrenceCount += entity.getOccurrences().size();
+    }
+    long[] entries = new long[occurrenceCount];
+    int entryCount = 0;
+
+    List<Sentence> sentences = null;
+    if (windowUnit == EnumRelationWindow.SENTENCES) {
+      sentences = getSortedSentences();
+      Map<Sentence, Integer> sentenceIndices = new HashMap<>();
+      for (int i = 0; i < sentences.size(); i++) {
+        sentenceIndices.put(sentences.get(i), i);
+      }
+
+      for (int entityId = 0; entityId < entities.size(); entityId++) {
+        for (Occurrence occurrence : entities.get(entityId).getOccurrences()) {
+          entries[entryCount++] =
+              ((long) sentenceIndices.get(occurrence.getSentence()) << 32) | entityId;
+        }
+      }
+    } else {
+      for (int entityId = 0; entityId < entities.size(); entityId++) {
+        for (Occurrence occurrence : entities.get(entityId).getOccurrences()) {
+          entries[entryCount++] =
+              ((long) occurrence.getRange().getStart().getOffset() << 32) | entityId;
+        }
+      }
+    }
+    Arrays.sort(entries);
+
+    // group the entries into units with distinct entities
+    int[] unitPositions = new int[entries.length];
+    int[] unitSteps = new int[entries.length];
+    int[] unitStart = new int[entries.length + 1];
+    int[] unitEntities = new int[entries.length];
+    int unitCount = 0;
+    int unitEntityCount = 0;
+    for (int i = 0; i < entries.length; i++) {
+      int unitKey = (int) (entries[i] >>> 32);
+      int entityId = (int) entries[i];
+
+      if (i == 0 || (int) (entries[i - 1] >>> 32) != unitKey) {
+        if (sentences != null) {
+          Sentence sentence = sentences.get(unitKey);
+          unitPositions[unitCount] = sentence.getIndex();
+          unitSteps[unitCount] = getTimeStep(sentence.getRange().getStart().getOffset());
+        } else {
+          unitPositions[unitCount] = unitKey;
+          unitSteps[unitCount] = getTimeStep(unitKey);
         }
+        unitStart[unitCount++] = unitEntityCount;
+        unitEntities[unitEntityCount++] = entityId;
+      } else if (unitEntities[unitEntityCount - 1] != entityId) {
+        // an entity may occur several times in a sentence
+        unitEntities[unitEntityCount++] = entityId;
       }
     }
+    unitStart[unitCount] = unitEntityCount;
+
+    // positions of units in the window differ by less than the span
+    int span = windowUnit == EnumRelationWindow.SENTENCES ? windowSize : windowSize + 1;
+    sweepUnits(unitCount, unitPositions, unitSteps, unitStart, unitEntities, span);
   }
 
   /**
-   * Removes those entries of a map which have not more than one entity
-   * 
-   * @param entitesInSentencesMap
-   * @return
+   * Moves a window over the units. For each unit, each of its entities is related once to each
+   * other entity which occurs within the window ending at this unit. With a window of one
+   * sentence, this counts the sentences each pair of entities occurs in.
    */
-  private Map<Sentence, Set<BasicEntity>> removeUnnecessaryEntries(
-      Map<Sentence, Set<BasicEntity>> entitesInSentencesMap) {
-    Iterator<Map.Entry<Sentence, Set<BasicEntity>>> iterator =
-        entitesInSentencesMap.entrySet().iterator();
-    while (iterator.hasNext()) {
-      Map.Entry<Sentence, Set<BasicEntity>> entry = iterator.next();
-      if (!(entry.getValue().size() > 1)) {
-        iterator.remove();
+  private void sweepUnits(int unitCount, int[] unitPositions, int[] unitSteps, int[] unitStart,
+      int[] unitEntities, int span) {
+    // the distinct entities within the window, and for each entity the number of its units there
+    int[] windowCounts = new int[entities.size()];
+    int[] windowEntities = new int[entities.size()];
+    int[] windowEntityIndices = new int[entities.size()];
+    int windowEntityCount = 0;
+
+    // marks the entities of the current unit with the unit number + 1
+    int[] unitMarks = new int[entities.size()];
+
+    int left = 0;
+    for (int unit = 0; unit < unitCount; unit++) {
+      // move the start of the window
+      while ((long) unitPositions[unit] - unitPositions[left] >= span) {
+        for (int i = unitStart[left]; i < unitStart[left + 1]; i++) {
+          int entity = unitEntities[i];
+          if (--windowCounts[entity] == 0) {
+            int last = windowEntities[--windowEntityCount];
+            windowEntities[windowEntityIndices[entity]] = last;
+            windowEntityIndices[last] = windowEntityIndices[entity];
+          }
+        }
+        left++;
+      }
+
+      // add this unit to the window
+      for (int i = unitStart[unit]; i < unitStart[unit + 1]; i++) {
+        int entity = unitEntities[i];
+        unitMarks[entity] = unit + 1;
+        if (windowCounts[entity]++ == 0) {
+          windowEntityIndices[entity] = windowEntityCount;
+          windowEntities[windowEntityCount++] = entity;
+        }
+      }
+
+      for (int i = unitStart[unit]; i < unitStart[unit + 1]; i++) {
+        int entity = unitEntities[i];
+        for (int j = 0; j < windowEntityCount; j++) {
+          int other = windowEntities[j];
+
+          // pairs within this unit are counted only once
+          if (other == entity || (unitMarks[other] == unit + 1 && other < entity)) {
+            continue;
+          }
+          increaseWeight(Math.min(entity, other), Math.max(entity, other), unitSteps[unit]);
+        }
       }
     }
-    return entitesInSentencesMap;
   }
 
   /**
-   * Creates a Map which shows the relationship between a Sentence and its Entities
-   * 
-   * @param basicEntities - The Entities.
-   * @return A Map with Sentences as key and all Entities which occur in this sentence as value.
+   * Gets the sentences with at least one occurrence, ordered by their position in the document.
+   *
+   * @return the sentences.
    */
-  private Map<Sentence, Set<BasicEntity>> getSentenceEntitiesMap(
-      Collection<BasicEntity> basicEntities) {
-    Map<Sentence, Set<BasicEntity>> entitesInSentencesMap =
-        new HashMap<Sentence, Set<BasicEntity>>();
-
-    for (BasicEntity entity : basicEntities) {
+  private List<Sentence> getSortedSentences() {
+    Map<Sentence, Boolean> distinctSentences = new HashMap<>();
+    List<Sentence> sentences = new ArrayList<>();
+    for (BasicEntity entity : entities) {
       for (Occurrence occurrence : entity.getOccurrences()) {
-        Sentence currentSentence = occurrence.getSentence();
-        if (!entitesInSentencesMap.containsKey(currentSentence)) {
-          Set<BasicEntity> entities = new HashSet<>();
-          entities.add(entity);
-          entitesInSentencesMap.put(currentSentence, entities);
-        } else {
-          entitesInSentencesMap.get(currentSentence).add(entity);
+        if (distinctSentences.put(occurrence.getSentence(), Boolean.TRUE) == null) {
+          sentences.add(occurrence.getSentence());
         }
       }
     }
-    return entitesInSentencesMap;
+
+    Collections.sort(sentences, new Comparator<Sentence>() {
+      @Override
+      public int compare(Sentence sentence1, Sentence sentence2) {
+        return Integer.compare(sentence1.getRange().getStart().getOffset(),
+            sentence2.getRange().getStart().getOffset());
+      }
+    });
+    return sentences;
+  }
+
+  private int getTimeStep(int offset) {
+    return (int) Math.min(timeSteps - 1, (long) offset * timeSteps / totalLength);
   }
 
   /**
-   * An auxiliary class for storing the weights of relations. New relations will be added by
-   * {@link WeightsMap#increaseWeightsAsymmetrically(BasicEntity, BasicEntity, int)} and
-   * normalization will not done on its own, you have to call {@link WeightsMap#normalizeWeights()}
-   * before you take the result.
+   * Increases the weight of the relation between two entities.
+   *
+   * @param entity1 - The id of the first entity.
+   * @param entity2 - The id of the second entity, greater than the first one.
+   * @param step - The time step. Steps must be passed in ascending order.
    */
-  private static class WeightsMap {
-    // outer map key is the source, inner map key is the target.
-    private Map<BasicEntity, Map<BasicEntity, Integer>> weights = new HashMap<>();
-    private Map<BasicEntity, Map<BasicEntity, Double>> normalizedWeights = new HashMap<>();
-    private double maxWeight;
-
-    /**
-     * Increases the weighting factor of the source towards the target. Will create a new entry if
-     * there is none for source and target.
-     * 
-     * @param source - The source Entity.
-     * @param target - The target Entity.
-     * @param increment - Defines how strong the relation value should be increased. Will be
-     *        normalized later!
-     */
-    public void increaseWeightsAsymmetrically(BasicEntity source, BasicEntity target, int increment) {
-      Map<BasicEntity, Integer> relationMap;
+  private void increaseWeight(int entity1, int entity2, int step) {
+    int pair = pairs.getOrAdd(getPairKey(entity1, entity2));
+    if (pair == pairWeights.length) {
+      int newLength = pairWeights.length * 2;
+      pairWeights = Arrays.copyOf(pairWeights, newLength);
+      pairStepWeights = Arrays.copyOf(pairStepWeights, newLength);
+      pairStepWeightsLength = Arrays.copyOf(pairStepWeightsLength, newLength);
+    }
 
-      // look for source, eventually create new entry
-      if (!weights.containsKey(source)) {
-        relationMap = new HashMap<>();
-        weights.put(source, relationMap);
-      } else {
-        relationMap = weights.get(source);
-      }
+    maxWeight = Math.max(maxWeight, ++pairWeights[pair]);
 
-      int currentValue;
+    int[] stepWeights = pairStepWeights[pair];
+    int length = pairStepWeightsLength[pair];
+    if (length > 0 && stepWeights[length - 2] == step) {
+      maxStepWeights[step] = Math.max(maxStepWeights[step], ++stepWeights[length - 1]);
+      return;
+    }
 
-      // look for target, get value for relation
-      if (relationMap.containsKey(target)) {
-        currentValue = relationMap.get(target);
-      } else {
-        currentValue = 0;
-      }
+    if (stepWeights == null) {
+      stepWeights = new int[2];
+    } else if (length == stepWeights.length) {
+      stepWeights = Arrays.copyOf(stepWeights, length * 2);
+    }
+    stepWeights[length] = step;
+    stepWeights[length + 1] = 1;
+    pairStepWeights[pair] = stepWeights;
+    pairStepWeightsLength[pair] = length + 2;
+    maxStepWeights[step] = Math.max(maxStepWeights[step], 1);
+  }
 
-      int newValue = currentValue + increment;
+  /**
+   * Builds the index of the related entities of each entity from the pairs.
+   */
+  private void createRelatedEntitiesIndex() {
+    relatedStart = new int[entities.size() + 1];
+    long[] keys = pairs.getKeys();
+    for (long key : keys) {
+      relatedStart[(int) (key >>> 32) + 1]++;
+      relatedStart[(int) key + 1]++;
+    }
+    for (int i = 0; i < entities.size(); i++) {
+      relatedStart[i + 1] += relatedStart[i];
+    }
 
-      // did maxHeight change?
-      if (newValue > maxWeight) {
-        maxWeight = newValue;
-      }
+    relatedEntities = new int[keys.length * 2];
+    relatedPairs = new int[keys.length * 2];
+    int[] position = Arrays.copyOf(relatedStart, entities.size());
+    for (int pair = 0; pair < keys.length; pair++) {
+      int entity1 = (int) (keys[pair] >>> 32);
+      int entity2 = (int) keys[pair];
+      relatedEntities[position[entity1]] = entity2;
+      relatedPairs[position[entity1]++] = pair;
+      relatedEntities[position[entity2]] = entity1;
+      relatedPairs[position[entity2]++] = pair;
+    }
+  }
 
-      relationMap.put(target, newValue);
+  private int getPair(BasicEntity entity1, BasicEntity entity2) {
+    Integer id1 = entityIds.get(entity1);
+    Integer id2 = entityIds.get(entity2);
+    if (id1 == null || id2 == null || id1.equals(id2)) {
+      return -1;
     }
+    return pairs.get(getPairKey(Math.min(id1, id2), Math.max(id1, id2)));
+  }
+
+  private static long getPairKey(int entity1, int entity2) {
+    return ((long) entity1 << 32) | entity2;
+  }
+
+  /**
+   * Assigns consecutive indices to pairs of entities, each identified by a non-negative long key.
+   * Uses open addressing, so no objects are created per pair.
+   */
+  private static class PairTable {
+    private static final long EMPTY = -1;
+
+    private long[] slotKeys = newSlots(64);
+    private int[] slotPairs = new int[64];
+    private long[] keys = new long[16];
+    private int size;
 
     /**
-     * Normalizes the weights so all weights are between 0 and 1.
+     * Gets the index of the pair, adding it if it is not contained yet.
+     *
+     * @param key - The key of the pair.
+     * @return the index of the pair, which is the number of pairs before if it has been added.
      */
-    public void normalizeWeights() {
-      if (maxWeight == 0) {
-        // no relations, skip just to be sure no division by zero is done
-        return;
+    public int getOrAdd(long key) {
+      int slot = findSlot(slotKeys, key);
+      if (slotKeys[slot] == key) {
+        return slotPairs[slot];
       }
 
-      for (Map.Entry<BasicEntity, Map<BasicEntity, Integer>> entry : weights.entrySet()) {
-        Map<BasicEntity, Double> newMap = new HashMap<>();
-        normalizedWeights.put(entry.getKey(), newMap);
-
-        for (Map.Entry<BasicEntity, Integer> innerEntry : entry.getValue().entrySet()) {
-          newMap.put(innerEntry.getKey(), (double) innerEntry.getValue() / maxWeight);
-        }
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+      }
+      keys[size] = key;
+      slotKeys[slot] = key;
+      slotPairs[slot] = size;
+      size++;
+
+      // keep the load factor below one half
+      if (size * 2 > slotKeys.length) {
+        rehash();
       }
+      return size - 1;
     }
 
     /**
-     * Get the normalized weights map. The outer map contains the source as key, the inner map
-     * contains the target as key and a normalized number (between 0 and 1) to show how strong the
-     * relation is.
-     * 
-     * @return the map.
+     * Gets the index of the pair.
+     *
+     * @param key - The key of the pair.
+     * @return the index, or -1 if the pair has not been added.
      */
-    public Map<BasicEntity, Map<BasicEntity, Double>> getMap() {
-      return normalizedWeights;
+    public int get(long key) {
+      int slot = findSlot(slotKeys, key);
+      return slotKeys[slot] == key ? slotPairs[slot] : -1;
     }
 
     /**
-     * Get the normalized weight for the relation between two entities.
-     * 
-     * @param entity1 - The source entity.
-     * @param entity2 - The target entity.
-     * @return The weight between source and target, a number between 0 and 1. If there is no
-     *         relation it will be 0.
+     * @return the keys of all pairs, by index.
      */
-    public double getNormalizedWeight(BasicEntity entity1, BasicEntity entity2) {
-      Map<BasicEntity, Map<BasicEntity, Double>> map = getMap();
-      if (!map.containsKey(entity1)) {
-        return 0;
+    public long[] getKeys() {
+      return Arrays.copyOf(keys, size);
+    }
+
+    private void rehash() {
+      long[] newSlotKeys = newSlots(slotKeys.length * 2);
+      int[] newSlotPairs = new int[newSlotKeys.length];
+      for (int pair = 0; pair < size; pair++) {
+        int slot = findSlot(newSlotKeys, keys[pair]);
+        newSlotKeys[slot] = keys[pair];
+        newSlotPairs[slot] = pair;
       }
-      Map<BasicEntity, Double> innerMap = map.get(entity1);
-      if (!innerMap.containsKey(entity2)) {
-        return 0;
+      slotKeys = newSlotKeys;
+      slotPairs = newSlotPairs;
+    }
+
+    private static int findSlot(long[] slotKeys, long key) {
+      int mask = slotKeys.length - 1;
+      long hash = key * 0x9E3779B97F4A7C15L;
+      int slot = (int) (hash ^ (hash >>> 32)) & mask;
+      while (slotKeys[slot] != EMPTY && slotKeys[slot] != key) {
+        slot = (slot + 1) & mask;
       }
+      return slot;
+    }
 
-      return innerMap.get(entity2);
+    private static long[] newSlots(int length) {
+      long[] slots = new long[length];
+      Arrays.fill(slots, EMPTY);
+      return slots;
     }
   }
 }
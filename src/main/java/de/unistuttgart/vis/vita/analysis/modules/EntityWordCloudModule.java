@@ -3,21 +3,27 @@ package de.unistuttgart.vis.vita.analysis.modules;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 
 import de.unistuttgart.vis.vita.analysis.Module;
 import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
 import de.unistuttgart.vis.vita.analysis.ProgressListener;
+import de.unistuttgart.vis.vita.analysis.Threads;
 import de.unistuttgart.vis.vita.analysis.annotations.AnalysisModule;
 import de.unistuttgart.vis.vita.analysis.results.BasicEntityCollection;
+import de.unistuttgart.vis.vita.analysis.results.EntityNameDictionary;
 import de.unistuttgart.vis.vita.analysis.results.EntityWordCloudResult;
 import de.unistuttgart.vis.vita.model.document.Chapter;
 import de.unistuttgart.vis.vita.model.document.Occurrence;
@@ -32,30 +38,72 @@ import de.unistuttgart.vis.vita.model.wordcloud.WordCloudItem;
  * Calculates a word cloud for each entity. This is done by looking at the text around the entity's
  * occurrences. Analysis Parameters can determine to which value the number of different words in the word
  * cloud is limited and if the stop word list should be used.
+ * <p>
+ * Each sentence is tokenized only once, even if several entities occur in it. The tokens are
+ * stored as term ids, so that the words of each entity can be counted in an int array.
  */
-@AnalysisModule(dependencies = {BasicEntityCollection.class, AnalysisParameters.class})
+@AnalysisModule(dependencies = {BasicEntityCollection.class, EntityNameDictionary.class,
+    AnalysisParameters.class})
 public class EntityWordCloudModule extends Module<EntityWordCloudResult> {
+  /**
+   * The number of sentences or entities below which a task is not split any more
+   */
+  private static final int SENTENCES_PER_TASK = 256;
+  private static final int ENTITIES_PER_TASK = 16;
+
   private int maxWordCloudItemsCount;
   private Set<String> stopWords;
+  private EntityNameDictionary entityNames;
+
+  private ConcurrentMap<String, Integer> termIds;
+  private AtomicInteger nextTermId;
+  private String[] terms;
+  private List<Sentence> sentences;
+  private int[][] sentenceTermIds;
 
   @Override
   public EntityWordCloudResult execute(ModuleResultProvider results,
       ProgressListener progressListener) throws IOException {
 
     // get parameters
-    Collection<BasicEntity> entities =
-        results.getResultFor(BasicEntityCollection.class).getEntities();
+    List<BasicEntity> entities =
+        new ArrayList<>(results.getResultFor(BasicEntityCollection.class).getEntities());
     AnalysisParameters parameters = results.getResultFor(AnalysisParameters.class);
-    
+    entityNames = results.getResultFor(EntityNameDictionary.class);
+
     boolean stopWordListEnabled = parameters.getStopWordListEnabled();
     stopWords = prepareStopWordsSet(stopWordListEnabled, parameters);
-    
+
     maxWordCloudItemsCount = results.getResultFor(AnalysisParameters.class).getWordCloudItemsCount();
 
+    // tokenize each sentence once
+    Map<Sentence, Integer> sentenceIndices = new LinkedHashMap<>();
+    for (BasicEntity entity : entities) {
+      for (Sentence sentence : getSentencesOfEntityOccurrences(entity)) {
+        if (!sentenceIndices.containsKey(sentence)) {
+          sentenceIndices.put(sentence, sentenceIndices.size());
+        }
+      }
+    }
+    sentences = new ArrayList<>(sentenceIndices.keySet());
+    sentenceTermIds = new int[sentences.size()][];
+    termIds = new ConcurrentHashMap<>();
+    nextTermId = new AtomicInteger();
+    Threads.getForkJoinPool().invoke(new TokenizeTask(0, sentences.size()));
+
+    terms = new String[nextTermId.get()];
+    for (Map.Entry<String, Integer> entry : termIds.entrySet()) {
+      terms[entry.getValue()] = entry.getKey();
+    }
+
     // create word clouds for entities
+    WordCloud[] entityWordClouds = new WordCloud[entities.size()];
+    Threads.getForkJoinPool().invoke(
+        new WordCloudTask(entities, sentenceIndices, entityWordClouds, 0, entities.size()));
+
     final Map<BasicEntity, WordCloud> wordClouds = new HashMap<>();
-    for (BasicEntity entity : entities) {
-      wordClouds.put(entity, getWordCloudForEntity(entity, entities));
+    for (int i = 0; i < entities.size(); i++) {
+      wordClouds.put(entities.get(i), entityWordClouds[i]);
     }
 
     // return word clouds
@@ -67,66 +115,143 @@ public class EntityWordCloudModule extends Module<EntityWordCloudResult> {
     };
   }
 
+  /**
+   * Tokenizes a range of the sentences and stores their term ids. Words from the stop list and
+   * words with less than two characters are left out.
+   */
+  private class TokenizeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+
+    public TokenizeTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > SENTENCES_PER_TASK) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new TokenizeTask(from, middle), new TokenizeTask(middle, to));
+        return;
+      }
+
+      for (int i = from; i < to; i++) {
+        List<String> tokens = tokenize(getSentenceText(sentences.get(i)));
+        int[] ids = new int[tokens.size()];
+        int count = 0;
+        for (String token : tokens) {
+          if (!stopWords.contains(token)) {
+            ids[count++] = getTermId(token);
+          }
+        }
+        sentenceTermIds[i] = Arrays.copyOf(ids, count);
+      }
+    }
+  }
+
+  /**
+   * Creates the word clouds of a range of the entities.
+   */
+  private class WordCloudTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final List<BasicEntity> entities;
+    private final Map<Sentence, Integer> sentenceIndices;
+    private final WordCloud[] wordClouds;
+    private final int from;
+    private final int to;
+
+    public WordCloudTask(List<BasicEntity> entities, Map<Sentence, Integer> sentenceIndices,
+        WordCloud[] wordClouds, int from, int to) {
+      this.entities = entities;
+      this.sentenceIndices = sentenceIndices;
+      this.wordClouds = wordClouds;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > ENTITIES_PER_TASK) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new WordCloudTask(entities, sentenceIndices, wordClouds, from, middle),
+            new WordCloudTask(entities, sentenceIndices, wordClouds, middle, to));
+        return;
+      }
+
+      // the counters are reused for all entities of this task
+      int[] frequencies = new int[terms.length];
+      for (int i = from; i < to; i++) {
+        wordClouds[i] = getWordCloudForEntity(entities.get(i), sentenceIndices, frequencies);
+      }
+    }
+  }
 
   /**
    * Creates a Word Cloud for one Entity by analyzing all words in the same Sentences as the Entity.
-   * 
+   *
    * @param entity - The Entity the Word Cloud belongs to.
-   * @param entities - All Entities found in the document. Needed to connect found words and
-   *        entities.
+   * @param sentenceIndices - The index of each sentence in the tokenized sentences.
+   * @param frequencies - The counters for each term id, must be zero and are reset afterwards.
    * @return The Word Cloud for the given Entity.
-   * @throws IOException - Thrown if this methods was unable to get the stop words.
    */
-  private WordCloud getWordCloudForEntity(BasicEntity entity, Collection<BasicEntity> entities)
-      throws IOException {
-    // prepare data
-    Map<String, Integer> frequencies = new HashMap<>();
-    List<Sentence> sentences = new ArrayList<Sentence>(getSentencesOfEntityOccurrences(entity));
-    Set<String> entityNameTokens = prepareNameTokensOfEntitySet(entity);
+  private WordCloud getWordCloudForEntity(BasicEntity entity,
+      Map<Sentence, Integer> sentenceIndices, int[] frequencies) {
+    Set<Integer> entityNameTermIds = prepareNameTermIdsOfEntitySet(entity);
+    int[] countedTermIds = new int[16];
+    int countedTermCount = 0;
 
     // fill frequencies
-    for (Sentence sentence : sentences) {
-      getFrequenciesForOneSentence(sentence, frequencies, entityNameTokens);
+    for (Sentence sentence : getSentencesOfEntityOccurrences(entity)) {
+      for (int termId : sentenceTermIds[sentenceIndices.get(sentence)]) {
+        if (entityNameTermIds.contains(termId)) {
+          continue;
+        }
+        if (frequencies[termId]++ == 0) {
+          if (countedTermCount == countedTermIds.length) {
+            countedTermIds = Arrays.copyOf(countedTermIds, countedTermCount * 2);
+          }
+          countedTermIds[countedTermCount++] = termId;
+        }
+      }
     }
 
     // build and return word cloud
-    List<WordCloudItem> items = createWordCloudItems(frequencies);
-    setWordCloudItemsEntitiyId(items, entities);
+    List<WordCloudItem> items = new ArrayList<>(countedTermCount);
+    for (int i = 0; i < countedTermCount; i++) {
+      int termId = countedTermIds[i];
+      items.add(new WordCloudItem(terms[termId], frequencies[termId]));
+      frequencies[termId] = 0;
+    }
+    items = limitWordCloudItems(items);
+    setWordCloudItemsEntitiyId(items);
     return new WordCloud(items);
   }
-  
 
   /**
-   * Searches words in the given sentence and updates the counters in frequencies. Ignores words
-   * from the stop list or names of the entity the word cloud belongs to.
-   * 
-   * @param sentence - the sentence to analyze.
-   * @param frequencies - the counters for each word.
-   * @param entityNameTokens - the names of the entity itself.
+   * Gets the id of a term, assigning a new one if the term has not been seen before.
+   *
+   * @param term - the term.
+   * @return the id of the term.
    */
-  private void getFrequenciesForOneSentence(Sentence sentence, Map<String, Integer> frequencies,
-      Set<String> entityNameTokens) {
-    String sentenceText = getSentenceText(sentence);
-    String[] tokens = tokenize(sentenceText);
-
-    for (int i = 0; i < tokens.length; i++) {
-      String token = tokens[i].trim();
-      boolean additionalStopWords = !StringUtils.isEmpty(token) && token.length() > 1;
-
-      // count this token?
-      if (additionalStopWords && !entityNameTokens.contains(token) && !stopWords.contains(token)) {
-        if (frequencies.containsKey(token)) {
-          frequencies.put(token, frequencies.get(token) + 1);
-        } else {
-          frequencies.put(token, 1);
-        }
+  private int getTermId(String term) {
+    Integer id = termIds.get(term);
+    if (id == null) {
+      Integer newId = nextTermId.getAndIncrement();
+      id = termIds.putIfAbsent(term, newId);
+      if (id == null) {
+        id = newId;
       }
     }
+    return id;
   }
-  
+
   /**
    * Gets the stop words.
-   * 
+   *
    * @param stopWordListEnabled - true: defined stop words should be used to filter the Word Cloud.
    *        false: only basic filtering, no stop words.
    * @param parameters - The parameters defined by the user.
@@ -147,23 +272,29 @@ public class EntityWordCloudModule extends Module<EntityWordCloudResult> {
   }
 
   /**
-   * Get all the tokens of all the names of an Entity.
-   * 
+   * Get the term ids of all the tokens of all the names of an Entity. Tokens which do not occur in
+   * any sentence are left out.
+   *
    * @param entity - The Entity.
-   * @return The tokens.
+   * @return The term ids.
    */
-  private Set<String> prepareNameTokensOfEntitySet(BasicEntity entity) {
-    Set<String> entityNames = new HashSet<>();
+  private Set<Integer> prepareNameTermIdsOfEntitySet(BasicEntity entity) {
+    Set<Integer> entityNameTermIds = new HashSet<>();
     for (Attribute attr : entity.getNameAttributes()) {
-      entityNames.addAll(Arrays.asList(tokenize(attr.getContent())));
+      for (String token : tokenize(attr.getContent())) {
+        Integer termId = termIds.get(token);
+        if (termId != null) {
+          entityNameTermIds.add(termId);
+        }
+      }
     }
-    return entityNames;
+    return entityNameTermIds;
   }
 
 
   /**
    * Get the text of a Sentence as String.
-   * 
+   *
    * @param sentence - The Sentence, attributes should be set, should not be null.
    * @return the text of the Sentence.
    */
@@ -175,20 +306,13 @@ public class EntityWordCloudModule extends Module<EntityWordCloudResult> {
   }
 
   /**
-   * Creates the WordCloudItems from a list of frequencies for tokens. Some rare items may be
-   * removed, if there are too much.
-   * 
-   * @param frequencies - Contains the name of the tokens and how often it was found.
+   * Orders the WordCloudItems and removes some rare items, if there are too much.
+   *
+   * @param items - The WordCloudItems for each token.
    * @return The WordCloutItems to create a Word Cloud, they are reverse ordered and the number of
    *         elements is restricted by the input parameters.
    */
-  private List<WordCloudItem> createWordCloudItems(Map<String, Integer> frequencies) {
-    // transform frequencies to items
-    List<WordCloudItem> items = new ArrayList<WordCloudItem>();
-    for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
-      items.add(new WordCloudItem(entry.getKey(), entry.getValue()));
-    }
-
+  private List<WordCloudItem> limitWordCloudItems(List<WordCloudItem> items) {
     // order list and remove rare items, if there are too much
     Collections.sort(items, Collections.reverseOrder());
     if (items.size() > maxWordCloudItemsCount){
@@ -199,17 +323,43 @@ public class EntityWordCloudModule extends Module<EntityWordCloudResult> {
 
   /**
    * Find all tokens in the given String. A token is a word containing only characters and numbers.
-   * 
+   * Tokens with less than two characters are left out.
+   *
    * @param str - the String.
    * @return all tokens as Strings in lower case.
    */
-  private String[] tokenize(String str) {
-    return str.toLowerCase().replaceAll("\\W", " ").split("\\s+?");
+  private static List<String> tokenize(String str) {
+    String lowerCase = str.toLowerCase();
+    List<String> tokens = new ArrayList<>();
+    int tokenStart = -1;
+    for (int i = 0; i <= lowerCase.length(); i++) {
+      if (i < lowerCase.length() && isWordCharacter(lowerCase.charAt(i))) {
+        if (tokenStart < 0) {
+          tokenStart = i;
+        }
+      } else if (tokenStart >= 0) {
+        if (i - tokenStart > 1) {
+          tokens.add(lowerCase.substring(tokenStart, i));
+        }
+        tokenStart = -1;
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * Checks whether the character is a word character, as \w in regular expressions.
+   *
+   * @param c - the character.
+   * @return true if it is a letter a-z, a digit or an underscore.
+   */
+  private static boolean isWordCharacter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
   }
 
   /**
    * Find all Sentences for a given Entity.
-   * 
+   *
    * @param entity - the Entity.
    * @return all Sentences the Entity lies in.
    */
@@ -225,19 +375,14 @@ public class EntityWordCloudModule extends Module<EntityWordCloudResult> {
    * Sets the entity id of the word cloud item if the entity id for this item is existing. So if
    * there is a word in items which is also the name of an entity, the item will know the id of this
    * entity.
-   * 
+   *
    * @param items - should be all word cloud items, which will be used in the word cloud.
-   * @param basicEntities - should be all entities.
    */
-  private void setWordCloudItemsEntitiyId(List<WordCloudItem> items,
-      Collection<BasicEntity> basicEntities) {
+  private void setWordCloudItemsEntitiyId(List<WordCloudItem> items) {
     for (WordCloudItem wordCloudItem : items) {
-      for (BasicEntity basicEntity : basicEntities) {
-        for (Attribute attribute : basicEntity.getNameAttributes()) {
-          if (wordCloudItem.getWord().equalsIgnoreCase(attribute.getContent())) {
-            wordCloudItem.setEntityId(basicEntity.getEntityId());
-          }
-        }
+      String entityId = entityNames.getEntityIdForName(wordCloudItem.getWord());
+      if (entityId != null) {
+        wordCloudItem.setEntityId(entityId);
       }
     }
   }
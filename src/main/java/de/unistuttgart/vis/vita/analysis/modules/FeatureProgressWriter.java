@@ -0,0 +1,181 @@
+package de.unistuttgart.vis.vita.analysis.modules;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import de.unistuttgart.vis.vita.model.Model;
+import de.unistuttgart.vis.vita.model.document.Document;
+import de.unistuttgart.vis.vita.model.progress.FeatureProgress;
+
+/**
+ * Writes the progress of feature modules to the data base in the background.
+ * <p>
+ * Progress reports only remember the latest progress of each module. They are written at most
+ * once per flush interval, using one transaction per document, so that frequent progress reports
+ * do not cause a data base round-trip each.
+ */
+public class FeatureProgressWriter {
+  /**
+   * The time in milliseconds between a progress report and the write of the progress
+   */
+  public static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+  private static final Logger LOGGER = Logger.getLogger(FeatureProgressWriter.class.getName());
+
+  private static final FeatureProgressWriter INSTANCE =
+      new FeatureProgressWriter(FLUSH_INTERVAL_MILLIS);
+
+  private final long flushIntervalMillis;
+  private final ConcurrentMap<AbstractFeatureModule<?>, Double> pendingProgress =
+      new ConcurrentHashMap<>();
+  private final AtomicBoolean isFlushScheduled = new AtomicBoolean();
+  private final Object flushLock = new Object();
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a writer which writes reported progress after the given interval
+   *
+   * @param flushIntervalMillis the time between a report and the write in milliseconds
+   */
+  public FeatureProgressWriter(long flushIntervalMillis) {
+    this.flushIntervalMillis = flushIntervalMillis;
+    scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "Feature progress writer");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Gets the application-wide progress writer
+   *
+   * @return the writer
+   */
+  public static FeatureProgressWriter getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Remembers the progress of the module, replacing the progress reported before. The progress is
+   * written with the next flush.
+   *
+   * @param module the module whose progress has changed
+   * @param progress the new progress
+   */
+  public void submit(AbstractFeatureModule<?> module, double progress) {
+    pendingProgress.put(module, progress);
+    if (isFlushScheduled.compareAndSet(false, true)) {
+      scheduler.schedule(new Runnable() {
+        @Override
+        public void run() {
+          isFlushScheduled.set(false);
+          flush();
+        }
+      }, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Discards the pending progress of the module and waits for a running flush to finish. Should be
+   * called before the module writes its final state, so that the writer does not overwrite it.
+   *
+   * @param module the module which is completed or has failed
+   */
+  public void discard(AbstractFeatureModule<?> module) {
+    synchronized (flushLock) {
+      pendingProgress.remove(module);
+    }
+  }
+
+  /**
+   * Writes the pending progress of all modules, using one transaction per document
+   */
+  public void flush() {
+    synchronized (flushLock) {
+      Map<Model, Map<String, List<PendingProgress>>> progressByDocument = new HashMap<>();
+      for (Map.Entry<AbstractFeatureModule<?>, Double> entry : pendingProgress.entrySet()) {
+        AbstractFeatureModule<?> module = entry.getKey();
+        // keeps newer progress reported during the flush for the next flush
+        pendingProgress.remove(module, entry.getValue());
+        if (module.isProgressCompleted()) {
+          continue;
+        }
+
+        Map<String, List<PendingProgress>> documents = progressByDocument.get(module.getModel());
+        if (documents == null) {
+          documents = new HashMap<>();
+          progressByDocument.put(module.getModel(), documents);
+        }
+        List<PendingProgress> progresses = documents.get(module.getDocumentId());
+        if (progresses == null) {
+          progresses = new ArrayList<>();
+          documents.put(module.getDocumentId(), progresses);
+        }
+        progresses.add(new PendingProgress(module, entry.getValue()));
+      }
+
+      for (Map.Entry<Model, Map<String, List<PendingProgress>>> modelEntry
+          : progressByDocument.entrySet()) {
+        for (Map.Entry<String, List<PendingProgress>> documentEntry
+            : modelEntry.getValue().entrySet()) {
+          writeProgress(modelEntry.getKey(), documentEntry.getKey(), documentEntry.getValue());
+        }
+      }
+    }
+  }
+
+  private void writeProgress(Model model, String documentId, List<PendingProgress> progresses) {
+    EntityManager em = model.getEntityManager();
+    try {
+      em.getTransaction().begin();
+      Document document = AbstractFeatureModule.getDocument(em, documentId);
+      for (PendingProgress pending : progresses) {
+        for (FeatureProgress featureProgress
+            : pending.module.getProgresses(document.getProgress())) {
+          if (!featureProgress.isReady() && !featureProgress.isFailed()) {
+            featureProgress.setProgress(pending.progress);
+          }
+        }
+      }
+      em.getTransaction().commit();
+    } catch (PersistenceException e) {
+      // e.g. the document has been deleted in the meantime
+      LOGGER.log(Level.WARNING, "Could not write the progress of document " + documentId, e);
+      if (em.getTransaction().isActive()) {
+        em.getTransaction().rollback();
+      }
+    } finally {
+      em.close();
+    }
+  }
+
+  /**
+   * The latest progress of a module
+   */
+  private static class PendingProgress {
+    private final AbstractFeatureModule<?> module;
+    private final double progress;
+
+    public PendingProgress(AbstractFeatureModule<?> module, double progress) {
+      this.module = module;
+      this.progress = progress;
+    }
+  }
+}
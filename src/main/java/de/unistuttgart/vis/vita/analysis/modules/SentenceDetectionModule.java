@@ -21,10 +21,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.NavigableSet;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
 
 import gate.Annotation;
 import gate.creole.ANNIEConstants;
@@ -38,9 +35,64 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
   private ProgressListener progressListener;
   private NLPResult nlpResult;
   private ImportResult importResult;
-  private Map<Chapter, List<Sentence>> chapterToSentence;
-  private Map<Integer, Sentence> startOffsetToSentence;
-  private NavigableSet<Integer> sortedStartOffset;
+  private Map<Chapter, ChapterSentences> chapterToSentences;
+
+  /**
+   * The chapters which contain sentences in the order of the document, and the global start offset
+   * of the first sentence of each of them.
+   */
+  private List<ChapterSentences> chaptersWithSentences;
+  private int[] chapterStartOffsets;
+
+  /**
+   * The sentences of a chapter together with their global start offsets, in ascending order.
+   */
+  private static class ChapterSentences {
+    private final List<Sentence> sentences;
+    private final int[] startOffsets;
+
+    public ChapterSentences(List<Sentence> sentences) {
+      this.sentences = sentences;
+      startOffsets = new int[sentences.size()];
+      for (int i = 0; i < startOffsets.length; i++) {
+        startOffsets[i] = sentences.get(i).getRange().getStart().getOffset();
+      }
+    }
+
+    /**
+     * Gets the last sentence starting at or before the given offset.
+     *
+     * @param offset - the global offset
+     * @return the sentence, or null if all sentences of this chapter start after the offset
+     */
+    public Sentence getSentenceAt(int offset) {
+      int index = floorIndex(startOffsets, startOffsets.length, offset);
+      return index >= 0 ? sentences.get(index) : null;
+    }
+  }
+
+  /**
+   * Finds the last index in a sorted array whose value is less than or equal to the given value.
+   * Of equal values, the last one is found.
+   *
+   * @param values - the sorted values
+   * @param length - the number of values to consider
+   * @param value - the value to search
+   * @return the index, or -1 if all values are greater
+   */
+  private static int floorIndex(int[] values, int length, int value) {
+    int low = 0;
+    int high = length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (values[middle] <= value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low - 1;
+  }
 
   /**
    * Compares Annotations depending on their start position.
@@ -59,11 +111,7 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
   private class SentenceDetectionResultImpl implements SentenceDetectionResult {
     @Override
     public List<Sentence> getSentencesInChapter(Chapter chapter) {
-      if (!chapterToSentence.containsKey(chapter)) {
-        throw new IllegalStateException("Sentences map does not contain this chapter: " + chapter);
-      }
-
-      return chapterToSentence.get(chapter);
+      return getChapterSentences(chapter).sentences;
     }
 
     @Override
@@ -74,20 +122,36 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
         throw new IllegalStateException("Offset is higher than document length!");
       }
 
-      Sentence sentence;
-
-      if (startOffsetToSentence.containsKey(offset)) {
-        sentence = startOffsetToSentence.get(offset);
-      } else {
-        Integer foundOffset = sortedStartOffset.floor(offset);
-        sentence = startOffsetToSentence.get(foundOffset);
+      int chapterIndex = floorIndex(chapterStartOffsets, chapterStartOffsets.length, offset);
+      if (chapterIndex < 0) {
+        return null;
       }
-
-      return sentence;
+      return chaptersWithSentences.get(chapterIndex).getSentenceAt(offset);
     }
 
     @Override
     public Occurrence createOccurrence(Chapter chapter, int startOffset, int endOffset) {
+      return createOccurrence(chapter, getChapterSentences(chapter), startOffset, endOffset);
+    }
+
+    @Override
+    public List<Occurrence> createOccurrences(Chapter chapter, int[] startOffsets,
+        int[] endOffsets) {
+      if (startOffsets.length != endOffsets.length) {
+        throw new IllegalArgumentException("There must be as many end offsets as start offsets.");
+      }
+
+      ChapterSentences chapterSentences = getChapterSentences(chapter);
+      List<Occurrence> occurrences = new ArrayList<>(startOffsets.length);
+      for (int i = 0; i < startOffsets.length; i++) {
+        occurrences.add(createOccurrence(chapter, chapterSentences, startOffsets[i],
+            endOffsets[i]));
+      }
+      return occurrences;
+    }
+
+    private Occurrence createOccurrence(Chapter chapter, ChapterSentences chapterSentences,
+        int startOffset, int endOffset) {
       if (isOffsetOutsideOfChapter(startOffset, chapter)) {
         throw new IllegalArgumentException("startOffset must not lie outside of the chapter");
       } else if (isOffsetOutsideOfChapter(endOffset, chapter)) {
@@ -107,10 +171,12 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
         throw new IllegalArgumentException("endOffset must not lie outside of the document.");
       }
 
-      // create occurrence
-      Sentence sentence =
-          getSentenceAt(TextPosition
-              .fromGlobalOffset(globalStartOffsetOfOccurrence, documentLength));
+      // create occurrence, the sentence usually lies in the same chapter
+      Sentence sentence = chapterSentences.getSentenceAt(globalStartOffsetOfOccurrence);
+      if (sentence == null) {
+        sentence = getSentenceAt(TextPosition
+            .fromGlobalOffset(globalStartOffsetOfOccurrence, documentLength));
+      }
       Range rangeOfOccurrence = new Range(chapter, startOffset, endOffset, documentLength);
       return new Occurrence(sentence, rangeOfOccurrence);
     }
@@ -126,6 +192,14 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
     private boolean isOffsetOutsideOfChapter(int offset, Chapter chapter) {
       return offset > chapter.getLength() || offset < 0;
     }
+
+    private ChapterSentences getChapterSentences(Chapter chapter) {
+      ChapterSentences chapterSentences = chapterToSentences.get(chapter);
+      if (chapterSentences == null) {
+        throw new IllegalStateException("Sentences map does not contain this chapter: " + chapter);
+      }
+      return chapterSentences;
+    }
   }
 
   @Override
@@ -145,8 +219,8 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
    * method finished its execution. Calling this method again will replace the existing results.
    */
   private void buildResults() {
-    chapterToSentence = new HashMap<>();
-    startOffsetToSentence = new TreeMap<>();
+    chapterToSentences = new HashMap<>();
+    chaptersWithSentences = new ArrayList<>();
     int index = 0;
     List<Sentence> sentences;
 
@@ -161,11 +235,18 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
           index++;
         }
 
-        chapterToSentence.put(chapter, sentences);
+        ChapterSentences chapterSentences = new ChapterSentences(sentences);
+        chapterToSentences.put(chapter, chapterSentences);
+        if (!sentences.isEmpty()) {
+          chaptersWithSentences.add(chapterSentences);
+        }
       }
     }
 
-    sortedStartOffset = new TreeSet<>(startOffsetToSentence.keySet());
+    chapterStartOffsets = new int[chaptersWithSentences.size()];
+    for (int i = 0; i < chapterStartOffsets.length; i++) {
+      chapterStartOffsets[i] = chaptersWithSentences.get(i).startOffsets[0];
+    }
   }
 
   /**
@@ -184,8 +265,7 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
   }
 
   /**
-   * Builds a Sentence from a given Sentence Annotation and adds it to the list for sentence start
-   * offsets.
+   * Builds a Sentence from a given Sentence Annotation.
    * 
    * @param annotation - The Annotation which describes the Sentence position.
    * @param chapter - The Chapter the Sentence lies in.
@@ -200,11 +280,7 @@ public class SentenceDetectionModule extends Module<SentenceDetectionResult> {
     TextPosition end =
         TextPosition.fromLocalOffset(chapter, localEndOffset, this.importResult.getTotalLength());
     Range range = new Range(start, end);
-    Sentence sentence = new Sentence(range, chapter, index);
-
-    startOffsetToSentence.put(start.getOffset(), sentence);
-
-    return sentence;
+    return new Sentence(range, chapter, index);
   }
 
 }
@@ -7,7 +7,9 @@ package de.unistuttgart.vis.vita.analysis.modules.gate;
 
 import de.unistuttgart.vis.vita.analysis.results.AnnieNLPResult;
 import de.unistuttgart.vis.vita.model.document.Chapter;
+import de.unistuttgart.vis.vita.model.document.EnumNLP;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -23,12 +25,13 @@ public class ANNIEModule extends ExtendedAbstractNLPModule<AnnieNLPResult> {
    * Initialize a new ANNIEModule.
    */
   public ANNIEModule() {
-    super(NLPConstants.ANNIE_NLP_PLUGIN_DIR, NLPConstants.ANNIE_NLP_DEFAULT_FILE);
+    super(EnumNLP.ANNIE);
   }
 
   @Override
   protected AnnieNLPResult buildResult() {
-    return new AnnieNLPResultImpl(this.chapterToAnnotation, this.chapterToDoc);
+    return new AnnieNLPResultImpl(this.chapterToAnnotation, this.chapterToDoc,
+        this.chapterToCachedAnnotations);
   }
 
   /**
@@ -36,8 +39,9 @@ public class ANNIEModule extends ExtendedAbstractNLPModule<AnnieNLPResult> {
    */
   private static class AnnieNLPResultImpl extends AbstractNLPResult implements AnnieNLPResult{
     public AnnieNLPResultImpl(Map<Chapter, Set<Annotation>> chapterToAnnotation,
-        Map<Chapter, Document> chapterToDoc){
-      super(chapterToAnnotation, chapterToDoc);
+        Map<Chapter, Document> chapterToDoc,
+        Map<Chapter, List<Annotation>> chapterToCachedAnnotations){
+      super(chapterToAnnotation, chapterToDoc, chapterToCachedAnnotations);
     }
   }  
   
@@ -6,6 +6,7 @@
 package de.unistuttgart.vis.vita.analysis.modules.gate;
 
 import de.unistuttgart.vis.vita.analysis.Module;
+import de.unistuttgart.vis.vita.analysis.Threads;
 import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
 import de.unistuttgart.vis.vita.analysis.ProgressListener;
 import de.unistuttgart.vis.vita.analysis.results.AnnieDatastore;
@@ -17,16 +18,28 @@ import de.unistuttgart.vis.vita.model.document.Chapter;
 import de.unistuttgart.vis.vita.model.document.DocumentPart;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import gate.Annotation;
 import gate.AnnotationSet;
 import gate.Corpus;
 import gate.Document;
+import gate.Executable;
 import gate.Factory;
+import gate.ProcessingResource;
 import gate.creole.ANNIEConstants;
 import gate.creole.ConditionalSerialAnalyserController;
 import gate.creole.ExecutionException;
@@ -39,7 +52,15 @@ import gate.util.GateException;
  */
 public abstract class AbstractNLPModule<T extends NLPResult> extends Module<T> {
 
+  /**
+   * The system property which can be used to configure the number of controllers processing the
+   * chapters in parallel. A value of 1 processes the whole corpus with a single controller.
+   */
+  public static final String NLP_THREADS_PROPERTY = "vita.nlp.threads";
+
+  private static final Logger LOGGER = Logger.getLogger(AbstractNLPModule.class.getName());
   private static final String CORPUS_NAME = "ViTA Corpus";
+  private static final String WORKER_CORPUS_NAME = "ViTA Worker Corpus";
   protected ImportResult importResult;
   protected ProgressListener progressListener;
   protected AnalysisParameters parameters;
@@ -47,6 +68,7 @@ public abstract class AbstractNLPModule<T extends NLPResult> extends Module<T> {
   protected Map<Document, Chapter> docToChapter = new HashMap<>();
   protected Map<Chapter, Document> chapterToDoc = new HashMap<>();
   protected Map<Chapter, Set<Annotation>> chapterToAnnotation = new HashMap<>();
+  protected Map<Chapter, List<Annotation>> chapterToCachedAnnotations = new HashMap<>();
   protected Corpus corpus;
   protected DocumentPersistenceContext documentIdModule;
   protected AnnieDatastore storeModule;
@@ -62,24 +84,88 @@ public abstract class AbstractNLPModule<T extends NLPResult> extends Module<T> {
     String persistID = documentIdModule.getDocumentContentId() + "-"
                        + parameters.getNlpTool().getName();
 
+    NLPResultCache resultCache = storeModule.getResultCache();
+    if (resultCache != null && loadCachedResult(resultCache, persistID)) {
+      this.progressListener.observeProgress(1);
+      return buildResult();
+    }
+
     corpus = storeModule.getStoredAnalysis(persistID);
 
     // Persist the analysis into the datastore with the document id
     if (corpus == null) {
       loadEngine();
-      createCorpus();
-      startAnalysis();
-      storeModule.storeResult(corpus, persistID);
+      boolean isSuccessful = false;
+      try {
+        createCorpus();
+        startAnalysis();
+        isSuccessful = true;
+      } finally {
+        releaseEngine(isSuccessful);
+      }
+      createResultMap();
+
+      if (resultCache != null) {
+        storeCachedResult(resultCache, persistID);
+      } else {
+        storeModule.storeResult(corpus, persistID);
+      }
     } else {
       fillCorpusMap();
-    }
+      createResultMap();
 
-    createResultMap();
+      // results of older versions are moved into the cache
+      if (resultCache != null) {
+        storeCachedResult(resultCache, persistID);
+      }
+    }
 
     this.progressListener.observeProgress(1);
     return buildResult();
   }
 
+  /**
+   * Fills the result maps from the result cache, if it contains the analysis.
+   *
+   * @param resultCache - The cache.
+   * @param persistID - The id of the analysis.
+   * @return true, if the analysis was found in the cache.
+   */
+  private boolean loadCachedResult(NLPResultCache resultCache, String persistID) {
+    NLPResultCache.CachedAnnotations cached;
+    try {
+      cached = resultCache.read(persistID, getChapters());
+    } catch (IOException | RuntimeException e) {
+      LOGGER.log(Level.WARNING, "Could not read cached NLP result " + persistID, e);
+      return false;
+    }
+
+    if (cached == null) {
+      return false;
+    }
+
+    chapterToAnnotation.putAll(cached.getPeopleAndPlaces());
+    chapterToCachedAnnotations.putAll(cached.getAllAnnotations());
+    return true;
+  }
+
+  private void storeCachedResult(NLPResultCache resultCache, String persistID) {
+    try {
+      resultCache.write(persistID, getChapters(), chapterToAnnotation, chapterToDoc);
+    } catch (IOException e) {
+      // the next analysis of this document just has to run the NLP tool again
+      LOGGER.log(Level.WARNING, "Could not cache NLP result " + persistID, e);
+    }
+  }
+
+  private List<Chapter> getChapters() {
+    List<Chapter> chapters = new ArrayList<>();
+    for (DocumentPart part : importResult.getParts()) {
+      chapters.addAll(part.getChapters());
+    }
+    return chapters;
+  }
+
   /**
    * Refills the needed map from the datastore for the result.
    */
@@ -128,31 +214,255 @@ public abstract class AbstractNLPModule<T extends NLPResult> extends Module<T> {
   }
 
   /**
-   * Starts the analysis with the initialized controller.
+   * Starts the analysis with the initialized controller. If more than one thread is configured,
+   * the chapters are processed in parallel by copies of the controller.
    *
    * @throws ExecutionException If an exception occurs during execution of the controller or the controller gets interrupted.
    */
-  protected void startAnalysis() throws InterruptedException, ExecutionException {
+  protected void startAnalysis() throws InterruptedException, ExecutionException,
+      ResourceInstantiationException {
+    int threadCount = Math.min(getThreadCount(), corpus.size());
+    if (threadCount > 1) {
+      startParallelAnalysis(threadCount);
+      return;
+    }
+
     controller.setCorpus(corpus);
 
     int maxDocuments = corpus.size();
 
-    controller.addProgressListener(new GateControllerProgress(progressListener, maxDocuments));
+    GateControllerProgress listener = new GateControllerProgress(progressListener, maxDocuments);
+    controller.addProgressListener(listener);
 
     try {
       controller.execute();
     } catch (SoftInterruptedException e) {
       controller.interrupt();
-      InterruptedException ex = new InterruptedException(e.getMessage());
-      
-      // no cause argument to InterruptedException's constructor
-      ex.addSuppressed(e);
-      throw ex;
+      throw toInterruptedException(e);
+    } finally {
+      controller.removeProgressListener(listener);
+      controller.setCorpus(null);
+    }
+  }
+
+  /**
+   * Processes the documents of the corpus in parallel, each controller one document at a time. The
+   * annotations are added to the documents of the corpus, so the results are collected as in the
+   * serial analysis.
+   *
+   * @param threadCount the number of controllers working in parallel
+   */
+  private void startParallelAnalysis(int threadCount) throws InterruptedException,
+      ExecutionException, ResourceInstantiationException {
+    List<ConditionalSerialAnalyserController> controllers = acquireControllers(threadCount);
+    ParallelGateControllerProgress progress =
+        new ParallelGateControllerProgress(progressListener, corpus.size(), controllers.size());
+    AtomicInteger nextDocument = new AtomicInteger();
+
+    // the controllers must not use the bounded analysis thread pool, because this thread waits
+    CompletionService<Void> completionService =
+        new ExecutorCompletionService<>(Threads.getGlobalExecutorService());
+    List<Future<Void>> futures = new ArrayList<>();
+    boolean isSuccessful = false;
+    try {
+      try {
+        for (int i = 0; i < controllers.size(); i++) {
+          futures.add(completionService.submit(
+              new ControllerWorker(controllers.get(i), i, nextDocument, progress)));
+        }
+      } catch (RuntimeException e) {
+        stopWorkers(futures, controllers, nextDocument, corpus.size());
+        throw e;
+      }
+
+      awaitWorkers(completionService, futures, controllers, nextDocument, corpus.size());
+      isSuccessful = true;
+    } catch (java.util.concurrent.ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof InterruptedException) {
+        throw (InterruptedException) cause;
+      }
+      if (cause instanceof ExecutionException) {
+        throw (ExecutionException) cause;
+      }
+      throw new ExecutionException(cause);
+    } finally {
+      releaseControllers(controllers, isSuccessful);
+    }
+  }
+
+  /**
+   * Gets the controllers for a parallel analysis. The first one is the loaded controller, the
+   * others are duplicates of it.
+   *
+   * @param count the number of controllers
+   * @return the controllers
+   */
+  protected List<ConditionalSerialAnalyserController> acquireControllers(int count)
+      throws ResourceInstantiationException {
+    List<ConditionalSerialAnalyserController> controllers = new ArrayList<>();
+    controllers.add(controller);
+    for (int i = 1; i < count; i++) {
+      controllers.add((ConditionalSerialAnalyserController) Factory.duplicate(controller));
+    }
+    return controllers;
+  }
+
+  /**
+   * Releases the controllers acquired by {@link #acquireControllers(int)}, deleting the duplicates
+   *
+   * @param controllers the controllers
+   * @param isReusable false, if the analysis has failed and the controllers may be broken
+   */
+  protected void releaseControllers(List<ConditionalSerialAnalyserController> controllers,
+      boolean isReusable) {
+    for (ConditionalSerialAnalyserController duplicate : controllers) {
+      if (duplicate != controller) {
+        for (Object pr : new ArrayList<>(duplicate.getPRs())) {
+          Factory.deleteResource((ProcessingResource) pr);
+        }
+        Factory.deleteResource(duplicate);
+      }
+    }
+  }
+
+  /**
+   * Waits until all workers have finished, in the order they finish. If a worker fails or the
+   * waiting thread is interrupted, the other workers are stopped by
+   * {@link #stopWorkers(List, List, AtomicInteger, int)} before the exception is rethrown.
+   *
+   * @param completionService the completion service the workers were submitted to
+   * @param futures the futures of the workers
+   * @param controllers the controllers used by the workers
+   * @param nextDocument the index of the next document to be processed by a worker
+   * @param documentCount the number of documents
+   */
+  static void awaitWorkers(CompletionService<Void> completionService,
+      List<Future<Void>> futures, List<? extends Executable> controllers,
+      AtomicInteger nextDocument, int documentCount) throws InterruptedException,
+      java.util.concurrent.ExecutionException {
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        completionService.take().get();
+      }
+    } catch (InterruptedException | java.util.concurrent.ExecutionException e) {
+      stopWorkers(futures, controllers, nextDocument, documentCount);
+      throw e;
+    }
+  }
+
+  /**
+   * Stops the workers and waits until they have finished. No more documents are handed out and
+   * the controllers are interrupted. The workers are not cancelled, because GATE does not react on
+   * thread interrupts, and the controllers must not be released while a worker still executes them.
+   *
+   * @param futures the futures of the workers
+   * @param controllers the controllers used by the workers
+   * @param nextDocument the index of the next document to be processed by a worker
+   * @param documentCount the number of documents
+   */
+  private static void stopWorkers(List<Future<Void>> futures,
+      List<? extends Executable> controllers, AtomicInteger nextDocument, int documentCount) {
+    nextDocument.set(documentCount);
+    for (Executable workerController : controllers) {
+      workerController.interrupt();
+    }
+
+    boolean isInterrupted = false;
+    for (Future<Void> future : futures) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          isInterrupted = true;
+        } catch (java.util.concurrent.ExecutionException | CancellationException e) {
+          // only the first failure is reported
+          break;
+        }
+      }
+    }
+    if (isInterrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static InterruptedException toInterruptedException(SoftInterruptedException e) {
+    InterruptedException ex = new InterruptedException(e.getMessage());
+
+    // no cause argument to InterruptedException's constructor
+    ex.addSuppressed(e);
+    return ex;
+  }
+
+  /**
+   * Gets the number of controllers processing the chapters in parallel
+   *
+   * @return the configured number, by default the number of processors
+   */
+  protected int getThreadCount() {
+    return Math.max(1, Integer.getInteger(NLP_THREADS_PROPERTY,
+        Runtime.getRuntime().availableProcessors()));
+  }
+
+  /**
+   * Takes the next unprocessed document of the corpus and processes it with its own controller
+   * until all documents are processed.
+   */
+  private class ControllerWorker implements Callable<Void> {
+    private final ConditionalSerialAnalyserController workerController;
+    private final int index;
+    private final AtomicInteger nextDocument;
+    private final ParallelGateControllerProgress progress;
+
+    public ControllerWorker(ConditionalSerialAnalyserController workerController, int index,
+        AtomicInteger nextDocument, ParallelGateControllerProgress progress) {
+      this.workerController = workerController;
+      this.index = index;
+      this.nextDocument = nextDocument;
+      this.progress = progress;
+    }
+
+    @Override
+    public Void call() throws Exception {
+      Corpus workerCorpus = Factory.newCorpus(WORKER_CORPUS_NAME);
+      gate.event.ProgressListener listener = progress.forController(index);
+      workerController.addProgressListener(listener);
+      workerController.setCorpus(workerCorpus);
+
+      try {
+        int documentIndex;
+        while ((documentIndex = nextDocument.getAndIncrement()) < corpus.size()) {
+          workerCorpus.clear();
+          workerCorpus.add(corpus.get(documentIndex));
+          workerController.execute();
+          progress.documentFinished(index);
+        }
+      } catch (SoftInterruptedException e) {
+        workerController.interrupt();
+        throw toInterruptedException(e);
+      } finally {
+        workerController.removeProgressListener(listener);
+        workerController.setCorpus(null);
+        workerCorpus.clear();
+        Factory.deleteResource(workerCorpus);
+      }
+      return null;
     }
   }
 
   protected abstract void loadEngine() throws GateException, IOException;
 
+  /**
+   * Is called after the analysis when the controller loaded by {@link #loadEngine()} is not needed
+   * any more.
+   *
+   * @param isReusable false, if the analysis has failed and the controller may be broken
+   */
+  protected void releaseEngine(boolean isReusable) {
+    // the controller is simply discarded
+  }
+
   /**
    * @return The result with a set of annotations.
    */
@@ -6,6 +6,7 @@ import gate.Document;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -19,6 +20,7 @@ public abstract class AbstractNLPResult implements NLPResult, AutoCloseable {
 
   protected Map<Chapter, Set<Annotation>> chapterToAnnotation;
   protected Map<Chapter, Document> chapterToDoc;
+  protected Map<Chapter, List<Annotation>> chapterToCachedAnnotations;
   private boolean isCleanedUp;
 
   /**
@@ -26,11 +28,15 @@ public abstract class AbstractNLPResult implements NLPResult, AutoCloseable {
    * 
    * @param chapterToAnnotation - Contains all Annotations found for each chapter.
    * @param chapterToDoc - Contains the document for each chapter.
+   * @param chapterToCachedAnnotations - Contains all cached annotations for each chapter which has
+   *        been loaded from the {@link NLPResultCache} instead of a document.
    */
   public AbstractNLPResult(Map<Chapter, Set<Annotation>> chapterToAnnotation,
-      Map<Chapter, Document> chapterToDoc) {
+      Map<Chapter, Document> chapterToDoc,
+      Map<Chapter, List<Annotation>> chapterToCachedAnnotations) {
     this.chapterToAnnotation = chapterToAnnotation;
     this.chapterToDoc = chapterToDoc;
+    this.chapterToCachedAnnotations = chapterToCachedAnnotations;
   }
 
   @Override
@@ -55,6 +61,9 @@ public abstract class AbstractNLPResult implements NLPResult, AutoCloseable {
     }
 
     Document document = chapterToDoc.get(chapter);
+    if (document == null) {
+      return getCachedAnnotations(chapter, type);
+    }
 
     AnnotationSet defaultAnnotSet = document.getAnnotations();
     Set<String> annotTypesRequired = new HashSet<>();
@@ -66,6 +75,21 @@ public abstract class AbstractNLPResult implements NLPResult, AutoCloseable {
     return new HashSet<>(defaultAnnotSet.get(annotTypesRequired));
   }
 
+  private Set<Annotation> getCachedAnnotations(Chapter chapter, Collection<String> type) {
+    Set<Annotation> annotations = new HashSet<>();
+    List<Annotation> cachedAnnotations = chapterToCachedAnnotations.get(chapter);
+    if (cachedAnnotations == null) {
+      return annotations;
+    }
+
+    for (Annotation annotation : cachedAnnotations) {
+      if (type.contains(annotation.getType())) {
+        annotations.add(annotation);
+      }
+    }
+    return annotations;
+  }
+
   @Override
   public void close() throws Exception {
     if (isCleanedUp) {
@@ -0,0 +1,32 @@
+/*
+ * CachedAnnotation.java
+ *
+ */
+
+package de.unistuttgart.vis.vita.analysis.modules.gate;
+
+import gate.FeatureMap;
+import gate.annotation.AnnotationImpl;
+import gate.annotation.NodeImpl;
+
+/**
+ * An annotation read from the {@link NLPResultCache}. It is not part of a gate document and only
+ * has the features stored in the cache.
+ */
+public class CachedAnnotation extends AnnotationImpl {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Creates a new annotation.
+   *
+   * @param id - The id of the annotation within its chapter.
+   * @param start - The start offset within the chapter.
+   * @param end - The end offset within the chapter.
+   * @param type - The annotation type.
+   * @param features - The features of the annotation.
+   */
+  public CachedAnnotation(int id, int start, int end, String type, FeatureMap features) {
+    super(id, new NodeImpl(-1, (long) start), new NodeImpl(-1, (long) end), type, features);
+  }
+}
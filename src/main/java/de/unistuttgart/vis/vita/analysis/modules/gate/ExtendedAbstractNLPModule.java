@@ -1,33 +1,33 @@
 package de.unistuttgart.vis.vita.analysis.modules.gate;
 
-import gate.Gate;
 import gate.creole.ConditionalSerialAnalyserController;
+import gate.creole.ResourceInstantiationException;
 import gate.util.GateException;
-import gate.util.persistence.PersistenceManager;
 
-import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import de.unistuttgart.vis.vita.analysis.results.NLPResult;
+import de.unistuttgart.vis.vita.model.document.EnumNLP;
 
 /**
  * An extended version of the {@link AbstractNLPModule} with additional implementations. Can be
  * overwritten if needed.
+ * <p>
+ * The controllers are taken from the {@link GateControllerPool} and returned to it afterwards.
  */
 public abstract class ExtendedAbstractNLPModule<T extends NLPResult> extends AbstractNLPModule<T> {
 
-  private String pluginDir;
-  private String defaultFile;
+  private EnumNLP tool;
 
   /**
    * Initializes a new AbstractExtendedNLPModule.
    * 
-   * @param pluginDir - The directory of the plugin.
-   * @param defaultFile - The default .(x)gapp file.
+   * @param tool - The NLP tool whose controller should be used.
    */
-  public ExtendedAbstractNLPModule(String pluginDir, String defaultFile) {
-    this.pluginDir = pluginDir;
-    this.defaultFile = defaultFile;
+  public ExtendedAbstractNLPModule(EnumNLP tool) {
+    this.tool = tool;
   }
 
   @Override
@@ -36,13 +36,45 @@ public abstract class ExtendedAbstractNLPModule<T extends NLPResult> extends Abs
       return;
     }
 
-    File pluginsHome = Gate.getPluginsHome();
-    File engineFolder = new File(pluginsHome, pluginDir);
-    File engineState = new File(engineFolder, defaultFile);
-    Gate.getCreoleRegister().registerDirectories(engineFolder.toURI().toURL());
+    controller = GateControllerPool.getInstance().checkout(tool);
+  }
+
+  @Override
+  protected void releaseEngine(boolean isReusable) {
+    if (controller == null) {
+      return;
+    }
+
+    if (isReusable) {
+      GateControllerPool.getInstance().checkin(tool, controller);
+    } else {
+      GateControllerPool.getInstance().discard(controller);
+    }
+    controller = null;
+  }
 
-    controller =
-        (ConditionalSerialAnalyserController) PersistenceManager.loadObjectFromFile(engineState);
+  @Override
+  protected List<ConditionalSerialAnalyserController> acquireControllers(int count)
+      throws ResourceInstantiationException {
+    List<ConditionalSerialAnalyserController> controllers = new ArrayList<>();
+    controllers.add(controller);
+    controllers.addAll(GateControllerPool.getInstance().checkout(tool, controller, count - 1));
+    return controllers;
+  }
+
+  @Override
+  protected void releaseControllers(List<ConditionalSerialAnalyserController> controllers,
+      boolean isReusable) {
+    if (!isReusable) {
+      super.releaseControllers(controllers, isReusable);
+      return;
+    }
+
+    for (ConditionalSerialAnalyserController pooledController : controllers) {
+      if (pooledController != controller) {
+        GateControllerPool.getInstance().checkin(tool, pooledController);
+      }
+    }
   }
 
 }
@@ -0,0 +1,249 @@
+/*
+ * GateControllerPool.java
+ *
+ */
+
+package de.unistuttgart.vis.vita.analysis.modules.gate;
+
+import de.unistuttgart.vis.vita.analysis.Threads;
+import de.unistuttgart.vis.vita.model.document.EnumNLP;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang.StringUtils;
+
+import gate.Factory;
+import gate.Gate;
+import gate.ProcessingResource;
+import gate.creole.ConditionalSerialAnalyserController;
+import gate.creole.ResourceInstantiationException;
+import gate.util.GateException;
+import gate.util.persistence.PersistenceManager;
+
+/**
+ * An application-wide pool of loaded gate controllers for each NLP tool. Loading a controller
+ * takes several seconds (Stanford: much longer), so controllers are returned to the pool after an
+ * analysis and reused by the next analysis with the same tool.
+ */
+public class GateControllerPool {
+
+  /**
+   * The system property which can be used to configure the NLP tools whose controllers are loaded
+   * at startup, as comma-separated list of tool names (e.g. "annie,stanford")
+   */
+  public static final String WARM_UP_PROPERTY = "vita.nlp.warmup";
+
+  private static final String DEFAULT_WARM_UP_TOOLS = EnumNLP.ANNIE.getName();
+
+  private static final Logger LOGGER = Logger.getLogger(GateControllerPool.class.getName());
+
+  private static final GateControllerPool INSTANCE = new GateControllerPool();
+
+  private final Map<EnumNLP, Deque<ConditionalSerialAnalyserController>> idleControllers =
+      new EnumMap<>(EnumNLP.class);
+
+  /**
+   * Gets the application-wide controller pool
+   *
+   * @return the pool
+   */
+  public static GateControllerPool getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Takes an idle controller for the tool out of the pool, or loads a new one if there is none.
+   * Gate must have been initialized.
+   *
+   * @param tool - The NLP tool.
+   * @return the controller, which should be returned using
+   *         {@link #checkin(EnumNLP, ConditionalSerialAnalyserController)}.
+   */
+  public ConditionalSerialAnalyserController checkout(EnumNLP tool)
+      throws GateException, IOException {
+    ConditionalSerialAnalyserController controller = pollIdle(tool);
+    if (controller != null) {
+      return controller;
+    }
+
+    // loading takes long, so do not block the pool meanwhile
+    return load(tool);
+  }
+
+  /**
+   * Takes idle controllers for the tool out of the pool, and creates duplicates of the given
+   * controller if there are not enough.
+   *
+   * @param tool - The NLP tool.
+   * @param template - A controller of the tool that can be duplicated.
+   * @param count - The number of controllers to take.
+   * @return the controllers.
+   */
+  public List<ConditionalSerialAnalyserController> checkout(EnumNLP tool,
+      ConditionalSerialAnalyserController template, int count)
+      throws ResourceInstantiationException {
+    List<ConditionalSerialAnalyserController> controllers = new ArrayList<>();
+    while (controllers.size() < count) {
+      ConditionalSerialAnalyserController controller = pollIdle(tool);
+      if (controller == null) {
+        controller = (ConditionalSerialAnalyserController) Factory.duplicate(template);
+      }
+      controllers.add(controller);
+    }
+    return controllers;
+  }
+
+  /**
+   * Returns a controller which has been taken out of the pool. Deletes the controller if there are
+   * already enough idle controllers for the tool.
+   *
+   * @param tool - The NLP tool.
+   * @param controller - The controller, which must not be used any more by the caller.
+   */
+  public void checkin(EnumNLP tool, ConditionalSerialAnalyserController controller) {
+    controller.setCorpus(null);
+
+    synchronized (this) {
+      Deque<ConditionalSerialAnalyserController> controllers = getIdleControllers(tool);
+      if (controllers.size() < getMaxIdleControllers()) {
+        controllers.push(controller);
+        return;
+      }
+    }
+
+    delete(controller);
+  }
+
+  /**
+   * Deletes a controller which has been taken out of the pool but may not be reused, e.g. because
+   * its analysis has failed.
+   *
+   * @param controller - The controller, which must not be used any more by the caller.
+   */
+  public void discard(ConditionalSerialAnalyserController controller) {
+    delete(controller);
+  }
+
+  /**
+   * Gets the number of idle controllers of the tool.
+   *
+   * @param tool - The NLP tool.
+   * @return the number of controllers in the pool.
+   */
+  public synchronized int getIdleCount(EnumNLP tool) {
+    return getIdleControllers(tool).size();
+  }
+
+  /**
+   * Initializes Gate and loads a controller for the tool into the pool, if there is none yet.
+   *
+   * @param tool - The NLP tool.
+   */
+  public void warmUp(EnumNLP tool) throws Exception {
+    GateInitializeModule.initializeGate();
+    if (getIdleCount(tool) == 0) {
+      checkin(tool, load(tool));
+    }
+  }
+
+  /**
+   * Loads the controllers of the tools configured by {@link #WARM_UP_PROPERTY} in a background
+   * thread, so that the first analyses do not have to wait for it.
+   */
+  public void warmUpInBackground() {
+    final String toolNames = System.getProperty(WARM_UP_PROPERTY, DEFAULT_WARM_UP_TOOLS);
+    Threads.getGlobalExecutorService().submit(new Runnable() {
+      @Override
+      public void run() {
+        for (String toolName : StringUtils.split(toolNames, ',')) {
+          EnumNLP tool = getTool(toolName.trim());
+          if (tool == null) {
+            LOGGER.warning("Unknown NLP tool to warm up: " + toolName);
+            continue;
+          }
+
+          try {
+            long startTime = System.currentTimeMillis();
+            warmUp(tool);
+            LOGGER.info("Loaded " + tool.getName() + " controller in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+          } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not load " + tool.getName() + " controller", e);
+          }
+        }
+      }
+    });
+  }
+
+  private synchronized ConditionalSerialAnalyserController pollIdle(EnumNLP tool) {
+    return getIdleControllers(tool).poll();
+  }
+
+  private Deque<ConditionalSerialAnalyserController> getIdleControllers(EnumNLP tool) {
+    Deque<ConditionalSerialAnalyserController> controllers = idleControllers.get(tool);
+    if (controllers == null) {
+      controllers = new ArrayDeque<>();
+      idleControllers.put(tool, controllers);
+    }
+    return controllers;
+  }
+
+  private int getMaxIdleControllers() {
+    return Math.max(1, Integer.getInteger(AbstractNLPModule.NLP_THREADS_PROPERTY,
+        Runtime.getRuntime().availableProcessors()));
+  }
+
+  private static ConditionalSerialAnalyserController load(EnumNLP tool)
+      throws GateException, IOException {
+    String pluginDir;
+    String defaultFile;
+    switch (tool) {
+      case ANNIE:
+        pluginDir = NLPConstants.ANNIE_NLP_PLUGIN_DIR;
+        defaultFile = NLPConstants.ANNIE_NLP_DEFAULT_FILE;
+        break;
+      case STANFORD:
+        pluginDir = NLPConstants.STANFORD_NLP_PLUGIN_DIR;
+        defaultFile = NLPConstants.STANFORD_NLP_DEFAULT_FILE;
+        break;
+      case OPENNLP:
+        pluginDir = NLPConstants.OPEN_NLP_PLUGIN_DIR;
+        defaultFile = NLPConstants.OPEN_NLP_DEFAULT_FILE;
+        break;
+      default:
+        throw new IllegalStateException("Not registered nlp tool " + tool + "!");
+    }
+
+    File pluginsHome = Gate.getPluginsHome();
+    File engineFolder = new File(pluginsHome, pluginDir);
+    File engineState = new File(engineFolder, defaultFile);
+    Gate.getCreoleRegister().registerDirectories(engineFolder.toURI().toURL());
+
+    return (ConditionalSerialAnalyserController) PersistenceManager.loadObjectFromFile(engineState);
+  }
+
+  private static EnumNLP getTool(String name) {
+    for (EnumNLP tool : EnumNLP.values()) {
+      if (tool.getName().equalsIgnoreCase(name)) {
+        return tool;
+      }
+    }
+    return null;
+  }
+
+  private static void delete(ConditionalSerialAnalyserController controller) {
+    for (Object pr : new ArrayList<>(controller.getPRs())) {
+      Factory.deleteResource((ProcessingResource) pr);
+    }
+    Factory.deleteResource(controller);
+  }
+}
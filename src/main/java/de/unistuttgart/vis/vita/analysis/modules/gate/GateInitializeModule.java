@@ -24,12 +24,22 @@ public class GateInitializeModule extends Module<GateInitializeModule> {
   @Override
   public GateInitializeModule execute(ModuleResultProvider results,
                                       ProgressListener progressListener) throws Exception {
+    initializeGate();
+    return this;
+  }
+
+  /**
+   * Initializes Gate with the gate_home resource, if it has not been initialized yet.
+   *
+   * @throws Exception If Gate could not be initialized.
+   */
+  public static synchronized void initializeGate() throws Exception {
     if (Gate.isInitialised()) {
-      return this;
+      return;
     }
 
     // Path to the gate_home resource
-    URL pathToHome = this.getClass().getResource(NLPConstants.GATE_HOME_DIR);
+    URL pathToHome = GateInitializeModule.class.getResource(NLPConstants.GATE_HOME_DIR);
     File fileToHome = new File("");
 
     if (pathToHome != null) {
@@ -44,7 +54,5 @@ public class GateInitializeModule extends Module<GateInitializeModule> {
     Gate.setPluginsHome(pluginsHome);
     Gate.setSiteConfigFile(siteConfig);
     Gate.init();
-
-    return this;
   }
 }
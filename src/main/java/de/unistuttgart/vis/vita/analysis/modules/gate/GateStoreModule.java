@@ -33,6 +33,7 @@ public class GateStoreModule extends Module<AnnieDatastore> {
   private static final Logger LOGGER = Logger.getLogger(GateStoreModule.class.getName());
   private static final String LR_TYPE_CORP = "gate.corpora.SerialCorpusImpl";
   private SerialDataStore serialDataStore;
+  private NLPResultCache resultCache;
 
   @Override
   public AnnieDatastore execute(ModuleResultProvider results, ProgressListener progressListener)
@@ -53,6 +54,8 @@ public class GateStoreModule extends Module<AnnieDatastore> {
       serialDataStore = new SerialDataStore(location.toString());
     }
 
+    resultCache = NLPResultCache.forDatastoreLocation(location);
+
     return new AnnieDatastoreImpl();
   }
 
@@ -113,5 +116,10 @@ public class GateStoreModule extends Module<AnnieDatastore> {
         serialDataStore.close();
       }
     }
+
+    @Override
+    public NLPResultCache getResultCache() {
+      return resultCache;
+    }
   }
 }
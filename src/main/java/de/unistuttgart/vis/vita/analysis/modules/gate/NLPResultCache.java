@@ -0,0 +1,328 @@
+/*
+ * NLPResultCache.java
+ *
+ */
+
+package de.unistuttgart.vis.vita.analysis.modules.gate;
+
+import de.unistuttgart.vis.vita.model.document.Chapter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import gate.Annotation;
+import gate.Document;
+import gate.Factory;
+import gate.FeatureMap;
+import gate.creole.ANNIEConstants;
+
+/**
+ * Stores the annotations of an NLP analysis in a compact binary file per document content and NLP
+ * tool, so that further analyses of the same text do neither have to run the NLP tool nor to
+ * deserialize whole gate documents.
+ * <p>
+ * Only the annotations used by the analysis modules are stored: the persons and places of each
+ * chapter and the sentences. Of their features, only "matches" and "gender" are kept.
+ * <p>
+ * File format (big endian): magic number, version, the string table (annotation types and feature
+ * values), the number of chapters, and for each chapter the number of annotations followed by the
+ * annotations. Each annotation consists of id, start offset, end offset, type index, a flag
+ * whether it is a person or place, gender index (-1 if none), the number of matches (-1 if none)
+ * and the matches.
+ */
+public class NLPResultCache {
+
+  private static final int MAGIC_NUMBER = 0x564e4c50; // "VNLP"
+  private static final int VERSION = 1;
+  private static final String FILE_EXTENSION = ".nlp";
+  private static final String DIRECTORY_NAME = "nlp-cache";
+  private static final String FEATURE_MATCHES = "matches";
+
+  private static final Logger LOGGER = Logger.getLogger(NLPResultCache.class.getName());
+
+  private final File directory;
+
+  /**
+   * Creates a cache which stores its files in the given directory.
+   *
+   * @param directory - The directory, is created if it does not exist.
+   */
+  public NLPResultCache(File directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Creates a cache which stores its files next to the gate datastore.
+   *
+   * @param datastoreLocation - The location of the gate datastore.
+   * @return the cache.
+   */
+  public static NLPResultCache forDatastoreLocation(URI datastoreLocation) {
+    File datastoreDirectory = new File(datastoreLocation);
+    return new NLPResultCache(new File(datastoreDirectory.getParentFile(), DIRECTORY_NAME));
+  }
+
+  /**
+   * Stores the annotations of the analyzed chapters.
+   *
+   * @param persistId - The id of the analysis, consisting of the content id and the NLP tool.
+   * @param chapters - The analyzed chapters in the order of the document.
+   * @param chapterToAnnotation - The persons and places of each chapter.
+   * @param chapterToDoc - The analyzed gate document of each chapter, for the sentences.
+   * @throws IOException If the file could not be written.
+   */
+  public void write(String persistId, List<Chapter> chapters,
+      Map<Chapter, Set<Annotation>> chapterToAnnotation, Map<Chapter, Document> chapterToDoc)
+      throws IOException {
+    Map<String, Integer> strings = new LinkedHashMap<>();
+    List<List<Annotation>> chapterAnnotations = new ArrayList<>();
+    List<Set<Annotation>> chapterPeopleAndPlaces = new ArrayList<>();
+
+    for (Chapter chapter : chapters) {
+      Set<Annotation> peopleAndPlaces = chapterToAnnotation.get(chapter);
+      if (peopleAndPlaces == null) {
+        peopleAndPlaces = Collections.emptySet();
+      }
+      List<Annotation> annotations = new ArrayList<>(peopleAndPlaces);
+      Document document = chapterToDoc.get(chapter);
+      if (document != null) {
+        for (Annotation sentence
+            : document.getAnnotations().get(ANNIEConstants.SENTENCE_ANNOTATION_TYPE)) {
+          if (!peopleAndPlaces.contains(sentence)) {
+            annotations.add(sentence);
+          }
+        }
+      }
+
+      for (Annotation annotation : annotations) {
+        getStringIndex(strings, annotation.getType());
+        Object gender = annotation.getFeatures().get(NLPConstants.FEATURE_GENDER);
+        if (gender != null) {
+          getStringIndex(strings, gender.toString());
+        }
+      }
+      chapterAnnotations.add(annotations);
+      chapterPeopleAndPlaces.add(peopleAndPlaces);
+    }
+
+    if (!directory.exists() && !directory.mkdirs()) {
+      throw new IOException("Could not create " + directory);
+    }
+    File file = getFile(persistId);
+    File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+      out.writeInt(MAGIC_NUMBER);
+      out.writeInt(VERSION);
+
+      out.writeInt(strings.size());
+      for (String string : strings.keySet()) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+
+      out.writeInt(chapterAnnotations.size());
+      for (int i = 0; i < chapterAnnotations.size(); i++) {
+        List<Annotation> annotations = chapterAnnotations.get(i);
+        out.writeInt(annotations.size());
+        for (Annotation annotation : annotations) {
+          writeAnnotation(out, annotation, chapterPeopleAndPlaces.get(i).contains(annotation),
+              strings);
+        }
+      }
+    }
+
+    // replace atomically so that concurrent readers never see a partial file
+    Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    LOGGER.info("NLP result cached in " + file);
+  }
+
+  /**
+   * Reads the annotations stored for the analysis.
+   *
+   * @param persistId - The id of the analysis, consisting of the content id and the NLP tool.
+   * @param chapters - The chapters in the order of the document.
+   * @return the annotations, or null if there are none stored or they do not fit the chapters.
+   * @throws IOException If the file could not be read.
+   */
+  public CachedAnnotations read(String persistId, List<Chapter> chapters) throws IOException {
+    File file = getFile(persistId);
+    if (!file.exists()) {
+      return null;
+    }
+
+    ByteBuffer buffer;
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        FileChannel channel = randomAccessFile.getChannel()) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != VERSION) {
+      LOGGER.warning("Ignoring cached NLP result of unknown format: " + file);
+      return null;
+    }
+
+    String[] strings = new String[buffer.getInt()];
+    for (int i = 0; i < strings.length; i++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    if (buffer.getInt() != chapters.size()) {
+      LOGGER.warning("Ignoring cached NLP result for different chapters: " + file);
+      return null;
+    }
+
+    Map<Chapter, Set<Annotation>> peopleAndPlaces = new HashMap<>();
+    Map<Chapter, List<Annotation>> allAnnotations = new HashMap<>();
+    for (Chapter chapter : chapters) {
+      int annotationCount = buffer.getInt();
+      Set<Annotation> chapterPeopleAndPlaces = new HashSet<>();
+      List<Annotation> chapterAnnotations = new ArrayList<>(annotationCount);
+
+      for (int i = 0; i < annotationCount; i++) {
+        int id = buffer.getInt();
+        int start = buffer.getInt();
+        int end = buffer.getInt();
+        String type = strings[buffer.getInt()];
+        boolean isPersonOrPlace = buffer.get() != 0;
+        int genderIndex = buffer.getInt();
+        int matchCount = buffer.getInt();
+
+        FeatureMap features = Factory.newFeatureMap();
+        if (genderIndex >= 0) {
+          features.put(NLPConstants.FEATURE_GENDER, strings[genderIndex]);
+        }
+        if (matchCount >= 0) {
+          List<Integer> matches = new ArrayList<>(matchCount);
+          for (int j = 0; j < matchCount; j++) {
+            matches.add(buffer.getInt());
+          }
+          features.put(FEATURE_MATCHES, matches);
+        }
+
+        Annotation annotation = new CachedAnnotation(id, start, end, type, features);
+        chapterAnnotations.add(annotation);
+        if (isPersonOrPlace) {
+          chapterPeopleAndPlaces.add(annotation);
+        }
+      }
+
+      peopleAndPlaces.put(chapter, chapterPeopleAndPlaces);
+      allAnnotations.put(chapter, chapterAnnotations);
+    }
+
+    LOGGER.info("NLP result loaded from cache " + file);
+    return new CachedAnnotations(peopleAndPlaces, allAnnotations);
+  }
+
+  /**
+   * Removes the cached results of all NLP tools for the given document content.
+   *
+   * @param contentId - The content id of the document.
+   */
+  public void removeResultsForContent(String contentId) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    String prefix = getFileName(contentId + "-");
+    for (File file : files) {
+      if (file.getName().startsWith(prefix) && !file.delete()) {
+        LOGGER.warning("Could not delete cached NLP result " + file);
+      }
+    }
+  }
+
+  private void writeAnnotation(DataOutputStream out, Annotation annotation,
+      boolean isPersonOrPlace, Map<String, Integer> strings) throws IOException {
+    out.writeInt(annotation.getId());
+    out.writeInt(annotation.getStartNode().getOffset().intValue());
+    out.writeInt(annotation.getEndNode().getOffset().intValue());
+    out.writeInt(strings.get(annotation.getType()));
+    out.writeByte(isPersonOrPlace ? 1 : 0);
+
+    Object gender = annotation.getFeatures().get(NLPConstants.FEATURE_GENDER);
+    out.writeInt(gender != null ? strings.get(gender.toString()) : -1);
+
+    Object matches = annotation.getFeatures().get(FEATURE_MATCHES);
+    if (matches instanceof List) {
+      List<?> matchList = (List<?>) matches;
+      out.writeInt(matchList.size());
+      for (Object match : matchList) {
+        out.writeInt(((Number) match).intValue());
+      }
+    } else {
+      out.writeInt(-1);
+    }
+  }
+
+  private static int getStringIndex(Map<String, Integer> strings, String string) {
+    Integer index = strings.get(string);
+    if (index == null) {
+      index = strings.size();
+      strings.put(string, index);
+    }
+    return index;
+  }
+
+  private File getFile(String persistId) {
+    return new File(directory, getFileName(persistId) + FILE_EXTENSION);
+  }
+
+  private static String getFileName(String id) {
+    return id.replaceAll("[^A-Za-z0-9._-]", "_");
+  }
+
+  /**
+   * The annotations read from the cache.
+   */
+  public static class CachedAnnotations {
+    private final Map<Chapter, Set<Annotation>> peopleAndPlaces;
+    private final Map<Chapter, List<Annotation>> allAnnotations;
+
+    public CachedAnnotations(Map<Chapter, Set<Annotation>> peopleAndPlaces,
+        Map<Chapter, List<Annotation>> allAnnotations) {
+      this.peopleAndPlaces = peopleAndPlaces;
+      this.allAnnotations = allAnnotations;
+    }
+
+    /**
+     * @return the person and place annotations of each chapter.
+     */
+    public Map<Chapter, Set<Annotation>> getPeopleAndPlaces() {
+      return peopleAndPlaces;
+    }
+
+    /**
+     * @return all cached annotations of each chapter, including the sentences.
+     */
+    public Map<Chapter, List<Annotation>> getAllAnnotations() {
+      return allAnnotations;
+    }
+  }
+}
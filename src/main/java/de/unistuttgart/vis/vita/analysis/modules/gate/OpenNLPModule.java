@@ -7,7 +7,9 @@ package de.unistuttgart.vis.vita.analysis.modules.gate;
 
 import de.unistuttgart.vis.vita.analysis.results.OpenNLPResult;
 import de.unistuttgart.vis.vita.model.document.Chapter;
+import de.unistuttgart.vis.vita.model.document.EnumNLP;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -23,12 +25,13 @@ public class OpenNLPModule extends ExtendedAbstractNLPModule<OpenNLPResult> {
    * Initialize a new OpenNLPModule.
    */
   public OpenNLPModule(){
-    super(NLPConstants.OPEN_NLP_PLUGIN_DIR, NLPConstants.OPEN_NLP_DEFAULT_FILE);
+    super(EnumNLP.OPENNLP);
   }
 
   @Override
   protected OpenNLPResult buildResult() {
-    return new OpenNLPResultImpl(this.chapterToAnnotation, this.chapterToDoc);
+    return new OpenNLPResultImpl(this.chapterToAnnotation, this.chapterToDoc,
+        this.chapterToCachedAnnotations);
   }
   
   /**
@@ -36,8 +39,9 @@ public class OpenNLPModule extends ExtendedAbstractNLPModule<OpenNLPResult> {
    */
   private static class OpenNLPResultImpl extends AbstractNLPResult implements OpenNLPResult{
     public OpenNLPResultImpl(Map<Chapter, Set<Annotation>> chapterToAnnotation,
-        Map<Chapter, Document> chapterToDoc){
-      super(chapterToAnnotation, chapterToDoc);
+        Map<Chapter, Document> chapterToDoc,
+        Map<Chapter, List<Annotation>> chapterToCachedAnnotations){
+      super(chapterToAnnotation, chapterToDoc, chapterToCachedAnnotations);
     }
   }
 }
@@ -0,0 +1,98 @@
+/*
+ * ParallelGateControllerProgress.java
+ */
+
+package de.unistuttgart.vis.vita.analysis.modules.gate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import gate.event.ProgressListener;
+
+/**
+ * Combines the progress of several gate controllers which process the documents of one corpus in
+ * parallel, each controller one document at a time. Updates the desired progresslistener whenever
+ * one of the controllers makes progress.
+ */
+public class ParallelGateControllerProgress {
+
+  private de.unistuttgart.vis.vita.analysis.ProgressListener progressListener;
+  private int maxDocuments;
+  private AtomicInteger documentsFinished = new AtomicInteger();
+
+  /**
+   * The gate progress (between 0 and 100) of the document each controller is working on
+   */
+  private AtomicIntegerArray controllerProgress;
+
+  /**
+   * Create new progress listener.
+   *
+   * @param progressListener The module progress listener which should be update if the analysis
+   *        makes progress.
+   * @param maxDocuments The amount of documents to be processed by all controllers together.
+   * @param controllerCount The number of controllers working in parallel.
+   */
+  public ParallelGateControllerProgress(
+      de.unistuttgart.vis.vita.analysis.ProgressListener progressListener, int maxDocuments,
+      int controllerCount) {
+    this.progressListener = progressListener;
+    this.maxDocuments = maxDocuments;
+    this.controllerProgress = new AtomicIntegerArray(controllerCount);
+  }
+
+  /**
+   * Creates the listener that should be added to the controller with the given index.
+   *
+   * @param controllerIndex - The index of the controller, between 0 and controllerCount - 1.
+   * @return the listener for the controller.
+   */
+  public ProgressListener forController(final int controllerIndex) {
+    return new ProgressListener() {
+      @Override
+      public void progressChanged(int i) {
+        if (Thread.currentThread().isInterrupted()) {
+          throw new SoftInterruptedException("Thread was interrupted. Interrupt controller!");
+        }
+
+        controllerProgress.set(controllerIndex, i);
+        reportProgress();
+      }
+
+      @Override
+      public void processFinished() {
+        // documentFinished() is called explicitly for each document
+      }
+    };
+  }
+
+  /**
+   * Should be called when a controller has finished a document.
+   *
+   * @param controllerIndex - The index of the controller which has finished the document.
+   */
+  public void documentFinished(int controllerIndex) {
+    controllerProgress.set(controllerIndex, 0);
+    documentsFinished.incrementAndGet();
+    reportProgress();
+  }
+
+  /**
+   * Calculates the progress for all documents (a number between 0 and 1) and calls the
+   * {@link de.unistuttgart.vis.vita.analysis.ProgressListener}.
+   */
+  private void reportProgress() {
+    if (maxDocuments <= 0) {
+      return;
+    }
+
+    int gateProgressSum = 0;
+    for (int i = 0; i < controllerProgress.length(); i++) {
+      gateProgressSum += controllerProgress.get(i);
+    }
+
+    double currentProgress =
+        (documentsFinished.get() + gateProgressSum / 100.0) / maxDocuments;
+    progressListener.observeProgress(Math.min(1, currentProgress));
+  }
+}
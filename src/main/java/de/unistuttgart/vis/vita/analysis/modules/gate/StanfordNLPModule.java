@@ -7,8 +7,10 @@ package de.unistuttgart.vis.vita.analysis.modules.gate;
 
 import de.unistuttgart.vis.vita.analysis.results.StanfordNLPResult;
 import de.unistuttgart.vis.vita.model.document.Chapter;
+import de.unistuttgart.vis.vita.model.document.EnumNLP;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,12 +27,13 @@ public class StanfordNLPModule extends ExtendedAbstractNLPModule<StanfordNLPResu
    * Initialize a new StanfordNLPModule.
    */
   public StanfordNLPModule() {
-    super(NLPConstants.STANFORD_NLP_PLUGIN_DIR, NLPConstants.STANFORD_NLP_DEFAULT_FILE);
+    super(EnumNLP.STANFORD);
   }
   
   @Override
   protected StanfordNLPResult buildResult() {
-    return new StanfordNLPResultImpl(this.chapterToAnnotation, this.chapterToDoc);
+    return new StanfordNLPResultImpl(this.chapterToAnnotation, this.chapterToDoc,
+        this.chapterToCachedAnnotations);
   }
 
   /**
@@ -55,8 +58,9 @@ public class StanfordNLPModule extends ExtendedAbstractNLPModule<StanfordNLPResu
    */
   private static class StanfordNLPResultImpl extends AbstractNLPResult implements StanfordNLPResult{
     public StanfordNLPResultImpl(Map<Chapter, Set<Annotation>> chapterToAnnotation,
-        Map<Chapter, Document> chapterToDoc){
-      super(chapterToAnnotation, chapterToDoc);
+        Map<Chapter, Document> chapterToDoc,
+        Map<Chapter, List<Annotation>> chapterToCachedAnnotations){
+      super(chapterToAnnotation, chapterToDoc, chapterToCachedAnnotations);
     }
   }
   
@@ -5,6 +5,8 @@
 
 package de.unistuttgart.vis.vita.analysis.results;
 
+import de.unistuttgart.vis.vita.analysis.modules.gate.NLPResultCache;
+
 import gate.Corpus;
 import gate.DataStore;
 import gate.LanguageResource;
@@ -46,4 +48,11 @@ public interface AnnieDatastore {
    * @throws PersistenceException If any problems with the persisting happens.
    */
   public void removeResult(String documentName) throws PersistenceException;
+
+  /**
+   * Gets the compact cache for NLP results, which is preferred over the datastore.
+   *
+   * @return The cache, or null if NLP results should only be stored in the datastore.
+   */
+  public NLPResultCache getResultCache();
 }
@@ -0,0 +1,15 @@
+package de.unistuttgart.vis.vita.analysis.results;
+
+/**
+ * The names of all entities of a document, which can be looked up case-insensitively
+ */
+public interface EntityNameDictionary {
+
+  /**
+   * Gets the entity with the given name, ignoring case
+   *
+   * @param name the name, e.g. a word of a word cloud
+   * @return the id of the entity, or null if there is no entity with this name
+   */
+  public String getEntityIdForName(String name);
+}
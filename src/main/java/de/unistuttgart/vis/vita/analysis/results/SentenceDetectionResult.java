@@ -42,4 +42,17 @@ public interface SentenceDetectionResult {
    *         document range or in the chapter range.
    */
   public Occurrence createOccurrence(Chapter chapter, int startOffset, int endOffset);
+
+  /**
+   * Creates the occurrences for many ranges in the same chapter at once. This is cheaper than
+   * calling {@link #createOccurrence(Chapter, int, int)} for each range.
+   *
+   * @param chapter - the chapter the occurrences lie in.
+   * @param startOffsets - the starts of the occurrences, relative to the beginning of the chapter.
+   * @param endOffsets - the ends of the occurrences, relative to the beginning of the chapter.
+   * @return the created occurrences in the order of the offsets
+   * @throws java.lang.IllegalArgumentException if there are not as many end offsets as start
+   *         offsets, or if an offset is not in the document range or in the chapter range.
+   */
+  public List<Occurrence> createOccurrences(Chapter chapter, int[] startOffsets, int[] endOffsets);
 }
@@ -19,6 +19,7 @@ public class DaoFactory {
   private PersonDao personDao;
   private PlaceDao placeDao;
   private WordCloudDao wordCloudDao;
+  private ModuleMetricsDao moduleMetricsDao;
 
   /**
    * Creates a new instance of DaoFactory, using the given EntityManager.
@@ -99,4 +100,11 @@ public class DaoFactory {
     return wordCloudDao;
   }
 
+  public ModuleMetricsDao getModuleMetricsDao() {
+    if (moduleMetricsDao == null) {
+      moduleMetricsDao = new ModuleMetricsDao(em);
+    }
+    return moduleMetricsDao;
+  }
+
 }
@@ -0,0 +1,107 @@
+package de.unistuttgart.vis.vita.model.dao;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.MappedSuperclass;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+
+import de.unistuttgart.vis.vita.model.progress.ModuleMetrics;
+
+/**
+ * Represents a data access object for accessing the recorded metrics of analysis modules.
+ */
+@MappedSuperclass
+@NamedQueries({
+    @NamedQuery(name = "ModuleMetrics.findAllMetrics",
+        query = "SELECT m "
+                + "FROM ModuleMetrics m "
+                + "ORDER BY m.moduleName, m.recordDate"),
+
+    @NamedQuery(name = "ModuleMetrics.findMetricsByDocument",
+        query = "SELECT m "
+                + "FROM ModuleMetrics m "
+                + "WHERE m.documentId = :documentId "
+                + "ORDER BY m.recordDate"),
+
+    @NamedQuery(name = "ModuleMetrics.findMetricsByModule",
+        query = "SELECT m "
+                + "FROM ModuleMetrics m "
+                + "WHERE m.moduleName = :moduleName "
+                + "ORDER BY m.recordDate"),
+
+    // only the columns needed for the histograms, grouped by module
+    @NamedQuery(name = "ModuleMetrics.getDurationsByModule",
+        query = "SELECT m.moduleName, m.durationMillis, m.characterCount "
+                + "FROM ModuleMetrics m "
+                + "ORDER BY m.moduleName, m.durationMillis"),
+
+    @NamedQuery(name = "ModuleMetrics.deleteMetricsByDocument",
+        query = "DELETE FROM ModuleMetrics m "
+                + "WHERE m.documentId = :documentId")
+})
+public class ModuleMetricsDao extends JpaDao<ModuleMetrics, String> {
+
+  private static final String DOCUMENT_ID_PARAMETER = "documentId";
+  private static final String MODULE_NAME_PARAMETER = "moduleName";
+
+  /**
+   * Creates a new data access object for accessing module metrics.
+   *
+   * @param em - the EntityManager to be used
+   */
+  public ModuleMetricsDao(EntityManager em) {
+    super(ModuleMetrics.class, em);
+  }
+
+  @Override
+  public List<ModuleMetrics> findAll() {
+    return queryAll("ModuleMetrics.findAllMetrics");
+  }
+
+  /**
+   * Finds the metrics recorded during the analysis of the given document.
+   *
+   * @param documentId - the id of the analyzed document
+   * @return the metrics of all modules that have finished for this document
+   */
+  public List<ModuleMetrics> findMetricsForDocument(String documentId) {
+    return queryAll("ModuleMetrics.findMetricsByDocument", DOCUMENT_ID_PARAMETER, documentId);
+  }
+
+  /**
+   * Finds the metrics recorded for the given module over all analyses.
+   *
+   * @param moduleName - the fully qualified class name of the module
+   * @return the metrics of the module, oldest first
+   */
+  public List<ModuleMetrics> findMetricsForModule(String moduleName) {
+    return queryAll("ModuleMetrics.findMetricsByModule", MODULE_NAME_PARAMETER, moduleName);
+  }
+
+  /**
+   * Finds the durations of all modules over all analyses, without loading the whole metrics.
+   *
+   * @return for each recorded execution the module name, the duration in milliseconds and the
+   *         character count, ordered by module name and duration
+   */
+  public List<Object[]> findDurationsByModule() {
+    TypedQuery<Object[]> query = em.createNamedQuery("ModuleMetrics.getDurationsByModule",
+                                                     Object[].class);
+    return query.getResultList();
+  }
+
+  /**
+   * Deletes the metrics recorded during the analysis of the given document.
+   *
+   * @param documentId - the id of the analyzed document
+   */
+  public void deleteMetricsForDocument(String documentId) {
+    Query query = em.createNamedQuery("ModuleMetrics.deleteMetricsByDocument");
+    query.setParameter(DOCUMENT_ID_PARAMETER, documentId).executeUpdate();
+  }
+
+}
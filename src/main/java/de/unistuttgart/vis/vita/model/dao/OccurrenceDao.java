@@ -1,5 +1,6 @@
 package de.unistuttgart.vis.vita.model.dao;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
@@ -10,7 +11,6 @@ import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 
 import de.unistuttgart.vis.vita.model.document.Occurrence;
-import de.unistuttgart.vis.vita.model.document.Sentence;
 
 /**
  * Represents a data access object for accessing Occurrences.
@@ -20,24 +20,22 @@ import de.unistuttgart.vis.vita.model.document.Sentence;
     // for returning the exact occurrences for an entity in a given range
     @NamedQuery(name = "Occurrence.findOccurrencesForEntity",
         query = "SELECT occ "
-                + "FROM Occurrence occ, Entity e "
-                + "WHERE e.id = :entityId "
-                + "AND occ MEMBER OF e.occurrences "
+                + "FROM Occurrence occ "
+                + "WHERE occ.entityId = :entityId "
                 // range checks
-                + "AND occ.sentence.range.start.offset >= :rangeStart "
-                + "AND occ.sentence.range.start.offset < :rangeEnd "
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd "
                 // right ordering
                 + "ORDER BY occ.range.start.offset"),
 
     // for checking the amount of occurrences for an entity in a given range
     @NamedQuery(name = "Occurrence.getNumberOfOccurrencesForEntity",
         query = "SELECT COUNT(occ) "
-                + "FROM Occurrence occ, Entity e "
-                + "WHERE e.id = :entityId "
-                + "AND occ MEMBER OF e.occurrences "
+                + "FROM Occurrence occ "
+                + "WHERE occ.entityId = :entityId "
                 // range checks
-                + "AND occ.sentence.range.start.offset >= :rangeStart "
-                + "AND occ.sentence.range.start.offset < :rangeEnd"),
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd"),
 
     // for returning the exact occurrences for an attribute in a given range
     @NamedQuery(name = "Occurrence.findOccurrencesForAttribute",
@@ -48,8 +46,8 @@ import de.unistuttgart.vis.vita.model.document.Sentence;
                 + "AND a.id = :attributeId "
                 + "AND occ MEMBER OF a.occurrences "
                 // range checks
-                + "AND occ.sentence.range.start.offset >= :rangeStart "
-                + "AND occ.sentence.range.start.offset < :rangeEnd "
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd "
                 // right ordering
                 + "ORDER BY occ.range.start.offset"),
 
@@ -62,84 +60,91 @@ import de.unistuttgart.vis.vita.model.document.Sentence;
                 + "AND a.id = :attributeId "
                 + "AND occ MEMBER OF a.occurrences "
                 // range checks
-                + "AND occ.sentence.range.start.offset >= :rangeStart "
-                + "AND occ.sentence.range.start.offset < :rangeEnd "),
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd "),
 
     // gets the occurrences of all entities
     @NamedQuery(name = "Occurrence.findOccurrencesForEntities",
         query = "SELECT occ "
-                + "FROM Occurrence occ, Entity e "
-                + "WHERE e.id IN :entityIds "
-                + "AND occ MEMBER OF e.occurrences "
+                + "FROM Occurrence occ "
+                + "WHERE occ.entityId IN :entityIds "
                 // range checks
-                + "AND occ.sentence.range.start.offset >= :rangeStart "
-                + "AND occ.sentence.range.start.offset < :rangeEnd "
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd "
                 // right ordering
                 + "ORDER BY occ.range.start.offset"),
 
     // checks whether a set of entities occur in a range (for relation occurrences)
     @NamedQuery(name = "Occurrence.getNumberOfOccurringEntities",
-        query = "SELECT COUNT(DISTINCT e.id) "
-                + "FROM Entity e "
-                + "INNER JOIN e.occurrences occ "
-                + "WHERE e.id IN :entityIds "
+        query = "SELECT COUNT(DISTINCT occ.entityId) "
+                + "FROM Occurrence occ "
+                + "WHERE occ.entityId IN :entityIds "
+                // range checks
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd "),
+
+    // gets which of a set of entities occur in a range
+    @NamedQuery(name = "Occurrence.getOccurringEntityIds",
+        query = "SELECT DISTINCT occ.entityId "
+                + "FROM Occurrence occ "
+                + "WHERE occ.entityId IN :entityIds "
                 // range checks
-                + "AND occ.sentence.range.start.offset >= :rangeStart "
-                + "AND occ.sentence.range.start.offset < :rangeEnd "),
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd"),
 
     // gets the entities that occur within a given range
     @NamedQuery(name = "Occurrence.getOccurringPersons",
         query = "SELECT DISTINCT e "
-                + "FROM Person e "
-                + "INNER JOIN e.occurrences occ "
+                + "FROM Person e, Occurrence occ "
                 + "WHERE e IN :entities "
+                + "AND occ.entityId = e.id "
                 // range checks
-                + "AND occ.sentence.range.start.offset >= :rangeStart "
-                + "AND occ.sentence.range.start.offset < :rangeEnd "
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd "
                 + "GROUP BY e "
                   + "HAVING COUNT(occ) > 0.25 * ("
                     // first inner select
                     + "SELECT COUNT(occ2) "
-                    + "FROM Person p "
-                    + "INNER JOIN p.occurrences occ2 "
+                    + "FROM Person p, Occurrence occ2 "
+                    + "WHERE occ2.entityId = p.id "
                     // range checks
-                    + "WHERE occ2.sentence.range.start.offset >= :rangeStart "
-                    + "AND occ2.sentence.range.start.offset < :rangeEnd"
+                    + "AND occ2.sentenceStartOffset >= :rangeStart "
+                    + "AND occ2.sentenceStartOffset < :rangeEnd"
                   + ") / ("
                     // second inner select
                     + "SELECT COUNT(DISTINCT p) "
-                    + "FROM Person p "
-                    + "INNER JOIN p.occurrences occ2 "
+                    + "FROM Person p, Occurrence occ2 "
+                    + "WHERE occ2.entityId = p.id "
                     // range checks
-                    + "WHERE occ2.sentence.range.start.offset >= :rangeStart "
-                    + "AND occ2.sentence.range.start.offset < :rangeEnd "
+                    + "AND occ2.sentenceStartOffset >= :rangeStart "
+                    + "AND occ2.sentenceStartOffset < :rangeEnd "
                     + ")"),
 
     @NamedQuery(name = "Occurrence.getOccurringPlaces",
         query = "SELECT DISTINCT e "
-                + "FROM Place e "
-                + "INNER JOIN e.occurrences occ "
+                + "FROM Place e, Occurrence occ "
                 + "WHERE e IN :entities "
+                + "AND occ.entityId = e.id "
                 // range checks
-                + "AND occ.sentence.range.start.offset >= :rangeStart "
-                + "AND occ.sentence.range.start.offset < :rangeEnd "
+                + "AND occ.sentenceStartOffset >= :rangeStart "
+                + "AND occ.sentenceStartOffset < :rangeEnd "
                 + "GROUP BY e "
                   + "HAVING COUNT(occ) > 0.25 * ("
                     // first inner select
                     + "SELECT COUNT(occ2) "
-                    + "FROM Place p "
-                    + "INNER JOIN p.occurrences occ2 "
+                    + "FROM Place p, Occurrence occ2 "
+                    + "WHERE occ2.entityId = p.id "
                     // range checks
-                    + "WHERE occ2.sentence.range.start.offset >= :rangeStart "
-                    + "AND occ2.sentence.range.start.offset < :rangeEnd "
+                    + "AND occ2.sentenceStartOffset >= :rangeStart "
+                    + "AND occ2.sentenceStartOffset < :rangeEnd "
                   + ") / ("
                     // second inner select
                     + "SELECT COUNT(DISTINCT p) "
-                    + "FROM Place p "
-                    + "INNER JOIN p.occurrences occ2 "
+                    + "FROM Place p, Occurrence occ2 "
+                    + "WHERE occ2.entityId = p.id "
                     // range checks
-                    + "WHERE occ2.sentence.range.start.offset >= :rangeStart "
-                    + "AND occ2.sentence.range.start.offset < :rangeEnd "
+                    + "AND occ2.sentenceStartOffset >= :rangeStart "
+                    + "AND occ2.sentenceStartOffset < :rangeEnd "
                   + ")"),
 
     @NamedQuery(name = "Occurrence.findOccurrenceById",
@@ -147,17 +152,41 @@ import de.unistuttgart.vis.vita.model.document.Sentence;
                 + "FROM Occurrence occ "
                 + "WHERE occ.id = :occurrenceId"),
 
-    @NamedQuery(name = "Occurrence.getSentencesForAllEntities",
-        query = "SELECT DISTINCT sentence "
-                + "FROM Entity e, Sentence sentence "
+    // gets the offsets of all occurrences of an entity, for caching them
+    @NamedQuery(name = "Occurrence.getOffsetsForEntity",
+        query = "SELECT occ.sentenceStartOffset, occ.sentence.range.end.offset, occ.sentenceIndex, "
+                + "occ.range.start.offset, occ.range.end.offset "
+                + "FROM Occurrence occ "
+                + "WHERE occ.entityId = :entityId "
+                + "AND occ.sentenceStartOffset IS NOT NULL "
+                + "ORDER BY occ.sentenceStartOffset, occ.range.start.offset"),
+
+    // gets the offsets of all occurrences of an attribute, for caching them
+    @NamedQuery(name = "Occurrence.getOffsetsForAttribute",
+        query = "SELECT occ.sentenceStartOffset, occ.sentence.range.end.offset, occ.sentenceIndex, "
+                + "occ.range.start.offset, occ.range.end.offset "
+                + "FROM Occurrence occ, Entity e, Attribute a "
+                + "WHERE e.id = :entityId "
+                + "AND a MEMBER OF e.attributes "
+                + "AND a.id = :attributeId "
+                + "AND occ MEMBER OF a.occurrences "
+                + "AND occ.sentenceStartOffset IS NOT NULL "
+                + "ORDER BY occ.sentenceStartOffset, occ.range.start.offset"),
+
+    // finds occurrences stored before they knew the id of their entity
+    @NamedQuery(name = "Occurrence.findOccurrencesWithoutEntityId",
+        query = "SELECT e.id, occ "
+                + "FROM Entity e "
                 + "INNER JOIN e.occurrences occ "
-                + "WHERE e.id IN (:entityIds) "
-                + "AND occ.sentence = sentence "
-                + "AND sentence.range.start.offset >= :rangeStart "
-                + "AND sentence.range.start.offset < :rangeEnd "
-                + "GROUP BY sentence "
-                + "HAVING COUNT(DISTINCT e) = :entityCount "
-                + "ORDER BY sentence.index ASC")})
+                + "WHERE occ.entityId IS NULL"),
+
+    // finds occurrences stored before the position of their sentence was copied into them,
+    // including those only belonging to an attribute
+    @NamedQuery(name = "Occurrence.findOccurrencesWithoutSentencePosition",
+        query = "SELECT occ "
+                + "FROM Occurrence occ "
+                + "WHERE occ.sentenceStartOffset IS NULL "
+                + "AND occ.sentence IS NOT NULL")})
 public class OccurrenceDao extends JpaDao<Occurrence, String> {
 
   private static final String ENTITY_ID_PARAMETER    = "entityId";
@@ -165,7 +194,8 @@ public class OccurrenceDao extends JpaDao<Occurrence, String> {
   private static final String ATTRIBUTE_ID_PARAMETER = "attributeId";
   private static final String RANGE_END_PARAMETER    = "rangeEnd";
   private static final String RANGE_START_PARAMETER  = "rangeStart";
-  private static final String ENTITY_COUNT_PARAMETER = "entityCount";
+
+  private static final int MIGRATION_BATCH_SIZE = 1000;
 
   /**
    * Creates a new data access object for Occurrences using the given
@@ -313,40 +343,109 @@ public class OccurrenceDao extends JpaDao<Occurrence, String> {
   }
 
   /**
-   * Returns a list of Sentences laying in a given range, where all given entities occur together.
+   * Returns the ids of those of the given entities which occur in an also given document range.
    *
-   * @param eIds - a list of ids of Entities, which should occur together
-   * @param rangeStart - the start of the range to search in as a char offset
-   * @param rangeEnd - the end of the range to search in as a char offset
-   * @return list of Sentences where the given entities occur together
+   * @param eIds
+   *          - the ids of entities which should be checked
+   * @param rangeStart
+   *          - the start of the document range to search in
+   * @param rangeEnd
+   *          - the end of the document range to search in
+   * @return the ids of the entities occurring in the range, in no particular order
    */
-  public List<Sentence> getSentencesForAllEntities(List<String> eIds, int rangeStart, int rangeEnd) {
-    TypedQuery<Sentence> query = em.createNamedQuery("Occurrence.getSentencesForAllEntities",
-                                                     Sentence.class);
+  public List<String> getOccurringEntityIds(List<String> eIds, int rangeStart, int rangeEnd) {
+    if (eIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    TypedQuery<String> query = em.createNamedQuery("Occurrence.getOccurringEntityIds",
+                                                   String.class);
     query.setParameter(ENTITY_IDS_PARAMETER, eIds);
     query.setParameter(RANGE_START_PARAMETER, rangeStart);
     query.setParameter(RANGE_END_PARAMETER, rangeEnd);
-    query.setParameter(ENTITY_COUNT_PARAMETER, (long)eIds.size());
     return query.getResultList();
   }
 
   /**
-   * Returns true if there are Sentences in a given range, in which all the given Entities occur.
+   * Returns the offsets of all Occurrences of an Entity, sorted by the start of their sentences.
    *
-   * @param eIds - the List of entity ids, for which sentences should be found
-   * @param rangeStart - the start of the range to search in as a char offset
-   * @param rangeEnd - the end of the range to search in as a char offset
-   * @return true if there are Sentences, false otherwise
+   * @param entityId - the id of the entity which Occurrences should be found
+   * @return for each Occurrence the start offset, end offset and index of its sentence, followed by
+   *         its own start and end offset, in the column order expected by OccurrenceOffsets
    */
-  public boolean hasSentencesForAllEntities(List<String> eIds, int rangeStart, int rangeEnd) {
-    TypedQuery<Sentence> query = em.createNamedQuery("Occurrence.getSentencesForAllEntities",
-                                                     Sentence.class);
-    query.setParameter(ENTITY_IDS_PARAMETER, eIds);
-    query.setParameter(RANGE_START_PARAMETER, rangeStart);
-    query.setParameter(RANGE_END_PARAMETER, rangeEnd);
-    query.setParameter(ENTITY_COUNT_PARAMETER, (long)eIds.size());
-    query.setMaxResults(1);
-    return !query.getResultList().isEmpty();
+  public List<Object[]> findOccurrenceOffsetsForEntity(String entityId) {
+    TypedQuery<Object[]> query = em.createNamedQuery("Occurrence.getOffsetsForEntity",
+                                                     Object[].class);
+    query.setParameter(ENTITY_ID_PARAMETER, entityId);
+    return query.getResultList();
+  }
+
+  /**
+   * Returns the offsets of all Occurrences of an Attribute, sorted by the start of their sentences.
+   *
+   * @param entityId - the id of the entity with this attribute
+   * @param attrId - the id of the attribute which Occurrences should be found
+   * @return for each Occurrence the start offset, end offset and index of its sentence, followed by
+   *         its own start and end offset, in the column order expected by OccurrenceOffsets
+   */
+  public List<Object[]> findOccurrenceOffsetsForAttribute(String entityId, String attrId) {
+    TypedQuery<Object[]> query = em.createNamedQuery("Occurrence.getOffsetsForAttribute",
+                                                     Object[].class);
+    query.setParameter(ENTITY_ID_PARAMETER, entityId);
+    query.setParameter(ATTRIBUTE_ID_PARAMETER, attrId);
+    return query.getResultList();
+  }
+
+  /**
+   * Copies the entity id into all occurrences of entities which have been stored without it. The
+   * changes are flushed in batches and the persistence context is cleared.
+   *
+   * @return the number of updated occurrences
+   */
+  public int fillMissingEntityIds() {
+    TypedQuery<Object[]> query = em.createNamedQuery("Occurrence.findOccurrencesWithoutEntityId",
+                                                     Object[].class);
+    query.setMaxResults(MIGRATION_BATCH_SIZE);
+
+    int count = 0;
+    List<Object[]> rows = query.getResultList();
+    while (!rows.isEmpty()) {
+      for (Object[] row : rows) {
+        ((Occurrence) row[1]).setEntityId((String) row[0]);
+      }
+      count += rows.size();
+      em.flush();
+      em.clear();
+      rows = query.getResultList();
+    }
+    return count;
+  }
+
+  /**
+   * Copies the index and start offset of the sentence into all occurrences which have been stored
+   * without them, regardless of whether they belong to an entity or only to an attribute. The
+   * changes are flushed in batches and the persistence context is cleared.
+   *
+   * @return the number of updated occurrences
+   */
+  public int fillMissingSentencePositions() {
+    TypedQuery<Occurrence> query = em.createNamedQuery(
+        "Occurrence.findOccurrencesWithoutSentencePosition", Occurrence.class);
+    query.setMaxResults(MIGRATION_BATCH_SIZE);
+
+    int count = 0;
+    List<Occurrence> occurrences = query.getResultList();
+    while (!occurrences.isEmpty()) {
+      for (Occurrence occurrence : occurrences) {
+        // setting the sentence again copies its position
+        occurrence.setSentence(occurrence.getSentence());
+      }
+      count += occurrences.size();
+      em.flush();
+      em.clear();
+      occurrences = query.getResultList();
+    }
+    return count;
   }
 
 }
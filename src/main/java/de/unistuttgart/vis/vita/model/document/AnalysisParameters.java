@@ -6,6 +6,7 @@ import de.unistuttgart.vis.vita.analysis.annotations.Label;
 import de.unistuttgart.vis.vita.analysis.modules.StopWordList;
 import de.unistuttgart.vis.vita.model.entity.AbstractEntityBase;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Lob;
 import javax.validation.constraints.Max;
@@ -27,6 +28,24 @@ public class AnalysisParameters extends AbstractEntityBase {
   @Max(1000)
   private int relationTimeStepCount = 20;
 
+  @XmlElement
+  @Description("Whether the distance of related persons and places is measured in sentences or in"
+      + " characters")
+  @Label("Relation window unit")
+  @Default("sentences")
+  // the ordinal of SENTENCES, for parameters stored before the window could be chosen
+  @Column(columnDefinition = "integer default 0")
+  private EnumRelationWindow relationWindow = EnumRelationWindow.SENTENCES;
+
+  @XmlElement
+  @Description("Persons and places are related if they occur within this distance; 1 sentence means"
+      + " they have to occur in the same sentence")
+  @Label("Relation window size")
+  @Min(1)
+  @Max(10000)
+  @Column(columnDefinition = "integer default 1")
+  private int relationWindowSize = 1;
+
   @XmlElement
   @Description("The number of items visualized in the word cloud.")
   @Label("Word Cloud items")
@@ -105,6 +124,39 @@ public class AnalysisParameters extends AbstractEntityBase {
     this.relationTimeStepCount = relationTimeStepCount;
   }
 
+  /**
+   * @return the unit of the window in which entities are related, sentences if none is set
+   */
+  public EnumRelationWindow getRelationWindow() {
+    return relationWindow != null ? relationWindow : EnumRelationWindow.SENTENCES;
+  }
+
+  /**
+   * Sets the unit of the window in which entities are related.
+   *
+   * @param relationWindow - sentences or characters
+   */
+  public void setRelationWindow(EnumRelationWindow relationWindow) {
+    this.relationWindow = relationWindow;
+  }
+
+  /**
+   * @return the size of the window in which entities are related, in the unit of
+   *         {@link #getRelationWindow()}, at least 1
+   */
+  public int getRelationWindowSize() {
+    return Math.max(relationWindowSize, 1);
+  }
+
+  /**
+   * Sets the size of the window in which entities are related.
+   *
+   * @param relationWindowSize - the number of sentences or characters
+   */
+  public void setRelationWindowSize(int relationWindowSize) {
+    this.relationWindowSize = relationWindowSize;
+  }
+
   /**
    * @return the number of items in the word cloud
    */
@@ -0,0 +1,38 @@
+/*
+ * EnumRelationWindow.java
+ *
+ */
+
+package de.unistuttgart.vis.vita.model.document;
+
+import de.unistuttgart.vis.vita.analysis.annotations.Label;
+
+import javax.xml.bind.annotation.XmlEnum;
+import javax.xml.bind.annotation.XmlEnumValue;
+
+/**
+ * The possible units of the window in which entities are considered related.
+ */
+@XmlEnum
+public enum EnumRelationWindow {
+  @XmlEnumValue("sentences")
+  @Label("Sentences")
+  SENTENCES("sentences"),
+
+  @XmlEnumValue("characters")
+  @Label("Characters")
+  CHARACTERS("characters");
+
+  private final String name;
+
+  EnumRelationWindow(String parameterName) {
+    this.name = parameterName;
+  }
+
+  /**
+   * @return the name of the window unit
+   */
+  public String getName() {
+    return name;
+  }
+}
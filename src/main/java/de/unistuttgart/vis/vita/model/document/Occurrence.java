@@ -2,11 +2,15 @@ package de.unistuttgart.vis.vita.model.document;
 
 
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.xml.bind.annotation.XmlTransient;
 
 import org.apache.commons.lang.builder.HashCodeBuilder;
 
@@ -15,17 +19,32 @@ import de.unistuttgart.vis.vita.model.entity.AbstractEntityBase;
 /**
  * Defines the bounds of a text block (the Place, Person,... the Occurrence belongs to) as Range and
  * the sentence this block is located in. Is not aware of the actual text within the bounds.
+ * <p>
+ * The id of the entity and the position of the sentence are copied into the occurrence, so that
+ * the occurrences of entities in a range can be found without joining entities and sentences.
  */
 @Entity
-@Table(indexes = {@Index(columnList = "range.start.offset"), @Index(columnList = "range.end.offset")})
+@Table(indexes = {@Index(columnList = "range.start.offset"), @Index(columnList = "range.end.offset"),
+    @Index(columnList = "entityId, sentenceStartOffset"), @Index(columnList = "sentenceStartOffset")})
 public class Occurrence extends AbstractEntityBase implements Comparable<Occurrence> {
 
-  @ManyToOne(cascade = CascadeType.ALL)
+  // Sentences are shared by many occurrences, so detaching an occurrence must not detach them
+  @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REMOVE,
+      CascadeType.REFRESH})
   private Sentence sentence;
 
   @Embedded
   private Range range;
 
+  @Column(name = "entityId")
+  private String entityId;
+
+  @Column(name = "sentenceIndex")
+  private Integer sentenceIndex;
+
+  @Column(name = "sentenceStartOffset")
+  private Integer sentenceStartOffset;
+
   /**
    * Creates a new Occurrence.
    */
@@ -49,6 +68,7 @@ public class Occurrence extends AbstractEntityBase implements Comparable<Occurre
 
     this.sentence = sentence;
     this.range = range;
+    updateSentencePosition();
   }
 
   /**
@@ -71,6 +91,46 @@ public class Occurrence extends AbstractEntityBase implements Comparable<Occurre
     }
 
     this.sentence = sentence;
+    updateSentencePosition();
+  }
+
+  /**
+   * Gets the id of the entity this Occurrence belongs to. It is set when the entity is persisted.
+   *
+   * @return the id of the entity, or null if it is not known
+   */
+  @XmlTransient
+  public String getEntityId() {
+    return entityId;
+  }
+
+  /**
+   * Sets the id of the entity this Occurrence belongs to.
+   *
+   * @param entityId - the id of the entity
+   */
+  public void setEntityId(String entityId) {
+    this.entityId = entityId;
+  }
+
+  /**
+   * Gets the index of the sentence within the document, as stored with this Occurrence.
+   *
+   * @return the index of the sentence, or null if there is no sentence
+   */
+  @XmlTransient
+  public Integer getSentenceIndex() {
+    return sentenceIndex;
+  }
+
+  /**
+   * Gets the global start offset of the sentence, as stored with this Occurrence.
+   *
+   * @return the start offset of the sentence, or null if there is no sentence
+   */
+  @XmlTransient
+  public Integer getSentenceStartOffset() {
+    return sentenceStartOffset;
   }
 
   /**
@@ -95,6 +155,30 @@ public class Occurrence extends AbstractEntityBase implements Comparable<Occurre
     this.range = range;
   }
 
+  /**
+   * Copies the index and the start offset of the sentence, also before the Occurrence is
+   * persisted, in case the sentence has changed in the meantime.
+   */
+  @PrePersist
+  private void updateSentencePosition() {
+    if (sentence == null) {
+      return;
+    }
+    sentenceIndex = sentence.getIndex();
+    TextPosition sentenceStart = sentence.getRange().getStart();
+    sentenceStartOffset = sentenceStart != null ? sentenceStart.getOffset() : null;
+  }
+
+  /**
+   * Fills in the sentence position of Occurrences stored before it was copied.
+   */
+  @PreUpdate
+  private void updateMissingSentencePosition() {
+    if (sentenceStartOffset == null) {
+      updateSentencePosition();
+    }
+  }
+
   @Override
   public int compareTo(Occurrence otherOccurrence) {
     return range.compareTo(otherOccurrence.getRange());
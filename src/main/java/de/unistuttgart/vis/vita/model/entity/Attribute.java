@@ -3,7 +3,9 @@ package de.unistuttgart.vis.vita.model.entity;
 import java.util.ArrayList;
 import java.util.List;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.CascadeType;
@@ -119,20 +121,22 @@ public class Attribute extends AbstractEntityBase {
    * @return set of different attributes with merged occurrences
    */
   public static Set<Attribute> merge(Iterable<Attribute> attributes) {
+    Map<AttributeType, Map<String, Attribute>> attributesByType = new HashMap<>();
     Set<Attribute> result = new HashSet<>();
     for (Attribute attr : attributes) {
-      boolean exists = false;
-      for (Attribute existing : result) {
-        if (existing.getType() == attr.getType()
-            && existing.getContent().equals(attr.getContent())) {
-          existing.getOccurrences().addAll(attr.getOccurrences());
-          exists = true;
-          break;
-        }
+      Map<String, Attribute> attributesByContent = attributesByType.get(attr.getType());
+      if (attributesByContent == null) {
+        attributesByContent = new HashMap<>();
+        attributesByType.put(attr.getType(), attributesByContent);
       }
-      if (!exists) {
+
+      Attribute existing = attributesByContent.get(attr.getContent());
+      if (existing != null) {
+        existing.getOccurrences().addAll(attr.getOccurrences());
+      } else {
         Attribute newAttr = new Attribute(attr.getType(), attr.getContent());
         newAttr.getOccurrences().addAll(attr.getOccurrences());
+        attributesByContent.put(attr.getContent(), newAttr);
         result.add(newAttr);
       }
     }
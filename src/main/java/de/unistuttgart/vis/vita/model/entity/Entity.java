@@ -14,6 +14,7 @@ import javax.persistence.Inheritance;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.OrderBy;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -141,6 +142,17 @@ public abstract class Entity extends AbstractEntityBase {
     return occurrences;
   }
 
+  /**
+   * Marks the occurrences with the id of this entity before it is persisted, so that they can be
+   * queried without joining the entities.
+   */
+  @PrePersist
+  private void updateOccurrenceEntityIds() {
+    for (Occurrence occurrence : occurrences) {
+      occurrence.setEntityId(getId());
+    }
+  }
+
   /**
    * @return a Set of all relations to other entities
    */
@@ -5,6 +5,7 @@ import javax.persistence.Column;
 import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 /**
  * Represents a Relation between two Entities.
@@ -24,6 +25,10 @@ public class EntityRelation extends AbstractEntityBase {
   @Basic
   private double[] weightOverTime;
 
+  // sums of weightOverTime, cumulativeWeights[i] is the sum of the first i steps
+  @Transient
+  private double[] cumulativeWeights;
+
   @ManyToOne
   private Entity originEntity;
 
@@ -131,13 +136,30 @@ public class EntityRelation extends AbstractEntityBase {
       value += weightOverTime[endIndex] * lastIndexFactor;
     }
 
-    for (int i = startIndex; i < endIndex; i++) {
-      value += weightOverTime[i];
+    if (startIndex < endIndex) {
+      double[] sums = getCumulativeWeights();
+      value += sums[endIndex] - sums[startIndex];
     }
 
     return value / (end - start) / weightOverTime.length;
   }
 
+  /**
+   * Gets the sums of the weights over time, computing them on first use.
+   *
+   * @return the sum of the first i steps at index i
+   */
+  private double[] getCumulativeWeights() {
+    if (cumulativeWeights == null) {
+      double[] sums = new double[weightOverTime.length + 1];
+      for (int i = 0; i < weightOverTime.length; i++) {
+        sums[i + 1] = sums[i] + weightOverTime[i];
+      }
+      cumulativeWeights = sums;
+    }
+    return cumulativeWeights;
+  }
+
   /**
    * Sets the weight of the relation over time to the given array.
    *
@@ -145,6 +167,7 @@ public class EntityRelation extends AbstractEntityBase {
    */
   public void setWeightOverTime(double[] steps) {
     this.weightOverTime = steps.clone();
+    this.cumulativeWeights = null;
   }
 
 }
@@ -42,6 +42,22 @@ public class AnalysisProgress extends AbstractEntityBase {
     status = AnalysisStatus.READY;
   }
 
+  /**
+   * Creates a copy of the given AnalysisProgress, copying the FeatureProgresses as well. The copy
+   * is not persisted.
+   *
+   * @param other - the progress to copy
+   */
+  public AnalysisProgress(AnalysisProgress other) {
+    this.graphViewProgress = new FeatureProgress(other.graphViewProgress);
+    this.wordCloudProgress = new FeatureProgress(other.wordCloudProgress);
+    this.placesProgress = new FeatureProgress(other.placesProgress);
+    this.personsProgress = new FeatureProgress(other.personsProgress);
+    this.fingerPrintProgress = new FeatureProgress(other.fingerPrintProgress);
+    this.textProgress = new FeatureProgress(other.textProgress);
+    this.status = other.status;
+  }
+
   /**
    * @return the progress of the GraphView feature
    */
@@ -32,6 +32,17 @@ public class FeatureProgress {
     setReady(pReady);
   }
 
+  /**
+   * Creates a copy of the given FeatureProgress.
+   *
+   * @param other - the progress to copy
+   */
+  public FeatureProgress(FeatureProgress other) {
+    this.progress = other.progress;
+    this.isReady = other.isReady;
+    this.isFailed = other.isFailed;
+  }
+
   /**
    * Gets the progress of this feature
    *
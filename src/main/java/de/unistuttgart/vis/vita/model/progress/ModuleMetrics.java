@@ -0,0 +1,213 @@
+package de.unistuttgart.vis.vita.model.progress;
+
+import java.util.Date;
+
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import de.unistuttgart.vis.vita.model.entity.AbstractEntityBase;
+
+/**
+ * Records how long a single analysis module took for a document and how big the input was, so that
+ * performance regressions can be tracked over time.
+ */
+@Entity
+@Table(indexes = {@Index(columnList = "documentId"), @Index(columnList = "moduleName")})
+@XmlRootElement
+public class ModuleMetrics extends AbstractEntityBase {
+  private String documentId;
+  private String moduleName;
+  private double weight;
+  private long durationMillis;
+  private long predictedDurationMillis;
+  private int characterCount;
+  private int chapterCount;
+  private int annotationCount;
+  private long peakHeapDeltaBytes;
+
+  @Temporal(TemporalType.TIMESTAMP)
+  private Date recordDate;
+
+  /**
+   * Creates a new instance of ModuleMetrics, recorded now.
+   */
+  public ModuleMetrics() {
+    recordDate = new Date();
+  }
+
+  /**
+   * @return the id of the analyzed document
+   */
+  @XmlElement
+  public String getDocumentId() {
+    return documentId;
+  }
+
+  /**
+   * Sets the id of the analyzed document.
+   *
+   * @param documentId - the id of the document
+   */
+  public void setDocumentId(String documentId) {
+    this.documentId = documentId;
+  }
+
+  /**
+   * @return the fully qualified class name of the module
+   */
+  @XmlElement(name = "module")
+  public String getModuleName() {
+    return moduleName;
+  }
+
+  /**
+   * Sets the class name of the module.
+   *
+   * @param moduleName - the fully qualified class name of the module
+   */
+  public void setModuleName(String moduleName) {
+    this.moduleName = moduleName;
+  }
+
+  /**
+   * @return the weight declared by the module
+   */
+  @XmlElement
+  public double getWeight() {
+    return weight;
+  }
+
+  /**
+   * Sets the weight declared by the module.
+   *
+   * @param weight - the weight of the module
+   */
+  public void setWeight(double weight) {
+    this.weight = weight;
+  }
+
+  /**
+   * @return the time the module has been running in milliseconds
+   */
+  @XmlElement(name = "duration")
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  /**
+   * Sets the time the module has been running.
+   *
+   * @param durationMillis - the duration in milliseconds
+   */
+  public void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+
+  /**
+   * @return the duration predicted from the weight of the module in milliseconds
+   */
+  @XmlElement(name = "predictedDuration")
+  public long getPredictedDurationMillis() {
+    return predictedDurationMillis;
+  }
+
+  /**
+   * Sets the duration predicted from the weight of the module.
+   *
+   * @param predictedDurationMillis - the predicted duration in milliseconds
+   */
+  public void setPredictedDurationMillis(long predictedDurationMillis) {
+    this.predictedDurationMillis = predictedDurationMillis;
+  }
+
+  /**
+   * @return the number of characters of the document known when the module started
+   */
+  @XmlElement(name = "characters")
+  public int getCharacterCount() {
+    return characterCount;
+  }
+
+  /**
+   * Sets the number of characters of the document known when the module started.
+   *
+   * @param characterCount - the number of characters
+   */
+  public void setCharacterCount(int characterCount) {
+    this.characterCount = characterCount;
+  }
+
+  /**
+   * @return the number of chapters of the document known when the module started
+   */
+  @XmlElement(name = "chapters")
+  public int getChapterCount() {
+    return chapterCount;
+  }
+
+  /**
+   * Sets the number of chapters of the document known when the module started.
+   *
+   * @param chapterCount - the number of chapters
+   */
+  public void setChapterCount(int chapterCount) {
+    this.chapterCount = chapterCount;
+  }
+
+  /**
+   * @return the number of NLP annotations known when the module started
+   */
+  @XmlElement(name = "annotations")
+  public int getAnnotationCount() {
+    return annotationCount;
+  }
+
+  /**
+   * Sets the number of NLP annotations known when the module started.
+   *
+   * @param annotationCount - the number of annotations
+   */
+  public void setAnnotationCount(int annotationCount) {
+    this.annotationCount = annotationCount;
+  }
+
+  /**
+   * @return the approximate additional heap used by the module at its peak in bytes
+   */
+  @XmlElement(name = "peakHeapDelta")
+  public long getPeakHeapDeltaBytes() {
+    return peakHeapDeltaBytes;
+  }
+
+  /**
+   * Sets the approximate additional heap used by the module at its peak.
+   *
+   * @param peakHeapDeltaBytes - the heap delta in bytes
+   */
+  public void setPeakHeapDeltaBytes(long peakHeapDeltaBytes) {
+    this.peakHeapDeltaBytes = peakHeapDeltaBytes;
+  }
+
+  /**
+   * @return the date when these metrics have been recorded
+   */
+  @XmlElement
+  public Date getRecordDate() {
+    return new Date(recordDate.getTime());
+  }
+
+  /**
+   * Sets the date when these metrics have been recorded.
+   *
+   * @param recordDate - the date of the record
+   */
+  public void setRecordDate(Date recordDate) {
+    this.recordDate = new Date(recordDate.getTime());
+  }
+
+}
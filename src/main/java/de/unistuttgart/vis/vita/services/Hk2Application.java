@@ -1,6 +1,7 @@
 package de.unistuttgart.vis.vita.services;
 
 import de.unistuttgart.vis.vita.analysis.AnalysisController;
+import de.unistuttgart.vis.vita.services.occurrence.OccurrenceOffsetCache;
 import org.glassfish.hk2.utilities.ServiceLocatorUtilities;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import org.reflections.Reflections;
@@ -34,6 +35,7 @@ public class Hk2Application extends BaseApplication {
       bindAllManagedBeans(ANALYSIS_PACKAGE);
 
       bind(AnalysisController.class).in(Singleton.class).to(AnalysisController.class);
+      bind(OccurrenceOffsetCache.class).in(Singleton.class).to(OccurrenceOffsetCache.class);
     }
 
     /**
@@ -1,8 +1,12 @@
 package de.unistuttgart.vis.vita.services;
 
+import de.unistuttgart.vis.vita.analysis.modules.gate.GateControllerPool;
+
 /**
  * The application config used for glassfish deployment
  */
 public class MainApplication extends BaseApplication {
-
+  public MainApplication() {
+    GateControllerPool.getInstance().warmUpInBackground();
+  }
 }
@@ -1,5 +1,6 @@
 package de.unistuttgart.vis.vita.services;
 
+import de.unistuttgart.vis.vita.analysis.modules.gate.GateControllerPool;
 import de.unistuttgart.vis.vita.model.Model;
 import de.unistuttgart.vis.vita.model.StandaloneEntityManagerFactory;
 import de.unistuttgart.vis.vita.model.StandaloneModel;
@@ -12,6 +13,10 @@ import javax.persistence.EntityManager;
  * The application config used in the Main class
  */
 public class StandaloneApplication extends Hk2Application {
+  public StandaloneApplication() {
+    GateControllerPool.getInstance().warmUpInBackground();
+  }
+
   @Override protected AbstractBinder getBinder() {
     return new MainApplicationBinder();
   }
@@ -0,0 +1,61 @@
+package de.unistuttgart.vis.vita.services.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.ManagedBean;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import de.unistuttgart.vis.vita.model.dao.ModuleMetricsDao;
+import de.unistuttgart.vis.vita.services.BaseService;
+import de.unistuttgart.vis.vita.services.responses.metrics.ModuleHistogram;
+import de.unistuttgart.vis.vita.services.responses.metrics.ModuleHistogramsResponse;
+
+/**
+ * A service which aggregates the module metrics of all analyses, so performance regressions can be
+ * spotted over time.
+ */
+@Path("/metrics")
+@ManagedBean
+public class AnalysisMetricsService extends BaseService {
+
+  private ModuleMetricsDao moduleMetricsDao;
+
+  @Override public void postConstruct() {
+    super.postConstruct();
+    moduleMetricsDao = getDaoFactory().getModuleMetricsDao();
+  }
+
+  /**
+   * @return a duration histogram for each module that has ever been executed
+   */
+  @GET
+  @Path("/modules")
+  @Produces(MediaType.APPLICATION_JSON)
+  public ModuleHistogramsResponse getModuleHistograms() {
+    List<ModuleHistogram> histograms = new ArrayList<>();
+
+    // the rows are ordered by module name, so each module is a contiguous run
+    String moduleName = null;
+    List<Long> durations = new ArrayList<>();
+    long totalCharacters = 0;
+    for (Object[] row : moduleMetricsDao.findDurationsByModule()) {
+      if (moduleName != null && !moduleName.equals(row[0])) {
+        histograms.add(new ModuleHistogram(moduleName, durations, totalCharacters));
+        durations = new ArrayList<>();
+        totalCharacters = 0;
+      }
+      moduleName = (String) row[0];
+      durations.add((Long) row[1]);
+      totalCharacters += (Integer) row[2];
+    }
+    if (moduleName != null) {
+      histograms.add(new ModuleHistogram(moduleName, durations, totalCharacters));
+    }
+    return new ModuleHistogramsResponse(histograms);
+  }
+
+}
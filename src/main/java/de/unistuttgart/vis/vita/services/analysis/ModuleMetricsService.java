@@ -0,0 +1,60 @@
+package de.unistuttgart.vis.vita.services.analysis;
+
+import javax.annotation.ManagedBean;
+import javax.persistence.NoResultException;
+import javax.ws.rs.GET;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import de.unistuttgart.vis.vita.model.dao.DocumentDao;
+import de.unistuttgart.vis.vita.model.dao.ModuleMetricsDao;
+import de.unistuttgart.vis.vita.services.BaseService;
+import de.unistuttgart.vis.vita.services.responses.metrics.ModuleMetricsResponse;
+
+/**
+ * A service which provides a method to GET the recorded module metrics of a specific document.
+ */
+@ManagedBean
+public class ModuleMetricsService extends BaseService {
+
+  private String documentId;
+
+  private DocumentDao documentDao;
+
+  private ModuleMetricsDao moduleMetricsDao;
+
+  @Override public void postConstruct() {
+    super.postConstruct();
+    documentDao = getDaoFactory().getDocumentDao();
+    moduleMetricsDao = getDaoFactory().getModuleMetricsDao();
+  }
+
+  /**
+   * Sets the id of the document whose module metrics should be provided
+   * @param id the id
+   * @return this
+   */
+  public ModuleMetricsService setDocumentId(String id) {
+    this.documentId = id;
+    return this;
+  }
+
+  /**
+   * @return the metrics of all modules that have finished during the analysis of the document
+   */
+  @GET
+  @Produces(MediaType.APPLICATION_JSON)
+  public ModuleMetricsResponse getMetrics() {
+    // Make sure the document exists
+    try {
+      documentDao.findById(documentId);
+    } catch (NoResultException e) {
+      throw new WebApplicationException(e, Response.status(Response.Status.NOT_FOUND).build());
+    }
+
+    return new ModuleMetricsResponse(moduleMetricsDao.findMetricsForDocument(documentId));
+  }
+
+}
@@ -8,7 +8,6 @@ package de.unistuttgart.vis.vita.services.analysis;
 import de.unistuttgart.vis.vita.analysis.annotations.Description;
 import de.unistuttgart.vis.vita.analysis.annotations.Label;
 import de.unistuttgart.vis.vita.model.document.AnalysisParameters;
-import de.unistuttgart.vis.vita.model.document.EnumNLP;
 import de.unistuttgart.vis.vita.services.BaseService;
 import de.unistuttgart.vis.vita.services.responses.parameters.AbstractParameter;
 import de.unistuttgart.vis.vita.services.responses.parameters.BooleanParameter;
@@ -61,7 +60,7 @@ public class ParametersService extends BaseService {
         parameter = new StringParameter(field.getName());
       } else if (field.getType() == int.class || field.getType() == long.class) {
         parameter = createIntParameter(field);
-      } else if (field.getType() == EnumNLP.class) {
+      } else if (field.getType().isEnum()) {
         parameter = createEnumParameter(field);
       } else {
         continue;
@@ -104,13 +103,13 @@ public class ParametersService extends BaseService {
   /**
    * Creates a enum parameter from the field.
    * 
-   * @param field - The field of type EnumNLP.
+   * @param field - The field of an enum type, e.g. EnumNLP.
    * @return The enum Parameter
    */
   private AbstractParameter createEnumParameter(Field field){
     AbstractParameter parameter = new EnumParameter(field.getName(), "enum");
     EnumParameter temp = (EnumParameter) parameter;
-    EnumNLP[] enumConstants = (EnumNLP[]) field.getType().getEnumConstants();
+    Enum<?>[] enumConstants = (Enum<?>[]) field.getType().getEnumConstants();
     temp.addValues(Arrays.asList(enumConstants));
     return parameter;
   }
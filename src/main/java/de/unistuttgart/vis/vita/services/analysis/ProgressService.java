@@ -1,26 +1,52 @@
 package de.unistuttgart.vis.vita.services.analysis;
 
+import de.unistuttgart.vis.vita.analysis.LiveProgressRegistry;
+import de.unistuttgart.vis.vita.analysis.LiveProgressRegistry.ChangeListener;
 import de.unistuttgart.vis.vita.model.dao.DocumentDao;
 import de.unistuttgart.vis.vita.model.document.Document;
 import de.unistuttgart.vis.vita.model.progress.AnalysisProgress;
+import de.unistuttgart.vis.vita.model.progress.FeatureProgress;
 import de.unistuttgart.vis.vita.services.BaseService;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.ManagedBean;
 import javax.persistence.NoResultException;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 /**
  * A service which provides a method to GET the analysis progress for a specific document.
+ * <p>
+ * The progress of running analyses is served from the {@link LiveProgressRegistry} without
+ * accessing the data base. Responses carry an ETag; if the client sends it as If-None-Match, the
+ * service answers 304 Not Modified, or waits up to "wait" seconds for the next change.
  */
 @ManagedBean
 public class ProgressService extends BaseService {
-  
+
+  /**
+   * The maximum time in seconds a request waits for a change of the progress
+   */
+  public static final int MAX_WAIT_SECONDS = 30;
+
   private String documentId;
 
   private DocumentDao documentDao;
 
+  private LiveProgressRegistry progressRegistry = LiveProgressRegistry.getInstance();
+
   @Override public void postConstruct() {
     super.postConstruct();
     documentDao = getDaoFactory().getDocumentDao();
@@ -35,21 +61,77 @@ public class ProgressService extends BaseService {
     this.documentId = id;
     return this;
   }
-  
+
   /**
-   * @return the progress of the analysis of the current document.
+   * Responds with the progress of the analysis of the current document.
+   *
+   * @param ifNoneMatch the ETag of the progress the client already knows, or null
+   * @param waitSeconds the time to wait for a change if the client already knows the progress
+   * @param asyncResponse the response to resume with the progress
    */
   @GET
-  public AnalysisProgress getProgress() {
+  public void getProgress(@HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+      @QueryParam("wait") @DefaultValue("0") int waitSeconds,
+      @Suspended final AsyncResponse asyncResponse) {
+    AnalysisProgress liveProgress = progressRegistry.getProgress(documentId);
+    AnalysisProgress progress;
+    try {
+      progress = liveProgress != null ? liveProgress : loadProgress();
+    } catch (WebApplicationException e) {
+      asyncResponse.resume(e);
+      return;
+    }
+
+    final EntityTag entityTag = getEntityTag(progress);
+    if (ifNoneMatch == null || !ifNoneMatch.equals(entityTag.toString())) {
+      asyncResponse.resume(Response.ok(progress).tag(entityTag).build());
+      return;
+    }
+
+    if (waitSeconds <= 0) {
+      asyncResponse.resume(Response.notModified(entityTag).build());
+      return;
+    }
+
+    final ChangeListener listener = new ChangeListener() {
+      @Override
+      public void onChange(AnalysisProgress newProgress) {
+        try {
+          AnalysisProgress changedProgress = newProgress != null ? newProgress : loadProgress();
+          asyncResponse.resume(
+              Response.ok(changedProgress).tag(getEntityTag(changedProgress)).build());
+        } catch (WebApplicationException e) {
+          asyncResponse.resume(e);
+        }
+      }
+    };
+    asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+      @Override
+      public void handleTimeout(AsyncResponse response) {
+        progressRegistry.removeChangeListener(documentId, listener);
+        response.resume(Response.notModified(entityTag).build());
+      }
+    });
+    asyncResponse.setTimeout(Math.min(waitSeconds, MAX_WAIT_SECONDS), TimeUnit.SECONDS);
+    progressRegistry.addChangeListener(documentId, liveProgress, listener);
+  }
+
+  /**
+   * Loads the progress from the data base
+   *
+   * @return the persisted progress
+   * @throws WebApplicationException with 404 if the document does not exist
+   */
+  private AnalysisProgress loadProgress() {
     // Make sure the document exists
     Document doc;
-    
+
     try {
       doc = documentDao.findById(documentId);
     } catch (NoResultException e) {
       throw new WebApplicationException(e, Response.status(Response.Status.NOT_FOUND).build());
     }
-    
+
     // Right after document creation, the progress is not persisted. It is assumed to be zero.
     if (doc.getProgress() == null) {
       return new AnalysisProgress();
@@ -58,4 +140,29 @@ public class ProgressService extends BaseService {
     return doc.getProgress();
   }
 
+  /**
+   * Computes an ETag which only depends on the values of the progress, so that the progress read
+   * from the data base has the same tag as the equal progress kept in memory
+   *
+   * @param progress the progress
+   * @return the tag
+   */
+  static EntityTag getEntityTag(AnalysisProgress progress) {
+    long hash = progress.getStatus() != null ? progress.getStatus().ordinal() + 1 : 0;
+    List<FeatureProgress> features = Arrays.asList(progress.getGraphViewProgress(),
+        progress.getWordCloudProgress(), progress.getPlacesProgress(),
+        progress.getPersonsProgress(), progress.getFingerPrintProgress(),
+        progress.getTextProgress());
+    for (FeatureProgress feature : features) {
+      if (feature == null) {
+        hash = hash * 31;
+        continue;
+      }
+      hash = hash * 31 + Double.doubleToLongBits(feature.getProgress());
+      hash = hash * 31 + (feature.isReady() ? 1 : 0);
+      hash = hash * 31 + (feature.isFailed() ? 1 : 0);
+    }
+    return new EntityTag(Long.toHexString(hash));
+  }
+
 }
@@ -36,6 +36,7 @@ import org.apache.log4j.Logger;
 
 import de.unistuttgart.vis.vita.analysis.AnalysisController;
 import de.unistuttgart.vis.vita.analysis.modules.gate.NLPConstants;
+import de.unistuttgart.vis.vita.analysis.modules.gate.NLPResultCache;
 import de.unistuttgart.vis.vita.model.Model;
 import de.unistuttgart.vis.vita.model.dao.DocumentDao;
 import de.unistuttgart.vis.vita.model.document.AnalysisParameters;
@@ -43,11 +44,13 @@ import de.unistuttgart.vis.vita.model.document.Document;
 import de.unistuttgart.vis.vita.services.BaseService;
 import de.unistuttgart.vis.vita.services.WordCloudService;
 import de.unistuttgart.vis.vita.services.analysis.AnalysisService;
+import de.unistuttgart.vis.vita.services.analysis.ModuleMetricsService;
 import de.unistuttgart.vis.vita.services.analysis.ProgressService;
 import de.unistuttgart.vis.vita.services.entity.EntitiesService;
 import de.unistuttgart.vis.vita.services.entity.PersonsService;
 import de.unistuttgart.vis.vita.services.entity.PlacesService;
 import de.unistuttgart.vis.vita.services.entity.PlotViewService;
+import de.unistuttgart.vis.vita.services.occurrence.OccurrenceOffsetCache;
 import de.unistuttgart.vis.vita.services.requests.DocumentRenameRequest;
 import de.unistuttgart.vis.vita.services.responses.DocumentIdResponse;
 import de.unistuttgart.vis.vita.services.search.SearchInDocumentService;
@@ -70,6 +73,9 @@ public class DocumentService extends BaseService {
   @Inject
   ProgressService progressService;
 
+  @Inject
+  ModuleMetricsService moduleMetricsService;
+
   @Inject
   ChapterService chapterService;
 
@@ -100,6 +106,9 @@ public class DocumentService extends BaseService {
   @Inject
   private Model model;
 
+  @Inject
+  private OccurrenceOffsetCache offsetCache;
+
   @Override
   public void postConstruct() {
     super.postConstruct();
@@ -177,6 +186,8 @@ public class DocumentService extends BaseService {
 
       // then remove it from the database
       documentDao.remove(byId);
+      getDaoFactory().getModuleMetricsDao().deleteMetricsForDocument(id);
+      offsetCache.evict(id);
       List<Document> sameTitle = documentDao.findDocumentsByFilename(byId.getFileName());
 
       if (sameTitle.isEmpty() && byId.getFilePath() != null) {
@@ -211,6 +222,9 @@ public class DocumentService extends BaseService {
     String gatedataStoreLocation = model.getGateDatastoreLocation().getLocation().toString();
 
     if (!gatedataStoreLocation.isEmpty()) {
+      NLPResultCache.forDatastoreLocation(model.getGateDatastoreLocation().getLocation())
+          .removeResultsForContent(removed.getContentID().toString());
+
       dataStore = new SerialDataStore(gatedataStoreLocation);
 
       try {
@@ -257,6 +271,16 @@ public class DocumentService extends BaseService {
     return progressService.setDocumentId(id);
   }
 
+  /**
+   * Returns the ModuleMetricsService for the current document.
+   *
+   * @return module metrics service which answers this request
+   */
+  @Path("/metrics")
+  public ModuleMetricsService getMetrics() {
+    return moduleMetricsService.setDocumentId(id);
+  }
+
   /**
    * Returns the ChapterService for the current document and given chapter id.
    *
@@ -1,7 +1,9 @@
 package de.unistuttgart.vis.vita.services.entity;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.ManagedBean;
 import javax.inject.Inject;
@@ -136,29 +138,20 @@ public class EntityRelationsService extends RangeService {
    * @return All entities which are in the given range.
    */
   private List<String> getOccurringEntitiesInRange(int startOffset, int endOffset, String eIds) {
-    List<String> occurringEntityIds = new ArrayList<>();
     List<String> entityIds = EntityRelationsUtil.convertIdStringToList(eIds);
+    Set<String> occurringIds =
+        new HashSet<>(occurrenceDao.getOccurringEntityIds(entityIds, startOffset, endOffset));
 
+    // keep the requested order
+    List<String> occurringEntityIds = new ArrayList<>();
     for (String entityId : entityIds) {
-      if (occurrsInRange(entityId, startOffset, endOffset)) {
+      if (occurringIds.contains(entityId)) {
         occurringEntityIds.add(entityId);
       }
     }
     return occurringEntityIds;
   }
 
-  /**
-   * Checks whether the given Entity has an Occurrence in the given Range.
-   * 
-   * @param entityId - The id of the entity.
-   * @param startOffset - The global start of the Range.
-   * @param endOffset - The global end of the Range.
-   * @return true: there is at least one Occurrence. false: there is no Occurrence.
-   */
-  private boolean occurrsInRange(String entityId, int startOffset, int endOffset) {
-    return (long) occurrenceDao.getNumberOfOccurrencesForEntity(entityId, startOffset, endOffset) > 0;
-  }
-
   /**
    * Reads EntityRelations with given ids from the database.
    * 
@@ -193,8 +186,9 @@ public class EntityRelationsService extends RangeService {
       double rangeStart, double rangeEnd) {
     List<RelationConfiguration> configurations = new ArrayList<>();
     for (EntityRelation entityRelation : relations) {
-      if (entityRelation.getWeightForRange(rangeStart, rangeEnd) > 0) {
-        configurations.add(new RelationConfiguration(entityRelation, rangeStart, rangeEnd));
+      double weight = entityRelation.getWeightForRange(rangeStart, rangeEnd);
+      if (weight > 0) {
+        configurations.add(new RelationConfiguration(entityRelation, weight));
       }
     }
     return configurations;
@@ -3,13 +3,13 @@ package de.unistuttgart.vis.vita.services.occurrence;
 import java.util.List;
 
 import javax.annotation.ManagedBean;
+import javax.inject.Inject;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
-import de.unistuttgart.vis.vita.model.document.Occurrence;
 import de.unistuttgart.vis.vita.model.document.Range;
 import de.unistuttgart.vis.vita.services.responses.occurrence.OccurrencesResponse;
 
@@ -23,6 +23,9 @@ public class AttributeOccurrencesService extends ExtendedOccurrencesService {
 
   private String entityId;
 
+  @Inject
+  private OccurrenceOffsetCache offsetCache;
+
   /**
    * Sets the id of the document this service refers to and returns this
    * AttributeOccurrencesService.
@@ -78,18 +81,17 @@ public class AttributeOccurrencesService extends ExtendedOccurrencesService {
   
   @Override
   protected List<Range> getExactEntityOccurrences(int startOffset, int endOffset) {
-    // get the Occurrences
-    List<Occurrence> readOccurrences =
-        occurrenceDao.findOccurrencesForAttribute(entityId, attributeId, startOffset, endOffset);
-
-    // convert Occurrences into Ranges and return them
-    return Range.mergeOverlappingRanges(convertOccurrencesToRanges(readOccurrences));
+    return Range.mergeOverlappingRanges(getOffsets().getRanges(startOffset, endOffset,
+        getDocumentLength()));
   }
 
   @Override
-  protected boolean hasOccurrencesInStep(int firstSentenceIndex, int lastSentenceIndex) {
-    return occurrenceDao.getNumberOfOccurrencesForAttribute(entityId, attributeId,
-        firstSentenceIndex, lastSentenceIndex) > 0;
+  protected int[] countOccurrencesInSteps(int steps, int startOffset, int endOffset) {
+    return getOffsets().countPerStep(steps, startOffset, endOffset);
+  }
+
+  private OccurrenceOffsets getOffsets() {
+    return offsetCache.getAttributeOffsets(documentId, entityId, attributeId, occurrenceDao);
   }
 
 }
@@ -3,13 +3,13 @@ package de.unistuttgart.vis.vita.services.occurrence;
 import java.util.List;
 
 import javax.annotation.ManagedBean;
+import javax.inject.Inject;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
-import de.unistuttgart.vis.vita.model.document.Occurrence;
 import de.unistuttgart.vis.vita.model.document.Range;
 import de.unistuttgart.vis.vita.services.responses.occurrence.OccurrencesResponse;
 
@@ -21,6 +21,9 @@ public class EntityOccurrencesService extends ExtendedOccurrencesService {
 
   private String entityId;
 
+  @Inject
+  private OccurrenceOffsetCache offsetCache;
+
   /**
    * Sets the id of the document in which the current entity occurs in.
    * 
@@ -62,16 +65,17 @@ public class EntityOccurrencesService extends ExtendedOccurrencesService {
   
   @Override
   protected List<Range> getExactEntityOccurrences(int startOffset, int endOffset) {
-    // fetch the data
-    List<Occurrence> readOccurrences =
-        occurrenceDao.findOccurrencesForEntity(entityId, startOffset, endOffset);
-    return Range.mergeOverlappingRanges(convertOccurrencesToRanges(readOccurrences));
+    return Range.mergeOverlappingRanges(getOffsets().getRanges(startOffset, endOffset,
+        getDocumentLength()));
   }
 
   @Override
-  protected boolean hasOccurrencesInStep(int firstSentenceIndex, int lastSentenceIndex) {
-    return occurrenceDao.getNumberOfOccurrencesForEntity(entityId, firstSentenceIndex,
-        lastSentenceIndex) > 0;
+  protected int[] countOccurrencesInSteps(int steps, int startOffset, int endOffset) {
+    return getOffsets().countPerStep(steps, startOffset, endOffset);
+  }
+
+  private OccurrenceOffsets getOffsets() {
+    return offsetCache.getEntityOffsets(documentId, entityId, occurrenceDao);
   }
 
 }
@@ -0,0 +1,114 @@
+package de.unistuttgart.vis.vita.services.occurrence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import de.unistuttgart.vis.vita.model.dao.OccurrenceDao;
+
+/**
+ * Keeps the {@link OccurrenceOffsets} of the recently requested Entities and Attributes, so that
+ * the occurrence services do not have to load the Occurrences for each request.
+ * <p>
+ * The Occurrences of an Entity are stored together with the Entity and do not change afterwards,
+ * so the offsets are loaded once. The offsets are grouped by document, and the documents used least
+ * recently are evicted when more than {@link #MAXIMUM_DOCUMENTS} documents are cached.
+ */
+@ApplicationScoped
+public class OccurrenceOffsetCache {
+
+  static final int MAXIMUM_DOCUMENTS = 8;
+
+  private final Map<String, ConcurrentMap<String, OccurrenceOffsets>> documents =
+      new LinkedHashMap<String, ConcurrentMap<String, OccurrenceOffsets>>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(
+            Map.Entry<String, ConcurrentMap<String, OccurrenceOffsets>> eldest) {
+          return size() > MAXIMUM_DOCUMENTS;
+        }
+      };
+
+  /**
+   * Gets the offsets of all Occurrences of an Entity, loading them if they are not cached.
+   *
+   * @param documentId - the id of the document the Entity belongs to
+   * @param entityId - the id of the Entity
+   * @param occurrenceDao - the dao used to load the offsets
+   * @return the offsets of the Occurrences
+   */
+  public OccurrenceOffsets getEntityOffsets(String documentId, String entityId,
+      OccurrenceDao occurrenceDao) {
+    ConcurrentMap<String, OccurrenceOffsets> documentOffsets = getDocumentOffsets(documentId);
+    OccurrenceOffsets offsets = documentOffsets.get(entityId);
+    if (offsets == null) {
+      offsets = new OccurrenceOffsets(occurrenceDao.findOccurrenceOffsetsForEntity(entityId));
+      cache(documentOffsets, entityId, offsets);
+    }
+    return offsets;
+  }
+
+  /**
+   * Gets the offsets of all Occurrences of an Attribute, loading them if they are not cached.
+   *
+   * @param documentId - the id of the document the Entity belongs to
+   * @param entityId - the id of the Entity with this Attribute
+   * @param attributeId - the id of the Attribute
+   * @param occurrenceDao - the dao used to load the offsets
+   * @return the offsets of the Occurrences
+   */
+  public OccurrenceOffsets getAttributeOffsets(String documentId, String entityId,
+      String attributeId, OccurrenceDao occurrenceDao) {
+    ConcurrentMap<String, OccurrenceOffsets> documentOffsets = getDocumentOffsets(documentId);
+    String key = entityId + "/" + attributeId;
+    OccurrenceOffsets offsets = documentOffsets.get(key);
+    if (offsets == null) {
+      offsets = new OccurrenceOffsets(
+          occurrenceDao.findOccurrenceOffsetsForAttribute(entityId, attributeId));
+      cache(documentOffsets, key, offsets);
+    }
+    return offsets;
+  }
+
+  /**
+   * Removes all offsets of the given document.
+   *
+   * @param documentId - the id of the document
+   */
+  public synchronized void evict(String documentId) {
+    documents.remove(documentId);
+  }
+
+  /**
+   * Checks whether offsets of the given document are cached.
+   *
+   * @param documentId - the id of the document
+   * @return true if the document is cached
+   */
+  synchronized boolean isCached(String documentId) {
+    return documents.containsKey(documentId);
+  }
+
+  private synchronized ConcurrentMap<String, OccurrenceOffsets> getDocumentOffsets(
+      String documentId) {
+    ConcurrentMap<String, OccurrenceOffsets> documentOffsets = documents.get(documentId);
+    if (documentOffsets == null) {
+      documentOffsets = new ConcurrentHashMap<>();
+      documents.put(documentId, documentOffsets);
+    }
+    return documentOffsets;
+  }
+
+  private void cache(ConcurrentMap<String, OccurrenceOffsets> documentOffsets, String key,
+      OccurrenceOffsets offsets) {
+    // An unknown id yields no offsets, do not keep them in case it is stored later
+    if (!offsets.isEmpty()) {
+      documentOffsets.putIfAbsent(key, offsets);
+    }
+  }
+
+}
@@ -0,0 +1,252 @@
+package de.unistuttgart.vis.vita.services.occurrence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import de.unistuttgart.vis.vita.model.document.Range;
+import de.unistuttgart.vis.vita.model.document.TextPosition;
+
+/**
+ * The global offsets of all Occurrences of an Entity or Attribute, sorted by the start of their
+ * sentences. Like the Occurrences in the range queries, an Occurrence lies within a range if the
+ * start of its sentence does.
+ */
+public class OccurrenceOffsets {
+
+  private final int[] sentenceStarts;
+  private final int[] sentenceEnds;
+  private final int[] sentenceIndices;
+  private final int[] starts;
+  private final int[] ends;
+
+  /**
+   * Creates the offsets from the given rows.
+   *
+   * @param rows - for each Occurrence the start, end and index of its sentence followed by its own
+   *        start and end, sorted by the start of the sentence
+   */
+  public OccurrenceOffsets(List<Object[]> rows) {
+    this(rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      Object[] row = rows.get(i);
+      sentenceStarts[i] = (Integer) row[0];
+      sentenceEnds[i] = (Integer) row[1];
+      sentenceIndices[i] = (Integer) row[2];
+      starts[i] = (Integer) row[3];
+      ends[i] = (Integer) row[4];
+    }
+  }
+
+  private OccurrenceOffsets(int size) {
+    sentenceStarts = new int[size];
+    sentenceEnds = new int[size];
+    sentenceIndices = new int[size];
+    starts = new int[size];
+    ends = new int[size];
+  }
+
+  /**
+   * Finds the sentences in which all the given Occurrences occur. The Occurrences of the result
+   * span their whole sentence, each sentence is contained once.
+   * <p>
+   * The sentence starts are intersected starting with the smallest list, galloping through the
+   * others, so that the effort mostly depends on the least frequent Entity.
+   *
+   * @param offsetsList - the Occurrences of each Entity
+   * @return the common sentences, none if the list is empty
+   */
+  public static OccurrenceOffsets intersectSentences(List<OccurrenceOffsets> offsetsList) {
+    if (offsetsList.isEmpty()) {
+      return new OccurrenceOffsets(0);
+    }
+
+    OccurrenceOffsets[] sorted = offsetsList.toArray(new OccurrenceOffsets[offsetsList.size()]);
+    Arrays.sort(sorted, new Comparator<OccurrenceOffsets>() {
+      @Override
+      public int compare(OccurrenceOffsets first, OccurrenceOffsets second) {
+        return Integer.compare(first.sentenceStarts.length, second.sentenceStarts.length);
+      }
+    });
+
+    OccurrenceOffsets smallest = sorted[0];
+    OccurrenceOffsets result = new OccurrenceOffsets(smallest.sentenceStarts.length);
+    int[] positions = new int[sorted.length];
+    int count = 0;
+
+    int i = 0;
+    while (i < smallest.sentenceStarts.length) {
+      int candidate = smallest.sentenceStarts[i];
+      boolean isCommon = true;
+      for (int j = 1; j < sorted.length; j++) {
+        int[] others = sorted[j].sentenceStarts;
+        positions[j] = gallop(others, positions[j], candidate);
+        if (positions[j] == others.length) {
+          // no further common sentences
+          return result.truncate(count);
+        }
+        if (others[positions[j]] != candidate) {
+          // skip ahead to the next sentence which may be common
+          candidate = others[positions[j]];
+          isCommon = false;
+          break;
+        }
+      }
+
+      if (isCommon) {
+        result.sentenceStarts[count] = candidate;
+        result.sentenceEnds[count] = smallest.sentenceEnds[i];
+        result.sentenceIndices[count] = smallest.sentenceIndices[i];
+        result.starts[count] = candidate;
+        result.ends[count] = smallest.sentenceEnds[i];
+        count++;
+        candidate++;
+      }
+      i = gallop(smallest.sentenceStarts, i, candidate);
+    }
+    return result.truncate(count);
+  }
+
+  /**
+   * @return true if there are no Occurrences
+   */
+  public boolean isEmpty() {
+    return sentenceStarts.length == 0;
+  }
+
+  /**
+   * Returns the Ranges of the Occurrences in the given range, sorted by their start.
+   *
+   * @param startOffset - the global start offset of the range
+   * @param endOffset - the global end offset of the range, exclusive
+   * @param documentLength - the length of the document, for the progress of the Ranges
+   * @return the Ranges of the Occurrences
+   */
+  public List<Range> getRanges(int startOffset, int endOffset, int documentLength) {
+    int from = lowerBound(startOffset);
+    int to = lowerBound(endOffset);
+    List<Range> ranges = new ArrayList<>(Math.max(to - from, 0));
+    for (int i = from; i < to; i++) {
+      ranges.add(new Range(TextPosition.fromGlobalOffset(starts[i], documentLength),
+          TextPosition.fromGlobalOffset(ends[i], documentLength)));
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns the Ranges of the sentences of the Occurrences in the given range, merging adjacent
+   * sentences.
+   *
+   * @param startOffset - the global start offset of the range
+   * @param endOffset - the global end offset of the range, exclusive
+   * @param documentLength - the length of the document, for the progress of the Ranges
+   * @return the Ranges of the sentences
+   */
+  public List<Range> getSentenceRanges(int startOffset, int endOffset, int documentLength) {
+    int from = lowerBound(startOffset);
+    int to = lowerBound(endOffset);
+    List<Range> ranges = new ArrayList<>();
+    int i = from;
+    while (i < to) {
+      int last = i;
+      while (last + 1 < to && sentenceIndices[last + 1] == sentenceIndices[last] + 1) {
+        last++;
+      }
+      ranges.add(new Range(TextPosition.fromGlobalOffset(sentenceStarts[i], documentLength),
+          TextPosition.fromGlobalOffset(sentenceEnds[last], documentLength)));
+      i = last + 1;
+    }
+    return ranges;
+  }
+
+  /**
+   * Counts the Occurrences in the given range.
+   *
+   * @param startOffset - the global start offset of the range
+   * @param endOffset - the global end offset of the range, exclusive
+   * @return the number of Occurrences
+   */
+  public int count(int startOffset, int endOffset) {
+    return Math.max(lowerBound(endOffset) - lowerBound(startOffset), 0);
+  }
+
+  /**
+   * Counts the Occurrences in each step of the given range, see
+   * {@link OccurrencesService#countOccurrencesInSteps(int, int, int)}.
+   *
+   * @param steps - the number of steps, must be bigger than 0
+   * @param startOffset - the global start offset of the range
+   * @param endOffset - the global end offset of the range, exclusive
+   * @return the number of Occurrences in each step
+   */
+  public int[] countPerStep(int steps, int startOffset, int endOffset) {
+    int stepSize = (endOffset - startOffset) / steps;
+    int[] counts = new int[steps];
+    int stepStartIndex = lowerBound(startOffset);
+    for (int step = 0; step < steps; step++) {
+      int stepEnd = step == steps - 1 ? endOffset : startOffset + (stepSize * (step + 1));
+      int stepEndIndex = lowerBound(stepEnd);
+      counts[step] = stepEndIndex - stepStartIndex;
+      stepStartIndex = stepEndIndex;
+    }
+    return counts;
+  }
+
+  /**
+   * Finds the first Occurrence whose sentence does not start before the given offset.
+   *
+   * @param offset - the global offset
+   * @return the index of the Occurrence, or the number of Occurrences if there is none
+   */
+  private int lowerBound(int offset) {
+    return lowerBound(sentenceStarts, 0, sentenceStarts.length, offset);
+  }
+
+  private OccurrenceOffsets truncate(int size) {
+    if (size == sentenceStarts.length) {
+      return this;
+    }
+    OccurrenceOffsets truncated = new OccurrenceOffsets(size);
+    System.arraycopy(sentenceStarts, 0, truncated.sentenceStarts, 0, size);
+    System.arraycopy(sentenceEnds, 0, truncated.sentenceEnds, 0, size);
+    System.arraycopy(sentenceIndices, 0, truncated.sentenceIndices, 0, size);
+    System.arraycopy(starts, 0, truncated.starts, 0, size);
+    System.arraycopy(ends, 0, truncated.ends, 0, size);
+    return truncated;
+  }
+
+  /**
+   * Finds the first element not smaller than the given value, searching from the given index with
+   * doubling steps before the binary search.
+   *
+   * @param array - the sorted array
+   * @param from - the index to start at, all elements before are smaller than the value
+   * @param value - the value to search
+   * @return the index of the element, or the length of the array if there is none
+   */
+  private static int gallop(int[] array, int from, int value) {
+    int step = 1;
+    int low = from;
+    int high = from;
+    while (high < array.length && array[high] < value) {
+      low = high + 1;
+      high = from + step;
+      step *= 2;
+    }
+    return lowerBound(array, low, Math.min(high, array.length), value);
+  }
+
+  private static int lowerBound(int[] array, int low, int high, int value) {
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (array[middle] < value) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+}
@@ -45,35 +45,6 @@ public abstract class OccurrencesService extends RangeService {
     return ranges;
   }
 
-  /**
-   * Converts the occurrences to ranges of their sentences, merging adjacent sentences
-   * 
-   * @param occurrences the occurrences whose sentences are considered
-   * @return the ranges of the sentences
-   */
-  protected List<Range> mergeAdjacentSentences(List<Sentence> sentences) {
-    List<Range> newList = new ArrayList<>();
-    int lastSentenceIndex = Integer.MIN_VALUE;
-    Range currentRange = null;
-    for (Sentence sentence : sentences) {
-      if (currentRange != null && sentence.getIndex() == lastSentenceIndex + 1) {
-        // extend range
-        currentRange = new Range(currentRange.getStart(), sentence.getRange().getEnd());
-      } else {
-        if (currentRange != null) {
-          newList.add(currentRange);
-        }
-        currentRange = sentence.getRange();
-      }
-      lastSentenceIndex = sentence.getIndex();
-    }
-    if (currentRange != null) {
-      // add last range
-      newList.add(currentRange);
-    }
-    return newList;
-  }
-
   /**
    * Returns the chapter which surrounds the position with the given offset.
    *
@@ -97,7 +68,8 @@ public abstract class OccurrencesService extends RangeService {
   /**
    * For a given range and a number of equal sized parts of this range, returns all parts of the
    * range which contain at least one Occurrence (defined by
-   * {@link OccurrencesService#hasOccurrencesInStep(int, int)}). Will concatenate neighbored ranges.
+   * {@link OccurrencesService#countOccurrencesInSteps(int, int, int)}). Will concatenate neighbored
+   * ranges.
    * 
    * @param steps - The number of parts. Must be bigger than 0.
    * @param startOffset - The global start offset of the range.
@@ -108,6 +80,7 @@ public abstract class OccurrencesService extends RangeService {
     // compute sizes of range and steps
     int rangeSize = endOffset - startOffset;
     int stepSize = rangeSize / steps;
+    int[] counts = countOccurrencesInSteps(steps, startOffset, endOffset);
 
     List<Range> stepSpans = new ArrayList<>();
 
@@ -118,7 +91,7 @@ public abstract class OccurrencesService extends RangeService {
       int stepStart = startOffset + (stepSize * step);
       int stepEnd = step == steps - 1 ? endOffset : startOffset + (stepSize * (step + 1));
 
-      if (hasOccurrencesInStep(stepStart, stepEnd)) {
+      if (counts[step] > 0) {
         if (!includesLastStep) {
           // Start a new step
           includesLastStep = true;
@@ -142,13 +115,15 @@ public abstract class OccurrencesService extends RangeService {
   }
 
   /**
-   * Defines whether there is an Occurrence in a given Range or not. This defines the behavior of
+   * Counts the Occurrences in each of the equal sized parts of a given Range. All parts but the
+   * last one have the size <code>(endOffset - startOffset) / steps</code>, the last one extends to
+   * the end of the Range. This defines the behavior of
    * {@link OccurrencesService#getGranularEntityOccurrences(int, int, int)}.
    * 
+   * @param steps - The number of parts. Must be bigger than 0.
    * @param startOffset - The global start offset of the range.
    * @param endOffset - The global end offset of the range.
-   * @return true: there is at least one Occurrence in the Range. false: there is no Occurrence in
-   *         the Range.
+   * @return the number of Occurrences in each part, only compared against 0
    */
-  protected abstract boolean hasOccurrencesInStep(int startOffset, int endOffset);
+  protected abstract int[] countOccurrencesInSteps(int steps, int startOffset, int endOffset);
 }
@@ -1,5 +1,6 @@
 package de.unistuttgart.vis.vita.services.occurrence;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.annotation.ManagedBean;
@@ -11,7 +12,6 @@ import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 
 import de.unistuttgart.vis.vita.model.document.Range;
-import de.unistuttgart.vis.vita.model.document.Sentence;
 import de.unistuttgart.vis.vita.services.entity.EntityRelationsUtil;
 import de.unistuttgart.vis.vita.services.responses.occurrence.OccurrencesResponse;
 
@@ -27,6 +27,11 @@ public class RelationOccurrencesService extends ExtendedOccurrencesService {
   @Inject
   private EntityOccurrencesService entityOccurrenceService;
 
+  @Inject
+  private OccurrenceOffsetCache offsetCache;
+
+  private OccurrenceOffsets commonSentences;
+
   /**
    * The length up to which relation occurrences should be found and highlighted
    */
@@ -62,6 +67,8 @@ public class RelationOccurrencesService extends ExtendedOccurrencesService {
           .getOccurrences(steps, rangeStart, rangeEnd);
     }
 
+    commonSentences = getCommonSentences();
+
     List<Range> occs = null;
     if (steps == 0) {
       occs = getExactEntityOccurrences(startOffset, endOffset);
@@ -75,14 +82,25 @@ public class RelationOccurrencesService extends ExtendedOccurrencesService {
   
   @Override
   protected List<Range> getExactEntityOccurrences(int startOffset, int endOffset) {
-    List<Sentence> sentences = occurrenceDao.getSentencesForAllEntities(entityIds, startOffset, endOffset);
-
-    return mergeAdjacentSentences(sentences);
+    return commonSentences.getSentenceRanges(startOffset, endOffset, getDocumentLength());
   }
 
   @Override
-  protected boolean hasOccurrencesInStep(int stepStart, int stepEnd) {
-    return occurrenceDao.hasSentencesForAllEntities(entityIds, stepStart, stepEnd);
+  protected int[] countOccurrencesInSteps(int steps, int startOffset, int endOffset) {
+    return commonSentences.countPerStep(steps, startOffset, endOffset);
+  }
+
+  /**
+   * Intersects the sentences of the cached occurrences of all requested entities.
+   *
+   * @return the sentences in which all the entities occur
+   */
+  private OccurrenceOffsets getCommonSentences() {
+    List<OccurrenceOffsets> offsets = new ArrayList<>();
+    for (String entityId : entityIds) {
+      offsets.add(offsetCache.getEntityOffsets(documentId, entityId, occurrenceDao));
+    }
+    return OccurrenceOffsets.intersectSentences(offsets);
   }
 
 }
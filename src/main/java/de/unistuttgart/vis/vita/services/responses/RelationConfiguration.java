@@ -28,12 +28,24 @@ public class RelationConfiguration {
    * @param rel - the EntityRelation this RelationConfiguration should represent
    */
   public RelationConfiguration(EntityRelation rel, double rangeStart, double rangeEnd) {
+    // a missing relation is rejected by the other constructor
+    this(rel, rel != null ? rel.getWeightForRange(rangeStart, rangeEnd) : 0);
+  }
+
+  /**
+   * Creates a new RelationConfiguration storing the minimal representation of the given
+   * EntityRelation with an already computed weight.
+   *
+   * @param rel - the EntityRelation this RelationConfiguration should represent
+   * @param weight - the weight of the relation in the requested range
+   */
+  public RelationConfiguration(EntityRelation rel, double weight) {
     if (rel == null) {
       throw new IllegalArgumentException("EntityRelation must not be null!");
     }
     this.entityAId = rel.getOriginEntity().getId();
     this.entityBId = rel.getRelatedEntity().getId();
-    this.weight = rel.getWeightForRange(rangeStart, rangeEnd);
+    this.weight = weight;
   }
 
   /**
@@ -0,0 +1,184 @@
+package de.unistuttgart.vis.vita.services.responses.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Aggregates the recorded durations of a single module over all analyses into a histogram with
+ * logarithmic buckets.
+ */
+@XmlRootElement
+public class ModuleHistogram {
+
+  /**
+   * The exclusive upper bounds of the buckets in milliseconds; the last bucket is unbounded.
+   */
+  static final long[] BUCKET_UPPER_BOUNDS_MILLIS = {10, 100, 1000, 10000, 100000};
+
+  @XmlElement(name = "module")
+  private String moduleName;
+
+  @XmlElement
+  private int count;
+
+  @XmlElement(name = "minDuration")
+  private long minDurationMillis;
+
+  @XmlElement(name = "maxDuration")
+  private long maxDurationMillis;
+
+  @XmlElement(name = "meanDuration")
+  private double meanDurationMillis;
+
+  @XmlElement(name = "medianDuration")
+  private long medianDurationMillis;
+
+  @XmlElement(name = "p95Duration")
+  private long p95DurationMillis;
+
+  @XmlElement(name = "charactersPerSecond")
+  private double charactersPerSecond;
+
+  @XmlElement(name = "bucketUpperBounds")
+  private List<Long> bucketUpperBounds;
+
+  @XmlElement(name = "bucketCounts")
+  private List<Integer> bucketCounts;
+
+  /**
+   * Creates a new empty histogram.
+   */
+  public ModuleHistogram() {
+    // zero argument constructor needed
+  }
+
+  /**
+   * Creates the histogram for the given durations of a module.
+   *
+   * @param moduleName - the fully qualified class name of the module
+   * @param durations - the recorded durations of the module in milliseconds, must not be empty
+   * @param totalCharacters - the number of characters processed in all these executions
+   */
+  public ModuleHistogram(String moduleName, List<Long> durations, long totalCharacters) {
+    if (durations.isEmpty()) {
+      throw new IllegalArgumentException("durations must not be empty");
+    }
+
+    this.moduleName = moduleName;
+    this.count = durations.size();
+
+    List<Long> sortedDurations = new ArrayList<>(durations);
+    int[] counts = new int[BUCKET_UPPER_BOUNDS_MILLIS.length + 1];
+    long totalDuration = 0;
+    for (long duration : sortedDurations) {
+      totalDuration += duration;
+      counts[getBucket(duration)]++;
+    }
+    Collections.sort(sortedDurations);
+
+    minDurationMillis = sortedDurations.get(0);
+    maxDurationMillis = sortedDurations.get(sortedDurations.size() - 1);
+    meanDurationMillis = (double) totalDuration / count;
+    medianDurationMillis = getPercentile(sortedDurations, 50);
+    p95DurationMillis = getPercentile(sortedDurations, 95);
+    charactersPerSecond = totalDuration > 0 ? totalCharacters * 1000.0 / totalDuration : 0;
+
+    bucketUpperBounds = new ArrayList<>();
+    for (long bound : BUCKET_UPPER_BOUNDS_MILLIS) {
+      bucketUpperBounds.add(bound);
+    }
+    bucketCounts = new ArrayList<>();
+    for (int bucketCount : counts) {
+      bucketCounts.add(bucketCount);
+    }
+  }
+
+  private static int getBucket(long duration) {
+    for (int i = 0; i < BUCKET_UPPER_BOUNDS_MILLIS.length; i++) {
+      if (duration < BUCKET_UPPER_BOUNDS_MILLIS[i]) {
+        return i;
+      }
+    }
+    return BUCKET_UPPER_BOUNDS_MILLIS.length;
+  }
+
+  private static long getPercentile(List<Long> sortedValues, int percentile) {
+    int index = (int) Math.ceil(percentile / 100.0 * sortedValues.size()) - 1;
+    return sortedValues.get(Math.max(0, index));
+  }
+
+  /**
+   * @return the fully qualified class name of the module
+   */
+  public String getModuleName() {
+    return moduleName;
+  }
+
+  /**
+   * @return the number of recorded executions
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * @return the shortest recorded duration in milliseconds
+   */
+  public long getMinDurationMillis() {
+    return minDurationMillis;
+  }
+
+  /**
+   * @return the longest recorded duration in milliseconds
+   */
+  public long getMaxDurationMillis() {
+    return maxDurationMillis;
+  }
+
+  /**
+   * @return the average duration in milliseconds
+   */
+  public double getMeanDurationMillis() {
+    return meanDurationMillis;
+  }
+
+  /**
+   * @return the median duration in milliseconds
+   */
+  public long getMedianDurationMillis() {
+    return medianDurationMillis;
+  }
+
+  /**
+   * @return the 95th percentile of the durations in milliseconds
+   */
+  public long getP95DurationMillis() {
+    return p95DurationMillis;
+  }
+
+  /**
+   * @return the number of characters processed per second over all executions
+   */
+  public double getCharactersPerSecond() {
+    return charactersPerSecond;
+  }
+
+  /**
+   * @return the exclusive upper bounds of the buckets in milliseconds, the last bucket is unbounded
+   */
+  public List<Long> getBucketUpperBounds() {
+    return bucketUpperBounds;
+  }
+
+  /**
+   * @return the number of executions per bucket, one more than there are upper bounds
+   */
+  public List<Integer> getBucketCounts() {
+    return bucketCounts;
+  }
+
+}
@@ -0,0 +1,53 @@
+package de.unistuttgart.vis.vita.services.responses.metrics;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import de.unistuttgart.vis.vita.services.responses.AbstractListResponse;
+
+/**
+ * Holds the duration histograms of all analysis modules and their count.
+ */
+@XmlRootElement
+public class ModuleHistogramsResponse extends AbstractListResponse {
+
+  @XmlElement(name = "modules")
+  private List<ModuleHistogram> histograms;
+
+  /**
+   * Creates a new instance of ModuleHistogramsResponse, setting all attributes to default values.
+   */
+  public ModuleHistogramsResponse() {
+    // must have a non-argument constructor
+  }
+
+  /**
+   * Creates a new response including the given histograms and their count.
+   *
+   * @param histogramList - the histograms to be stored in this response
+   */
+  public ModuleHistogramsResponse(List<ModuleHistogram> histogramList) {
+    super(histogramList.size());
+    this.histograms = histogramList;
+  }
+
+  /**
+   * @return the histograms stored in this response
+   */
+  public List<ModuleHistogram> getHistograms() {
+    return histograms;
+  }
+
+  /**
+   * Sets the histograms to be stored in this response.
+   *
+   * @param histogramList - the histograms to be stored in this response
+   */
+  public void setHistograms(List<ModuleHistogram> histogramList) {
+    this.histograms = histogramList;
+    this.totalCount = histogramList.size();
+  }
+
+}
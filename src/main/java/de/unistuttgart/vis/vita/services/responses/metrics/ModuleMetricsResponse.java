@@ -0,0 +1,54 @@
+package de.unistuttgart.vis.vita.services.responses.metrics;
+
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import de.unistuttgart.vis.vita.model.progress.ModuleMetrics;
+import de.unistuttgart.vis.vita.services.responses.AbstractListResponse;
+
+/**
+ * Holds the metrics recorded for the modules of a document analysis and their count.
+ */
+@XmlRootElement
+public class ModuleMetricsResponse extends AbstractListResponse {
+
+  @XmlElement(name = "modules")
+  private List<ModuleMetrics> modules;
+
+  /**
+   * Creates a new instance of ModuleMetricsResponse, setting all attributes to default values.
+   */
+  public ModuleMetricsResponse() {
+    // must have a non-argument constructor
+  }
+
+  /**
+   * Creates a new response including the given metrics and their count.
+   *
+   * @param metricsList - the metrics to be stored in this response
+   */
+  public ModuleMetricsResponse(List<ModuleMetrics> metricsList) {
+    super(metricsList.size());
+    this.modules = metricsList;
+  }
+
+  /**
+   * @return the metrics stored in this response
+   */
+  public List<ModuleMetrics> getModules() {
+    return modules;
+  }
+
+  /**
+   * Sets the metrics to be stored in this response.
+   *
+   * @param metricsList - the metrics to be stored in this response
+   */
+  public void setModules(List<ModuleMetrics> metricsList) {
+    this.modules = metricsList;
+    this.totalCount = metricsList.size();
+  }
+
+}
@@ -6,8 +6,8 @@
 package de.unistuttgart.vis.vita.services.responses.parameters;
 
 import de.unistuttgart.vis.vita.analysis.annotations.Label;
-import de.unistuttgart.vis.vita.model.document.EnumNLP;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,18 +39,9 @@ public class EnumParameter extends AbstractParameter {
     this.values = values;
   }
 
-  public void addValues(List<EnumNLP> val) {
-    for (EnumNLP enumNLP : val) {
-      try {
-        String label = enumNLP.getClass().getField((enumNLP).name())
-            .getAnnotation(Label.class).value();
-        String name = enumNLP.getClass().getField((enumNLP).name())
-            .getAnnotation(XmlEnumValue.class).value();
-        values.add(new MetaEnumParameter(name, label));
-      } catch (NoSuchFieldException e) {
-        throw new IllegalStateException(
-            "Could not find necessary annotations for the enum parameters.", e);
-      }
+  public void addValues(List<? extends Enum<?>> val) {
+    for (Enum<?> enumValue : val) {
+      values.add(new MetaEnumParameter(getName(enumValue), getLabel(enumValue)));
     }
   }
 
@@ -61,7 +52,24 @@ public class EnumParameter extends AbstractParameter {
 
   @Override
   public void setDefaultValue(Object defaultValue) {
-    this.defaultValue = ((EnumNLP)defaultValue).getName();
+    this.defaultValue = getName((Enum<?>) defaultValue);
+  }
+
+  private static String getName(Enum<?> enumValue) {
+    return getEnumField(enumValue).getAnnotation(XmlEnumValue.class).value();
+  }
+
+  private static String getLabel(Enum<?> enumValue) {
+    return getEnumField(enumValue).getAnnotation(Label.class).value();
+  }
+
+  private static Field getEnumField(Enum<?> enumValue) {
+    try {
+      return enumValue.getDeclaringClass().getField(enumValue.name());
+    } catch (NoSuchFieldException e) {
+      throw new IllegalStateException(
+          "Could not find necessary annotations for the enum parameters.", e);
+    }
   }
 }
 
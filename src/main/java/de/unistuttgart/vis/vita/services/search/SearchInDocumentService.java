@@ -121,7 +121,19 @@ public class SearchInDocumentService extends ExtendedOccurrencesService {
   }
 
   @Override
-  protected boolean hasOccurrencesInStep(int stepStart, int stepEnd) {
+  protected int[] countOccurrencesInSteps(int steps, int startOffset, int endOffset) {
+    // the ranges are already in memory, so each step is checked on its own
+    int stepSize = (endOffset - startOffset) / steps;
+    int[] counts = new int[steps];
+    for (int step = 0; step < steps; step++) {
+      int stepStart = startOffset + (stepSize * step);
+      int stepEnd = step == steps - 1 ? endOffset : startOffset + (stepSize * (step + 1));
+      counts[step] = hasOccurrencesInStep(stepStart, stepEnd) ? 1 : 0;
+    }
+    return counts;
+  }
+
+  private boolean hasOccurrencesInStep(int stepStart, int stepEnd) {
     for (Range span : ranges) {
       if (span.getEnd().getOffset() > stepEnd){
         break;
@@ -13,6 +13,8 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
@@ -188,6 +190,70 @@ public class AnalysisControllerTest {
     assertThat(controller.isWorking(), is(true));
   }
 
+  @Test
+  public void testConcurrentAnalyses() {
+    controller = new AnalysisController(model, executorFactory, 2);
+    Path path1 = Paths.get("path/to/file.name");
+    Path path2 = Paths.get("path/to/file2.name");
+    Path path3 = Paths.get("path/to/file3.name");
+    prepareExecutor(path1);
+
+    String id1 = controller.scheduleDocumentAnalysis(path1, "file.name");
+    controller.scheduleDocumentAnalysis(path2, "file2.name");
+    controller.scheduleDocumentAnalysis(path3, "file3.name");
+
+    assertThat(controller.documentsInProgress(), is(2));
+    assertThat(controller.documentsInQueue(), is(1));
+
+    controller.cancelAnalysis(id1);
+
+    assertThat(controller.documentsInProgress(), is(2));
+    assertThat(controller.documentsInQueue(), is(0));
+  }
+
+  @Test
+  public void testIncreasingConcurrencyStartsQueuedAnalyses() {
+    Path path1 = Paths.get("path/to/file.name");
+    Path path2 = Paths.get("path/to/file2.name");
+    prepareExecutor(path1);
+
+    controller.scheduleDocumentAnalysis(path1, "file.name");
+    controller.scheduleDocumentAnalysis(path2, "file2.name");
+    assertThat(controller.documentsInQueue(), is(1));
+
+    controller.setMaxConcurrentAnalyses(2);
+
+    assertThat(controller.documentsInProgress(), is(2));
+    assertThat(controller.documentsInQueue(), is(0));
+  }
+
+  @Test
+  public void testSmallDocumentsOvertakeLargeDocuments() throws IOException {
+    Path path1 = Paths.get("path/to/file.name");
+    Path largePath = Files.createTempFile("vita-large", ".txt");
+    Path smallPath = Files.createTempFile("vita-small", ".txt");
+    try {
+      Files.write(largePath, new byte[1024 * 1024]);
+      Files.write(smallPath, new byte[1]);
+      prepareExecutor(path1);
+
+      String id1 = controller.scheduleDocumentAnalysis(path1, "file.name");
+      controller.scheduleDocumentAnalysis(largePath, "large.txt");
+      String smallId = controller.scheduleDocumentAnalysis(smallPath, "small.txt");
+      verifyExecutorCreated(id1, path1);
+
+      AnalysisExecutor executor1 = executor;
+      prepareExecutor(smallPath);
+      analysisObserver.onFinish(executor1);
+
+      verifyExecutorCreated(smallId, smallPath);
+      assertThat(controller.documentsInQueue(), is(1));
+    } finally {
+      Files.delete(largePath);
+      Files.delete(smallPath);
+    }
+  }
+
   @Test
   public void testRestartDocumentAnalysis() {
     // We need a realy database backend here
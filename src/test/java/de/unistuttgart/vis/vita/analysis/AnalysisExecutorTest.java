@@ -7,6 +7,7 @@ import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
@@ -86,6 +87,22 @@ public class AnalysisExecutorTest {
     assertThat(targetModuleState.getProgress(), is(1.0));
   }
 
+  @Test
+  public void testModuleTimings() {
+    executor.start();
+    await().until(statusIs(AnalysisStatus.FINISHED));
+
+    List<ModuleTiming> timings = executor.getModuleTimings();
+    assertThat(timings, hasSize(2));
+    for (ModuleTiming timing : timings) {
+      assertThat(timing.isFinished(), is(true));
+      assertThat(timing.getActualDurationMillis(),
+          greaterThanOrEqualTo((long) DebugBaseModule.DEFAULT_SLEEP_MS));
+      // both modules have the same weight, so they are predicted to take the same time
+      assertThat(timing.getPredictedDurationMillis(), is(timings.get(0).getPredictedDurationMillis()));
+    }
+  }
+
   @Test
   public void testCancel() throws InterruptedException {
     executor.start();
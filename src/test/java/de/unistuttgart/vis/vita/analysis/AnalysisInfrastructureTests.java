@@ -10,7 +10,8 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @RunWith(Suite.class)
 @SuiteClasses({AnalysisControllerTest.class, TestModuleRegistry.class, ModuleClassTest.class,
-    AnalysisSchedulerTest.class, ModuleExecutionStateTest.class, AnalysisExecutorTest.class})
+    AnalysisSchedulerTest.class, ModuleExecutionStateTest.class, AnalysisExecutorTest.class,
+    AnalysisThreadPoolTest.class, LiveProgressRegistryTest.class})
 public class AnalysisInfrastructureTests {
 
   // conform checkstyle rule HideUtilityClassConstructor
@@ -165,6 +165,30 @@ public class AnalysisSchedulerTest {
     assertThat(boolState.getDirectAndIndirectDependencies(), containsInAnyOrder(intModule));
   }
 
+  @Test
+  public void testCriticalPathWeights() {
+    ModuleClass targetModule = ModuleClass.get(DualDependentModule.class);
+    ModuleClass intModule = ModuleClass.get(IntProvidingModule.class);
+    ModuleClass stringModule = ModuleClass.get(MockModule.class);
+    ModuleClass boolModule = ModuleClass.get(ManualModule.class);
+    when(registry.getModuleClassFor(Integer.class)).thenReturn(intModule);
+    when(registry.getModuleClassFor(String.class)).thenReturn(stringModule);
+    when(registry.getModuleClassFor(Boolean.class)).thenReturn(boolModule);
+
+    scheduler = new AnalysisScheduler(registry, targetModule, new ManualModule(123));
+    Collection<ModuleExecutionState> scheduled = scheduler.getScheduledModules();
+
+    double weight = targetModule.getWeight();
+    assertThat(findModuleExecutionState(scheduled, targetModule).getCriticalPathWeight(),
+        closeTo(weight, 0.0001));
+    assertThat(findModuleExecutionState(scheduled, stringModule).getCriticalPathWeight(),
+        closeTo(2 * weight, 0.0001));
+    assertThat(findModuleExecutionState(scheduled, boolModule).getCriticalPathWeight(),
+        closeTo(2 * weight, 0.0001));
+    assertThat(findModuleExecutionState(scheduled, intModule).getCriticalPathWeight(),
+        closeTo(3 * weight, 0.0001));
+  }
+
   private ModuleExecutionState findModuleExecutionState(Iterable<ModuleExecutionState> list,
       ModuleClass needle) {
     for (ModuleExecutionState item : list) {
@@ -0,0 +1,69 @@
+package de.unistuttgart.vis.vita.analysis;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AnalysisThreadPoolTest {
+  private AnalysisThreadPool pool;
+  private CountDownLatch latch;
+
+  @Before
+  public void setUp() {
+    pool = new AnalysisThreadPool(2);
+    latch = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    latch.countDown();
+    pool.shutdown();
+    pool.awaitTermination(1, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testBoundsThreadsAndQueuesTasks() {
+    for (int i = 0; i < 5; i++) {
+      pool.submit(new BlockingTask());
+    }
+
+    await().until(activeThreadCountIs(2));
+    assertThat(pool.getQueueDepth(), is(3));
+    assertThat(pool.getPoolSize(), is(2));
+    assertThat(pool.getSubmittedTaskCount(), is(5L));
+
+    latch.countDown();
+
+    await().until(activeThreadCountIs(0));
+    assertThat(pool.getQueueDepth(), is(0));
+    assertThat(pool.getPeakActiveThreadCount(), is(2));
+  }
+
+  private Callable<Boolean> activeThreadCountIs(final int count) {
+    return new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        return pool.getActiveThreadCount() == count;
+      }
+    };
+  }
+
+  private class BlockingTask implements Runnable {
+    @Override
+    public void run() {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
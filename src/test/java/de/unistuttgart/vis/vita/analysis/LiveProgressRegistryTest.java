@@ -0,0 +1,70 @@
+package de.unistuttgart.vis.vita.analysis;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unistuttgart.vis.vita.analysis.LiveProgressRegistry.ChangeListener;
+import de.unistuttgart.vis.vita.analysis.LiveProgressRegistry.ProgressUpdate;
+import de.unistuttgart.vis.vita.model.progress.AnalysisProgress;
+
+public class LiveProgressRegistryTest {
+  private static final String DOCUMENT_ID = "document";
+
+  private ExecutorService executor;
+  private LiveProgressRegistry registry;
+  private CountDownLatch release;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newCachedThreadPool();
+    registry = new LiveProgressRegistry(executor);
+    release = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    release.countDown();
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.SECONDS);
+  }
+
+  @Test(timeout = 10000)
+  public void testBlockingListenerDoesNotBlockUpdate() throws InterruptedException {
+    registry.start(DOCUMENT_ID);
+    final CountDownLatch notified = new CountDownLatch(1);
+    registry.addChangeListener(DOCUMENT_ID, registry.getProgress(DOCUMENT_ID),
+        new ChangeListener() {
+          @Override
+          public void onChange(AnalysisProgress progress) {
+            notified.countDown();
+            // like a client which does not read its response
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+        });
+
+    registry.update(DOCUMENT_ID, new ProgressUpdate() {
+      @Override
+      public void apply(AnalysisProgress progress) {
+        progress.setStatus(AnalysisStatus.FAILED);
+      }
+    });
+
+    // update has returned while the listener is still blocked
+    assertThat(registry.getProgress(DOCUMENT_ID).getStatus(), is(AnalysisStatus.FAILED));
+    assertTrue(notified.await(5, TimeUnit.SECONDS));
+  }
+}
@@ -5,6 +5,9 @@ import static org.junit.Assert.*;
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -149,6 +152,49 @@ public class ModuleExecutionStateTest {
     verify(targetInstance).observeProgress(doubleThat(is(closeTo(1.0, EPSILON))));
   }
 
+  @Test
+  public void testUpdateProgressDoesNotReportToInstance() {
+    setUpWithMockedTargetInstance();
+
+    assertThat(moduleState.updateProgress(dependencyModule, 0.5), is(true));
+    assertThat(moduleState.updateProgress(dependencyModule, 0.5), is(false));
+
+    verify(targetInstance, never()).observeProgress(anyDouble());
+    assertThat(moduleState.getProgress(), is(closeTo(0.25, EPSILON)));
+
+    moduleState.dispatchProgress();
+    verify(targetInstance).observeProgress(doubleThat(is(closeTo(0.25, EPSILON))));
+  }
+
+  @Test
+  public void testConcurrentProgressUpdates() throws InterruptedException {
+    List<Thread> threads = new ArrayList<>();
+    for (final ModuleClass module : new ModuleClass[] { targetModule, dependencyModule }) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i <= 10000; i++) {
+            moduleState.updateProgress(module, i / 10000.0);
+          }
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(moduleState.getProgress(), is(1.0));
+  }
+
+  @Test
+  public void testTryStartProgressReportCoalescesReports() {
+    assertThat(moduleState.tryStartProgressReport(1000), is(true));
+    assertThat(moduleState.tryStartProgressReport(1000), is(false));
+    assertThat(moduleState.tryStartProgressReport(0), is(true));
+  }
+
   @Test
   public void testCallsDependencyFinished() {
     setUpWithMockedTargetInstance();
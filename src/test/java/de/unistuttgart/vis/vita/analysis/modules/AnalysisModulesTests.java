@@ -7,6 +7,10 @@ import org.junit.runners.Suite.SuiteClasses;
 import de.unistuttgart.vis.vita.analysis.importer.ImportTests;
 import de.unistuttgart.vis.vita.analysis.importer.epub.EpubImportTests;
 import de.unistuttgart.vis.vita.analysis.modules.gate.ANNIEModuleTest;
+import de.unistuttgart.vis.vita.analysis.modules.gate.GateControllerPoolTest;
+import de.unistuttgart.vis.vita.analysis.modules.gate.NLPResultCacheTest;
+import de.unistuttgart.vis.vita.analysis.modules.gate.AbstractNLPModuleTest;
+import de.unistuttgart.vis.vita.analysis.modules.gate.ParallelGateControllerProgressTest;
 import de.unistuttgart.vis.vita.analysis.modules.gate.StanfordNLPModuleTest;
 
 /**
@@ -16,7 +20,10 @@ import de.unistuttgart.vis.vita.analysis.modules.gate.StanfordNLPModuleTest;
 @SuiteClasses({StanfordNLPModuleTest.class, ANNIEModuleTest.class, ImportTests.class,
     LuceneModuleTest.class, EntityRecognitionModuleRealTest.class, TextFeatureModuleTest.class,
     EntityFeatureModuleTest.class, MainAnalysisModuleTest.class, EntityRecognitionModuleTest.class,
-    EpubImportTests.class, WordCloudEntityTaggingModuleTest.class})
+    EpubImportTests.class, WordCloudEntityTaggingModuleTest.class,
+    EntityNameDictionaryModuleTest.class, EntityMergerTest.class,
+    ParallelGateControllerProgressTest.class, AbstractNLPModuleTest.class,
+    GateControllerPoolTest.class, NLPResultCacheTest.class})
 public class AnalysisModulesTests {
   // conform checkstyle rule HideUtilityClassConstructor
   private AnalysisModulesTests() {
@@ -28,6 +28,8 @@ import de.unistuttgart.vis.vita.model.wordcloud.WordCloudItem;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -44,6 +46,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -161,6 +164,40 @@ public class EntityFeatureModuleTest {
         contains(new WordCloudItem("peril", 4), new WordCloudItem("comfortable", 1)));
   }
 
+  @Test
+  public void testEntitiesOfSeveralBatchesArePersisted() throws Exception {
+    final List<BasicEntity> list = new ArrayList<>();
+    for (int i = 0; i < EntityFeatureModule.ENTITY_BATCH_SIZE * 2 + 1; i++) {
+      BasicEntity entity = new BasicEntity();
+      entity.setType(EntityType.PERSON);
+      entity.setDisplayName(NAME1_1 + i);
+      list.add(entity);
+    }
+
+    EntityRanking ranking = mock(EntityRanking.class);
+    when(ranking.getRankedEntities()).thenReturn(list);
+    EntityWordCloudResult wordClouds = mock(EntityWordCloudResult.class);
+    when(wordClouds.getWordCloudForEntity(any(BasicEntity.class))).thenAnswer(
+        new Answer<WordCloud>() {
+          @Override
+          public WordCloud answer(InvocationOnMock invocation) {
+            return new WordCloud();
+          }
+        });
+    EntityAttributes entityAttributes = mock(EntityAttributes.class);
+    when(entityAttributes.getAttributesForEntity(any(BasicEntity.class))).thenReturn(
+        new HashSet<Attribute>());
+    when(resultProvider.getResultFor(EntityRanking.class)).thenReturn(ranking);
+    when(resultProvider.getResultFor(EntityWordCloudResult.class)).thenReturn(wordClouds);
+    when(resultProvider.getResultFor(EntityAttributes.class)).thenReturn(entityAttributes);
+
+    module.execute(resultProvider, listener);
+    em.refresh(document);
+
+    assertThat(document.getContent().getPersons(), hasSize(list.size()));
+    assertThat(document.getMetrics().getPersonCount(), is(list.size()));
+  }
+
   @Test
   public void testProgressIsSetToReadyAfterwards() throws Exception {
     module.execute(resultProvider, listener);
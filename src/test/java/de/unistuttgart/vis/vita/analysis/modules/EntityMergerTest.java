@@ -0,0 +1,121 @@
+package de.unistuttgart.vis.vita.analysis.modules;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unistuttgart.vis.vita.model.document.Occurrence;
+import de.unistuttgart.vis.vita.model.entity.Attribute;
+import de.unistuttgart.vis.vita.model.entity.AttributeType;
+import de.unistuttgart.vis.vita.model.entity.BasicEntity;
+import de.unistuttgart.vis.vita.model.entity.EntityType;
+
+public class EntityMergerTest {
+  private EntityMerger merger;
+
+  @Before
+  public void setUp() {
+    merger = new EntityMerger();
+  }
+
+  @Test
+  public void testEntitiesWithDifferentNamesAreKept() {
+    BasicEntity frodo = createEntity(EntityType.PERSON, "Frodo");
+    BasicEntity sam = createEntity(EntityType.PERSON, "Sam");
+    merger.addAll(Arrays.asList(frodo, sam));
+
+    assertThat(merger.getResult(), contains(frodo, sam));
+  }
+
+  @Test
+  public void testEntitiesWithSameNameAndDifferentTypeAreKept() {
+    BasicEntity person = createEntity(EntityType.PERSON, "Rivendell");
+    BasicEntity place = createEntity(EntityType.PLACE, "Rivendell");
+    merger.addAll(Arrays.asList(person, place));
+
+    assertThat(merger.getResult(), hasSize(2));
+  }
+
+  @Test
+  public void testEntitiesAreMergedTransitively() {
+    BasicEntity frodo = createEntity(EntityType.PERSON, "Frodo");
+    BasicEntity baggins = createEntity(EntityType.PERSON, "Mr. Baggins");
+    BasicEntity sam = createEntity(EntityType.PERSON, "Sam");
+    BasicEntity frodoBaggins = createEntity(EntityType.PERSON, "Frodo", "Mr. Baggins");
+    merger.addAll(Arrays.asList(frodo, baggins, sam, frodoBaggins));
+
+    List<BasicEntity> result = merger.getResult();
+    assertThat(result, contains(sam, frodoBaggins));
+    assertThat(getNames(frodoBaggins), containsInAnyOrder("Frodo", "Mr. Baggins"));
+    assertThat(frodoBaggins.getOccurrences(), hasSize(4));
+    assertThat(getName(frodoBaggins, "Frodo").getOccurrences(), hasSize(2));
+  }
+
+  @Test
+  public void testOccurrencesOfNewestEntityComeFirst() {
+    BasicEntity first = createEntity(EntityType.PERSON, "Frodo");
+    BasicEntity second = createEntity(EntityType.PERSON, "Frodo");
+    merger.addAll(Arrays.asList(first, second));
+
+    List<Occurrence> expected = new ArrayList<>(second.getOccurrences());
+    expected.addAll(first.getOccurrences());
+    assertThat(merger.getResult().get(0), sameInstance(second));
+    assertThat(second.getOccurrences(), is(expected));
+  }
+
+  @Test
+  public void testEntitiesAddedAfterResultAreMergedOnce() {
+    BasicEntity first = createEntity(EntityType.PERSON, "Frodo");
+    BasicEntity second = createEntity(EntityType.PERSON, "Frodo");
+    merger.addAll(Arrays.asList(first, second));
+    merger.getResult();
+
+    BasicEntity third = createEntity(EntityType.PERSON, "Frodo");
+    merger.add(third);
+
+    assertThat(merger.getResult(), contains(third));
+    assertThat(third.getOccurrences(), hasSize(3));
+    assertThat(getName(third, "Frodo").getOccurrences(), hasSize(3));
+  }
+
+  private BasicEntity createEntity(EntityType type, String... names) {
+    BasicEntity entity = new BasicEntity();
+    entity.setType(type);
+    for (String name : names) {
+      Occurrence occurrence = mock(Occurrence.class);
+      Attribute attribute = new Attribute(AttributeType.NAME, name);
+      attribute.getOccurrences().add(occurrence);
+      entity.getNameAttributes().add(attribute);
+      entity.getOccurrences().add(occurrence);
+    }
+    return entity;
+  }
+
+  private List<String> getNames(BasicEntity entity) {
+    List<String> names = new ArrayList<>();
+    for (Attribute attribute : entity.getNameAttributes()) {
+      names.add(attribute.getContent());
+    }
+    return names;
+  }
+
+  private Attribute getName(BasicEntity entity, String name) {
+    for (Attribute attribute : entity.getNameAttributes()) {
+      if (attribute.getContent().equals(name)) {
+        return attribute;
+      }
+    }
+    return null;
+  }
+}
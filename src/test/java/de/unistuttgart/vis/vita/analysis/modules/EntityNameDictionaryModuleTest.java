@@ -0,0 +1,53 @@
+package de.unistuttgart.vis.vita.analysis.modules;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
+import de.unistuttgart.vis.vita.analysis.ProgressListener;
+import de.unistuttgart.vis.vita.analysis.results.BasicEntityCollection;
+import de.unistuttgart.vis.vita.analysis.results.EntityNameDictionary;
+import de.unistuttgart.vis.vita.model.entity.Attribute;
+import de.unistuttgart.vis.vita.model.entity.AttributeType;
+import de.unistuttgart.vis.vita.model.entity.BasicEntity;
+
+public class EntityNameDictionaryModuleTest {
+  private BasicEntity frodo;
+  private EntityNameDictionary dictionary;
+
+  @Before
+  public void setUp() {
+    frodo = new BasicEntity();
+    frodo.setNameAttributes(new HashSet<>(Arrays.asList(
+        new Attribute(AttributeType.NAME, "Frodo"),
+        new Attribute(AttributeType.NAME, "Mr. Baggins"))));
+
+    ModuleResultProvider resultProvider = mock(ModuleResultProvider.class);
+    BasicEntityCollection collection = mock(BasicEntityCollection.class);
+    when(collection.getEntities()).thenReturn(Arrays.asList(frodo));
+    when(resultProvider.getResultFor(BasicEntityCollection.class)).thenReturn(collection);
+
+    dictionary = new EntityNameDictionaryModule().execute(resultProvider,
+        mock(ProgressListener.class));
+  }
+
+  @Test
+  public void testNamesAreFoundIgnoringCase() {
+    assertThat(dictionary.getEntityIdForName("frodo"), is(frodo.getEntityId()));
+    assertThat(dictionary.getEntityIdForName("MR. BAGGINS"), is(frodo.getEntityId()));
+  }
+
+  @Test
+  public void testUnknownNameIsNull() {
+    assertThat(dictionary.getEntityIdForName("Sam"), is(nullValue()));
+  }
+}
@@ -16,6 +16,8 @@ import de.unistuttgart.vis.vita.analysis.results.SentenceDetectionResult;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
 import de.unistuttgart.vis.vita.analysis.ProgressListener;
@@ -38,6 +40,7 @@ import de.unistuttgart.vis.vita.model.document.Range;
 import de.unistuttgart.vis.vita.model.entity.Attribute;
 import de.unistuttgart.vis.vita.model.entity.BasicEntity;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 
 /**
@@ -135,7 +138,7 @@ public class EntityRecognitionModuleTest {
    * @param sentenceResult - the mocked result of the sentence detection.
    * @param chapters - the mocked chapters.
    */
-  private void mockOccurrenceResults(SentenceDetectionResult sentenceResult,
+  private void mockOccurrenceResults(final SentenceDetectionResult sentenceResult,
       List<Chapter> chapters) {
     if (!(chapters.size() == RELATIVE_ENTITY_OFFSETS.length)) {
       throw new IllegalArgumentException("chapters size does not fit to relative entity offsets");
@@ -167,6 +170,23 @@ public class EntityRecognitionModuleTest {
             new Occurrence(sentences.get(sentenceIndex), occurrenceRange));
       }
     }
+
+    // bulk creation returns the same occurrences
+    when(sentenceResult.createOccurrences(any(Chapter.class), any(int[].class), any(int[].class)))
+        .thenAnswer(new Answer<List<Occurrence>>() {
+          @Override
+          public List<Occurrence> answer(InvocationOnMock invocation) {
+            Chapter chapter = (Chapter) invocation.getArguments()[0];
+            int[] startOffsets = (int[]) invocation.getArguments()[1];
+            int[] endOffsets = (int[]) invocation.getArguments()[2];
+            List<Occurrence> occurrences = new ArrayList<>();
+            for (int i = 0; i < startOffsets.length; i++) {
+              occurrences.add(sentenceResult.createOccurrence(chapter, startOffsets[i],
+                  endOffsets[i]));
+            }
+            return occurrences;
+          }
+        });
   }
 
   private List<Chapter> fillText() {
@@ -2,6 +2,8 @@ package de.unistuttgart.vis.vita.analysis.modules;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -22,6 +24,7 @@ import de.unistuttgart.vis.vita.analysis.results.EntityRelations;
 import de.unistuttgart.vis.vita.analysis.results.ImportResult;
 import de.unistuttgart.vis.vita.model.document.AnalysisParameters;
 import de.unistuttgart.vis.vita.model.document.Chapter;
+import de.unistuttgart.vis.vita.model.document.EnumRelationWindow;
 import de.unistuttgart.vis.vita.model.document.Occurrence;
 import de.unistuttgart.vis.vita.model.document.Sentence;
 import de.unistuttgart.vis.vita.model.document.TextPosition;
@@ -52,6 +55,7 @@ public class EntityRelationModuleTest {
   private Chapter chapter;
   private EntityRelationModule module;
   private List<Sentence> sentences;
+  private AnalysisParameters parameters;
 
   /*
    * The relations are as follows:
@@ -94,7 +98,7 @@ public class EntityRelationModuleTest {
     BasicEntityCollection entities = createBasicEntities();
     when(resultProvider.getResultFor(BasicEntityCollection.class)).thenReturn(entities);
 
-    AnalysisParameters parameters = new AnalysisParameters();
+    parameters = new AnalysisParameters();
     parameters.setRelationTimeStepCount(RELATION_TIME_STEPS_COUNT);
     when(resultProvider.getResultFor(AnalysisParameters.class)).thenReturn(parameters);
     module = new EntityRelationModule();
@@ -122,6 +126,49 @@ public class EntityRelationModuleTest {
 
   }
 
+  @Test
+  public void testRelationsWithinSentenceWindow() throws Exception {
+    parameters.setRelationWindowSize(2);
+    EntityRelations relations = module.execute(resultProvider, progressListener);
+
+    // entity1 and entity2 share the first sentence and occur in the two following ones
+    assertThat(relations.getRelatedEntities(entity1), hasEntry(entity2, 1.0));
+    assertThat(relations.getRelatedEntities(entity1), hasEntry(entity3, 1.0 / 3));
+    assertThat(relations.getRelatedEntities(entity2), hasEntry(entity3, 2.0 / 3));
+  }
+
+  @Test
+  public void testRelationsWithinCharacterWindow() throws Exception {
+    parameters.setRelationWindow(EnumRelationWindow.CHARACTERS);
+    parameters.setRelationWindowSize(20);
+    EntityRelations relations = module.execute(resultProvider, progressListener);
+
+    assertThat(relations.getRelatedEntities(entity1), is(nullValue()));
+    assertThat(relations.getRelatedEntities(entity2), hasEntry(entity3, 1.0));
+  }
+
+  @Test
+  public void testLegacyParametersUseSentenceWindow() throws Exception {
+    // parameters stored before the window could be chosen
+    parameters.setRelationWindow(null);
+    parameters.setRelationWindowSize(0);
+    EntityRelations relations = module.execute(resultProvider, progressListener);
+
+    assertThat(relations.getRelatedEntities(entity1), hasEntry(entity2, 1.0));
+    assertThat(relations.getRelatedEntities(entity1), hasEntry(entity3, 1.0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEmptyWindowIsRejected() throws Exception {
+    AnalysisParameters emptyWindow = mock(AnalysisParameters.class);
+    when(emptyWindow.getRelationTimeStepCount()).thenReturn(RELATION_TIME_STEPS_COUNT);
+    when(emptyWindow.getRelationWindow()).thenReturn(EnumRelationWindow.SENTENCES);
+    when(emptyWindow.getRelationWindowSize()).thenReturn(0);
+    when(resultProvider.getResultFor(AnalysisParameters.class)).thenReturn(emptyWindow);
+
+    module.execute(resultProvider, progressListener);
+  }
+
   private BasicEntityCollection createBasicEntities() {
     final List<BasicEntity> entities = new ArrayList<>();
 
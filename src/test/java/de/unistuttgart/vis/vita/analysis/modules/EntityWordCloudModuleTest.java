@@ -16,6 +16,7 @@ import org.junit.Test;
 import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
 import de.unistuttgart.vis.vita.analysis.ProgressListener;
 import de.unistuttgart.vis.vita.analysis.results.BasicEntityCollection;
+import de.unistuttgart.vis.vita.analysis.results.EntityNameDictionary;
 import de.unistuttgart.vis.vita.model.document.AnalysisParameters;
 import de.unistuttgart.vis.vita.model.document.Chapter;
 import de.unistuttgart.vis.vita.model.document.Occurrence;
@@ -60,6 +61,9 @@ public class EntityWordCloudModuleTest {
     parameters.setWordCloudItemsCount(WORD_CLOUD_ITEMS_COUNT);
     when(resultProvider.getResultFor(AnalysisParameters.class)).thenReturn(parameters);
     progressListener = mock(ProgressListener.class);
+    EntityNameDictionary entityNames =
+        new EntityNameDictionaryModule().execute(resultProvider, progressListener);
+    when(resultProvider.getResultFor(EntityNameDictionary.class)).thenReturn(entityNames);
     module = new EntityWordCloudModule();
   }
 
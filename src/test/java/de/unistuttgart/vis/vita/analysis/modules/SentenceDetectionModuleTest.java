@@ -130,4 +130,22 @@ public class SentenceDetectionModuleTest {
     assertThat(occurrence.getRange().getStart().getOffset(), is(0));
     assertThat(occurrence.getRange().getEnd().getOffset(), is(55));
   }
+
+  @Test
+  public void testCreateOccurrences() {
+    List<Sentence> sentences = result.getSentencesInChapter(chapter);
+    List<Occurrence> occurrences =
+        result.createOccurrences(chapter, new int[] {101, 11, 10}, new int[] {105, 20, 10});
+
+    assertThat(occurrences.size(), is(3));
+    assertThat(occurrences.get(0).getSentence(), is(sentences.get(2)));
+    assertThat(occurrences.get(1).getSentence(), is(sentences.get(1)));
+    assertThat(occurrences.get(2).getSentence(), is(sentences.get(0)));
+    assertThat(occurrences.get(1).getRange().getStart().getOffset(), is(11));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCreateOccurrencesWithMissingEndOffsets() {
+    result.createOccurrences(chapter, new int[] {0, 11}, new int[] {5});
+  }
 }
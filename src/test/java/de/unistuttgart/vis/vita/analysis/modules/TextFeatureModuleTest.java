@@ -3,9 +3,11 @@ package de.unistuttgart.vis.vita.analysis.modules;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
+import static com.jayway.awaitility.Awaitility.await;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import javax.persistence.EntityManager;
 
@@ -101,12 +103,35 @@ public class TextFeatureModuleTest {
     module.dependencyFinished(DocumentPersistenceContext.class,
         resultProvider.getResultFor(DocumentPersistenceContext.class));
     module.observeProgress(0.5);
+    FeatureProgressWriter.getInstance().flush();
 
     em.refresh(document);
     assertThat(document.getProgress().getTextProgress().getProgress(), is(0.5));
     assertThat(document.getProgress().getTextProgress().isReady(), is(false));
   }
 
+  @Test
+  public void testProgressIsWrittenInTheBackground() {
+    module.dependencyFinished(Model.class, resultProvider.getResultFor(Model.class));
+    module.dependencyFinished(DocumentPersistenceContext.class,
+        resultProvider.getResultFor(DocumentPersistenceContext.class));
+    module.observeProgress(0.25);
+    module.observeProgress(0.5);
+
+    await().until(textProgressIs(0.5));
+  }
+
+  @Test
+  public void testProgressReportedAfterCompletionIsIgnored() throws Exception {
+    module.execute(resultProvider, listener);
+    module.observeProgress(0.5);
+    FeatureProgressWriter.getInstance().flush();
+
+    em.refresh(document);
+    assertThat(document.getProgress().getTextProgress().getProgress(), is(1.0));
+    assertThat(document.getProgress().getTextProgress().isReady(), is(true));
+  }
+
   @Test
   public void testFeatureIsMarkedAsFailureWhenDependencyFails() {
     module.dependencyFinished(Model.class, resultProvider.getResultFor(Model.class));
@@ -119,6 +144,16 @@ public class TextFeatureModuleTest {
     assertThat(document.getProgress().getTextProgress().isReady(), is(false));
   }
 
+  private Callable<Boolean> textProgressIs(final double progress) {
+    return new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        em.refresh(document);
+        return document.getProgress().getTextProgress().getProgress() == progress;
+      }
+    };
+  }
+
   private void prepareDatabase() {
     document = new Document();
     em.getTransaction().begin();
@@ -19,6 +19,7 @@ import de.unistuttgart.vis.vita.analysis.ModuleResultProvider;
 import de.unistuttgart.vis.vita.analysis.ProgressListener;
 import de.unistuttgart.vis.vita.analysis.results.BasicEntityCollection;
 import de.unistuttgart.vis.vita.analysis.results.DocumentPersistenceContext;
+import de.unistuttgart.vis.vita.analysis.results.EntityNameDictionary;
 import de.unistuttgart.vis.vita.analysis.results.GlobalWordCloudResult;
 import de.unistuttgart.vis.vita.model.Model;
 import de.unistuttgart.vis.vita.model.UnitTestModel;
@@ -68,6 +69,9 @@ public class WordCloudEntityTaggingModuleTest {
     when(resultProvider.getResultFor(BasicEntityCollection.class)).thenReturn(collection);
    
     progressListener = mock(ProgressListener.class);
+    EntityNameDictionary entityNames =
+        new EntityNameDictionaryModule().execute(resultProvider, progressListener);
+    when(resultProvider.getResultFor(EntityNameDictionary.class)).thenReturn(entityNames);
     
     module = new WordCloudEntityTaggingModule();
   }
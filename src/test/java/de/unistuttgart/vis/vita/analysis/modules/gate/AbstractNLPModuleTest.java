@@ -0,0 +1,109 @@
+package de.unistuttgart.vis.vita.analysis.modules.gate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import gate.Executable;
+
+/**
+ * Checks how the parallel analysis of {@link AbstractNLPModule} waits for its workers.
+ */
+public class AbstractNLPModuleTest {
+  private static final int DOCUMENT_COUNT = 10;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testRunningWorkerIsAwaitedWhenOtherWorkerFails() throws Exception {
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicBoolean isRunningWorkerFinished = new AtomicBoolean();
+
+    Executable runningController = mock(Executable.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        interrupted.countDown();
+        return null;
+      }
+    }).when(runningController).interrupt();
+    Executable failingController = mock(Executable.class);
+    CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+
+    // the running worker only stops when its controller is interrupted
+    Future<Void> running = completionService.submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        started.countDown();
+        try {
+          interrupted.await(10, TimeUnit.SECONDS);
+          // simulate the controller finishing its current document
+          Thread.sleep(100);
+        } finally {
+          isRunningWorkerFinished.set(true);
+        }
+        return null;
+      }
+    });
+    started.await();
+    final RuntimeException failure = new RuntimeException("worker failed");
+    Future<Void> failing = completionService.submit(new Callable<Void>() {
+      @Override
+      public Void call() {
+        throw failure;
+      }
+    });
+
+    List<Executable> controllers = Arrays.asList(runningController, failingController);
+    AtomicInteger nextDocument = new AtomicInteger();
+    try {
+      AbstractNLPModule.awaitWorkers(completionService, Arrays.asList(running, failing),
+          controllers, nextDocument, DOCUMENT_COUNT);
+      fail("the failure of the worker should be rethrown");
+    } catch (ExecutionException e) {
+      assertSame(failure, e.getCause());
+    }
+
+    assertTrue(isRunningWorkerFinished.get());
+    assertTrue(running.isDone());
+    assertEquals(DOCUMENT_COUNT, nextDocument.get());
+    verify(runningController).interrupt();
+    verify(failingController).interrupt();
+  }
+
+}
@@ -0,0 +1,51 @@
+package de.unistuttgart.vis.vita.analysis.modules.gate;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.unistuttgart.vis.vita.model.document.EnumNLP;
+import gate.creole.ConditionalSerialAnalyserController;
+
+public class GateControllerPoolTest {
+  private static GateControllerPool pool;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    pool = GateControllerPool.getInstance();
+    pool.warmUp(EnumNLP.ANNIE);
+  }
+
+  @Test
+  public void testWarmUpLoadsController() {
+    assertThat(pool.getIdleCount(EnumNLP.ANNIE), is(greaterThan(0)));
+  }
+
+  @Test
+  public void testControllersAreReused() throws Exception {
+    ConditionalSerialAnalyserController controller = pool.checkout(EnumNLP.ANNIE);
+    pool.checkin(EnumNLP.ANNIE, controller);
+
+    assertThat(pool.checkout(EnumNLP.ANNIE), is(sameInstance(controller)));
+    pool.checkin(EnumNLP.ANNIE, controller);
+  }
+
+  @Test
+  public void testCheckoutDuplicatesMissingControllers() throws Exception {
+    ConditionalSerialAnalyserController controller = pool.checkout(EnumNLP.ANNIE);
+    List<ConditionalSerialAnalyserController> duplicates =
+        pool.checkout(EnumNLP.ANNIE, controller, 2);
+
+    assertThat(duplicates, hasSize(2));
+    assertThat(duplicates, not(hasItem(sameInstance(controller))));
+
+    pool.checkin(EnumNLP.ANNIE, controller);
+    for (ConditionalSerialAnalyserController duplicate : duplicates) {
+      pool.checkin(EnumNLP.ANNIE, duplicate);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package de.unistuttgart.vis.vita.analysis.modules.gate;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.unistuttgart.vis.vita.analysis.modules.gate.NLPResultCache.CachedAnnotations;
+import de.unistuttgart.vis.vita.model.document.Chapter;
+import gate.Annotation;
+import gate.Document;
+import gate.Factory;
+import gate.FeatureMap;
+import gate.creole.ANNIEConstants;
+
+public class NLPResultCacheTest {
+  private static final String PERSIST_ID = "content-ANNIE";
+  private static final String TEXT = "Alice went to London. She liked it.";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private NLPResultCache cache;
+  private List<Chapter> chapters;
+  private Map<Chapter, Set<Annotation>> chapterToAnnotation;
+  private Map<Chapter, Document> chapterToDoc;
+
+  @BeforeClass
+  public static void initGate() throws Exception {
+    GateInitializeModule.initializeGate();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    cache = new NLPResultCache(folder.newFolder());
+    chapters = Arrays.asList(new Chapter(), new Chapter());
+
+    Document document = Factory.newDocument(TEXT);
+    FeatureMap personFeatures = Factory.newFeatureMap();
+    personFeatures.put(NLPConstants.FEATURE_GENDER, "female");
+    personFeatures.put("matches", Arrays.asList(1, 4));
+    personFeatures.put("ignored", "value");
+    Integer personId = document.getAnnotations().add(0L, 5L,
+        ANNIEConstants.PERSON_ANNOTATION_TYPE, personFeatures);
+    Integer locationId = document.getAnnotations().add(14L, 20L,
+        ANNIEConstants.LOCATION_ANNOTATION_TYPE, Factory.newFeatureMap());
+    document.getAnnotations().add(0L, 21L, ANNIEConstants.SENTENCE_ANNOTATION_TYPE,
+        Factory.newFeatureMap());
+    document.getAnnotations().add(22L, 35L, ANNIEConstants.SENTENCE_ANNOTATION_TYPE,
+        Factory.newFeatureMap());
+
+    chapterToAnnotation = new HashMap<>();
+    chapterToAnnotation.put(chapters.get(0), new HashSet<>(Arrays.asList(
+        document.getAnnotations().get(personId), document.getAnnotations().get(locationId))));
+    chapterToAnnotation.put(chapters.get(1), new HashSet<Annotation>());
+    chapterToDoc = new HashMap<>();
+    chapterToDoc.put(chapters.get(0), document);
+  }
+
+  @Test
+  public void testMissingResultIsNull() throws Exception {
+    assertThat(cache.read(PERSIST_ID, chapters), is(nullValue()));
+  }
+
+  @Test
+  public void testPeopleAndPlacesAreRestored() throws Exception {
+    cache.write(PERSIST_ID, chapters, chapterToAnnotation, chapterToDoc);
+    CachedAnnotations result = cache.read(PERSIST_ID, chapters);
+
+    Set<Annotation> annotations = result.getPeopleAndPlaces().get(chapters.get(0));
+    assertThat(annotations, hasSize(2));
+    assertThat(result.getPeopleAndPlaces().get(chapters.get(1)), is(empty()));
+
+    for (Annotation annotation : annotations) {
+      if (annotation.getType().equals(ANNIEConstants.PERSON_ANNOTATION_TYPE)) {
+        assertThat(annotation.getStartNode().getOffset(), is(0L));
+        assertThat(annotation.getEndNode().getOffset(), is(5L));
+        assertThat(annotation.getFeatures().get(NLPConstants.FEATURE_GENDER),
+            is((Object) "female"));
+        assertThat(annotation.getFeatures().get("matches"),
+            is((Object) Arrays.asList(1, 4)));
+        assertThat(annotation.getFeatures().containsKey("ignored"), is(false));
+      } else {
+        assertThat(annotation.getType(), is(ANNIEConstants.LOCATION_ANNOTATION_TYPE));
+        assertThat(annotation.getStartNode().getOffset(), is(14L));
+        assertThat(annotation.getFeatures().isEmpty(), is(true));
+      }
+    }
+  }
+
+  @Test
+  public void testSentencesAreRestored() throws Exception {
+    cache.write(PERSIST_ID, chapters, chapterToAnnotation, chapterToDoc);
+    CachedAnnotations result = cache.read(PERSIST_ID, chapters);
+
+    int sentenceCount = 0;
+    for (Annotation annotation : result.getAllAnnotations().get(chapters.get(0))) {
+      if (annotation.getType().equals(ANNIEConstants.SENTENCE_ANNOTATION_TYPE)) {
+        sentenceCount++;
+      }
+    }
+    assertThat(sentenceCount, is(2));
+    assertThat(result.getAllAnnotations().get(chapters.get(0)), hasSize(4));
+  }
+
+  @Test
+  public void testDifferentChaptersAreIgnored() throws Exception {
+    cache.write(PERSIST_ID, chapters, chapterToAnnotation, chapterToDoc);
+
+    assertThat(cache.read(PERSIST_ID, chapters.subList(0, 1)), is(nullValue()));
+  }
+
+  @Test
+  public void testRemoveResultsForContent() throws Exception {
+    cache.write(PERSIST_ID, chapters, chapterToAnnotation, chapterToDoc);
+    cache.write("other-ANNIE", chapters, chapterToAnnotation, chapterToDoc);
+    cache.removeResultsForContent("content");
+
+    assertThat(cache.read(PERSIST_ID, chapters), is(nullValue()));
+    assertThat(cache.read("other-ANNIE", chapters), is(notNullValue()));
+  }
+}
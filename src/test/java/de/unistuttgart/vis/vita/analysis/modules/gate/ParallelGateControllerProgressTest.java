@@ -0,0 +1,55 @@
+package de.unistuttgart.vis.vita.analysis.modules.gate;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unistuttgart.vis.vita.analysis.ProgressListener;
+
+public class ParallelGateControllerProgressTest {
+  private static final double EPSILON = 0.001;
+
+  private ProgressListener listener;
+  private ParallelGateControllerProgress progress;
+
+  @Before
+  public void setUp() {
+    listener = mock(ProgressListener.class);
+    progress = new ParallelGateControllerProgress(listener, 4, 2);
+  }
+
+  @Test
+  public void testCombinesProgressOfControllers() {
+    progress.forController(0).progressChanged(50);
+    verify(listener).observeProgress(doubleThat(is(closeTo(0.125, EPSILON))));
+
+    progress.forController(1).progressChanged(50);
+    verify(listener).observeProgress(doubleThat(is(closeTo(0.25, EPSILON))));
+  }
+
+  @Test
+  public void testCountsFinishedDocuments() {
+    progress.forController(0).progressChanged(50);
+    progress.documentFinished(0);
+    verify(listener).observeProgress(doubleThat(is(closeTo(0.25, EPSILON))));
+
+    progress.forController(1).progressChanged(100);
+    progress.documentFinished(1);
+    // reported when the controller reaches 100 and again when the document is finished
+    verify(listener, times(2)).observeProgress(doubleThat(is(closeTo(0.5, EPSILON))));
+  }
+
+  @Test(expected = SoftInterruptedException.class)
+  public void testThrowsWhenInterrupted() {
+    Thread.currentThread().interrupt();
+    try {
+      progress.forController(0).progressChanged(10);
+    } finally {
+      // clear the flag for the following tests
+      Thread.interrupted();
+    }
+  }
+}
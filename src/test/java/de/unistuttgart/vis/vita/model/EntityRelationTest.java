@@ -69,4 +69,29 @@ public class EntityRelationTest {
     assertEquals(testPerson, relation.getRelatedEntity());
   }
 
+  /**
+   * Checks whether the weight for a range matches the weighted sum of the steps it covers.
+   */
+  @Test
+  public void testGetWeightForRange() {
+    double[] weightOverTime = {0.1, 0.4, 0.2, 0.8, 0.5};
+    relation.setWeightOverTime(weightOverTime);
+
+    // the steps 1 and 2 are covered completely, the halves of steps 0 and 3 partly
+    double expected = (0.1 * 0.5 + 0.4 + 0.2 + 0.8 * 0.5) / 0.6 / weightOverTime.length;
+    assertEquals(expected, relation.getWeightForRange(0.1, 0.7), TEST_DELTA);
+  }
+
+  /**
+   * Checks whether changing the weights over time also changes the weight for a range.
+   */
+  @Test
+  public void testGetWeightForRangeAfterChangingWeights() {
+    relation.setWeightOverTime(new double[] {0.1, 0.4, 0.2, 0.8, 0.5});
+    relation.getWeightForRange(0.1, 0.7);
+
+    relation.setWeightOverTime(new double[] {0, 0, 0, 0, 0});
+    assertEquals(0, relation.getWeightForRange(0.1, 0.7), TEST_DELTA);
+  }
+
 }
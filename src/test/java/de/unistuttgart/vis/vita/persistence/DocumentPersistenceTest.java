@@ -12,10 +12,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import de.unistuttgart.vis.vita.data.DocumentTestData;
+import de.unistuttgart.vis.vita.model.document.AnalysisParameters;
 import de.unistuttgart.vis.vita.model.document.Chapter;
 import de.unistuttgart.vis.vita.model.document.Document;
 import de.unistuttgart.vis.vita.model.document.DocumentContent;
 import de.unistuttgart.vis.vita.model.document.DocumentPart;
+import de.unistuttgart.vis.vita.model.document.EnumRelationWindow;
 
 /**
  * Checks whether a Document can be persisted.
@@ -193,5 +195,24 @@ public class DocumentPersistenceTest extends AbstractPersistenceTest {
     
     testData.checkData(titleResult, 1);
   }
-  
+
+  /**
+   * Tests whether parameters stored before the relation window could be chosen are read as a
+   * window of one sentence.
+   */
+  @Test
+  public void testLegacyRelationWindowParameters() {
+    Document doc = testData.createTestDocument(1);
+    em.persist(doc);
+    startNewTransaction();
+
+    em.createQuery("UPDATE AnalysisParameters p "
+        + "SET p.relationWindow = NULL, p.relationWindowSize = 0").executeUpdate();
+    startNewTransaction();
+
+    AnalysisParameters parameters = em.find(Document.class, doc.getId()).getParameters();
+    assertEquals(EnumRelationWindow.SENTENCES, parameters.getRelationWindow());
+    assertEquals(1, parameters.getRelationWindowSize());
+  }
+
 }
@@ -2,6 +2,7 @@ package de.unistuttgart.vis.vita.persistence;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.List;
 
 import javax.persistence.TypedQuery;
@@ -152,4 +153,96 @@ public class OccurrencePersistenceTest extends AbstractPersistenceTest {
     testData.checkData(actualPersonOccurrences.get(0), chapterId);
   }
 
+  /**
+   * Checks whether the id of the entity and the position of the sentence are stored with the
+   * Occurrence.
+   */
+  @Test
+  public void testEntityIdAndSentencePositionAreStored() {
+    Occurrence occurrence = createTestOccurrence();
+    Person testPerson = new PersonTestData().createTestPerson(1);
+    testPerson.getOccurrences().add(occurrence);
+
+    em.persist(chapter);
+    em.persist(testPerson);
+    startNewTransaction();
+
+    Occurrence readOccurrence = new OccurrenceDao(em).findById(occurrence.getId());
+    assertEquals(testPerson.getId(), readOccurrence.getEntityId());
+    assertEquals(TEST_SENTENCE_RANGE_START, readOccurrence.getSentenceStartOffset().intValue());
+    assertEquals(0, readOccurrence.getSentenceIndex().intValue());
+  }
+
+  /**
+   * Checks whether Occurrences stored without the id of their entity are filled in.
+   */
+  @Test
+  public void testFillMissingEntityIds() {
+    Occurrence occurrence = createTestOccurrence();
+    Person testPerson = new PersonTestData().createTestPerson(1);
+    testPerson.getOccurrences().add(occurrence);
+
+    em.persist(chapter);
+    em.persist(testPerson);
+    startNewTransaction();
+
+    em.createQuery("UPDATE Occurrence occ SET occ.entityId = NULL").executeUpdate();
+    startNewTransaction();
+
+    assertEquals(1, new OccurrenceDao(em).fillMissingEntityIds());
+    startNewTransaction();
+
+    Occurrence readOccurrence = new OccurrenceDao(em).findById(occurrence.getId());
+    assertEquals(testPerson.getId(), readOccurrence.getEntityId());
+  }
+
+  /**
+   * Checks whether Occurrences stored without the position of their sentence are filled in, even
+   * if they do not belong to an entity, like the Occurrences of attributes.
+   */
+  @Test
+  public void testFillMissingSentencePositions() {
+    Occurrence occurrence = createTestOccurrence();
+
+    em.persist(chapter);
+    em.persist(occurrence);
+    startNewTransaction();
+
+    em.createQuery("UPDATE Occurrence occ "
+        + "SET occ.sentenceIndex = NULL, occ.sentenceStartOffset = NULL").executeUpdate();
+    startNewTransaction();
+
+    assertEquals(1, new OccurrenceDao(em).fillMissingSentencePositions());
+    startNewTransaction();
+
+    Occurrence readOccurrence = new OccurrenceDao(em).findById(occurrence.getId());
+    assertNull(readOccurrence.getEntityId());
+    assertEquals(TEST_SENTENCE_RANGE_START, readOccurrence.getSentenceStartOffset().intValue());
+    assertEquals(0, readOccurrence.getSentenceIndex().intValue());
+    assertEquals(0, new OccurrenceDao(em).fillMissingSentencePositions());
+  }
+
+  /**
+   * Checks whether only the entities with an Occurrence in the range are returned.
+   */
+  @Test
+  public void testOccurringEntityIds() {
+    Occurrence occurrence = createTestOccurrence();
+    Person occurringPerson = new PersonTestData().createTestPerson(1);
+    occurringPerson.getOccurrences().add(occurrence);
+    Person otherPerson = new PersonTestData().createTestPerson(2);
+
+    em.persist(chapter);
+    em.persist(occurringPerson);
+    em.persist(otherPerson);
+    startNewTransaction();
+
+    OccurrenceDao occurrenceDao = new OccurrenceDao(em);
+    List<String> ids = Arrays.asList(occurringPerson.getId(), otherPerson.getId());
+
+    assertEquals(Arrays.asList(occurringPerson.getId()),
+        occurrenceDao.getOccurringEntityIds(ids, 0, TEST_SENTENCE_RANGE_END));
+    assertTrue(occurrenceDao.getOccurringEntityIds(ids, 0, TEST_SENTENCE_RANGE_START).isEmpty());
+  }
+
 }
@@ -6,6 +6,7 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 import de.unistuttgart.vis.vita.services.analysis.AnalysisServiceTest;
+import de.unistuttgart.vis.vita.services.analysis.ModuleMetricsServiceTest;
 import de.unistuttgart.vis.vita.services.analysis.ProgressServiceTest;
 import de.unistuttgart.vis.vita.services.document.ChapterServiceTest;
 import de.unistuttgart.vis.vita.services.document.DocumentPartsServiceTests;
@@ -32,7 +33,7 @@ import de.unistuttgart.vis.vita.services.search.SearchInDocumentServiceTests;
     DocumentPartsServiceTests.class, AnalysisServiceTest.class, EntityRelationsServiceTest.class,
     AttributesServiceTest.class, AttributeServiceTest.class, OccurrencesServiceTests.class,
     ParametersServiceTest.class, WordCloudServiceTests.class, PlotViewServiceTests.class,
-    SearchInDocumentServiceTests.class})
+    SearchInDocumentServiceTests.class, ModuleMetricsServiceTest.class})
 public class ServiceTests {
 
 }
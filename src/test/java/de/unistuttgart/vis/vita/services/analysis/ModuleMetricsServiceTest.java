@@ -0,0 +1,97 @@
+package de.unistuttgart.vis.vita.services.analysis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import javax.persistence.EntityManager;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.Test;
+
+import de.unistuttgart.vis.vita.data.DocumentTestData;
+import de.unistuttgart.vis.vita.model.document.Document;
+import de.unistuttgart.vis.vita.model.progress.ModuleMetrics;
+import de.unistuttgart.vis.vita.services.ServiceTest;
+import de.unistuttgart.vis.vita.services.responses.metrics.ModuleHistogram;
+import de.unistuttgart.vis.vita.services.responses.metrics.ModuleHistogramsResponse;
+import de.unistuttgart.vis.vita.services.responses.metrics.ModuleMetricsResponse;
+
+/**
+ * Performs tests on the ModuleMetricsService and the AnalysisMetricsService.
+ */
+public class ModuleMetricsServiceTest extends ServiceTest {
+
+  private static final String MODULE_NAME = "de.unistuttgart.vis.vita.TestModule";
+  private static final int TEST_CHARACTER_COUNT = 1000;
+
+  private String documentId;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    Document document = new DocumentTestData().createTestDocument(1);
+    documentId = document.getId();
+
+    EntityManager em = getModel().getEntityManager();
+    em.getTransaction().begin();
+    em.createQuery("DELETE FROM ModuleMetrics").executeUpdate();
+    em.persist(document);
+    em.persist(createMetrics(documentId, 5));
+    em.persist(createMetrics(documentId, 500));
+    em.persist(createMetrics("another-document", 50000));
+    em.getTransaction().commit();
+    em.close();
+  }
+
+  private ModuleMetrics createMetrics(String docId, long duration) {
+    ModuleMetrics metrics = new ModuleMetrics();
+    metrics.setDocumentId(docId);
+    metrics.setModuleName(MODULE_NAME);
+    metrics.setDurationMillis(duration);
+    metrics.setCharacterCount(TEST_CHARACTER_COUNT);
+    return metrics;
+  }
+
+  @Override
+  protected Application configure() {
+    return new ResourceConfig(ModuleMetricsService.class, AnalysisMetricsService.class);
+  }
+
+  @Test
+  public void testGetMetricsOfDocument() {
+    String path = "documents/" + documentId + "/metrics";
+    ModuleMetricsResponse response = target(path).request().get(ModuleMetricsResponse.class);
+
+    assertEquals(2, response.getTotalCount());
+    for (ModuleMetrics metrics : response.getModules()) {
+      assertEquals(documentId, metrics.getDocumentId());
+      assertEquals(MODULE_NAME, metrics.getModuleName());
+    }
+  }
+
+  @Test
+  public void testGetMetricsOfInvalidDocumentReturns404() {
+    String path = "documents/not_existing_document_id/metrics";
+    Response actualResponse = target(path).request().get();
+    assertEquals(404, actualResponse.getStatus());
+  }
+
+  @Test
+  public void testGetModuleHistograms() {
+    ModuleHistogramsResponse response =
+        target("metrics/modules").request().get(ModuleHistogramsResponse.class);
+
+    assertEquals(1, response.getTotalCount());
+    ModuleHistogram histogram = response.getHistograms().get(0);
+    assertEquals(MODULE_NAME, histogram.getModuleName());
+    assertEquals(3, histogram.getCount());
+    assertEquals(5, histogram.getMinDurationMillis());
+    assertEquals(50000, histogram.getMaxDurationMillis());
+    assertEquals(500, histogram.getMedianDurationMillis());
+    assertEquals(Arrays.asList(1, 0, 1, 0, 1, 0), histogram.getBucketCounts());
+  }
+
+}
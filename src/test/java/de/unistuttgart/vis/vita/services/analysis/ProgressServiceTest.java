@@ -2,13 +2,20 @@ package de.unistuttgart.vis.vita.services.analysis;
 
 import static org.junit.Assert.*;
 
+import java.util.concurrent.Future;
+
 import javax.persistence.EntityManager;
 import javax.ws.rs.core.Application;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 
 import org.glassfish.jersey.server.ResourceConfig;
+import org.junit.After;
 import org.junit.Test;
 
+import de.unistuttgart.vis.vita.analysis.AnalysisStatus;
+import de.unistuttgart.vis.vita.analysis.LiveProgressRegistry;
+import de.unistuttgart.vis.vita.analysis.LiveProgressRegistry.ProgressUpdate;
 import de.unistuttgart.vis.vita.data.DocumentTestData;
 import de.unistuttgart.vis.vita.data.ProgressTestData;
 import de.unistuttgart.vis.vita.model.document.Document;
@@ -81,6 +88,64 @@ public class ProgressServiceTest extends ServiceTest {
     testData.assertIsZeroProgress(actualProgress);
   }
 
+  @Test
+  public void testGetProgressWithKnownETagReturns304() {
+    String path = "documents/" + documentId + "/progress/";
+    Response firstResponse = target(path).request().get();
+    String entityTag = firstResponse.getHeaderString(HttpHeaders.ETAG);
+    assertNotNull(entityTag);
+
+    Response secondResponse =
+        target(path).request().header(HttpHeaders.IF_NONE_MATCH, entityTag).get();
+    assertEquals(304, secondResponse.getStatus());
+  }
+
+  @Test
+  public void testGetProgressOfRunningAnalysisIsServedFromRegistry() {
+    LiveProgressRegistry.getInstance().start(documentIdWithoutProgress);
+    LiveProgressRegistry.getInstance().update(documentIdWithoutProgress, new ProgressUpdate() {
+      @Override
+      public void apply(AnalysisProgress progress) {
+        progress.getTextProgress().setProgress(0.5);
+      }
+    });
+
+    String path = "documents/" + documentIdWithoutProgress + "/progress/";
+    AnalysisProgress actualProgress = target(path).request().get(AnalysisProgress.class);
+
+    assertEquals(AnalysisStatus.RUNNING, actualProgress.getStatus());
+    assertEquals(0.5, actualProgress.getTextProgress().getProgress(), 0.001);
+  }
+
+  @Test
+  public void testWaitingRequestIsAnsweredOnChange() throws Exception {
+    LiveProgressRegistry.getInstance().start(documentIdWithoutProgress);
+    String path = "documents/" + documentIdWithoutProgress + "/progress/";
+    String entityTag = target(path).request().get().getHeaderString(HttpHeaders.ETAG);
+
+    Future<Response> waitingResponse = target(path).queryParam("wait", 10).request()
+        .header(HttpHeaders.IF_NONE_MATCH, entityTag).async().get();
+    Thread.sleep(200);
+    assertFalse(waitingResponse.isDone());
+
+    LiveProgressRegistry.getInstance().update(documentIdWithoutProgress, new ProgressUpdate() {
+      @Override
+      public void apply(AnalysisProgress progress) {
+        progress.getTextProgress().setProgress(0.5);
+      }
+    });
+
+    Response response = waitingResponse.get();
+    assertEquals(200, response.getStatus());
+    assertEquals(0.5, response.readEntity(AnalysisProgress.class).getTextProgress().getProgress(),
+        0.001);
+  }
+
+  @After
+  public void stopTrackingProgress() {
+    LiveProgressRegistry.getInstance().finish(documentIdWithoutProgress, AnalysisStatus.FINISHED);
+  }
+
   @Test
   public void testGetProgressOfInvalidDocumentReturns404() {
     String path = "documents/not_existing_document_id/progress/";
@@ -4,6 +4,7 @@ import de.unistuttgart.vis.vita.data.DocumentTestData;
 import de.unistuttgart.vis.vita.model.document.AnalysisParameters;
 import de.unistuttgart.vis.vita.model.document.Document;
 import de.unistuttgart.vis.vita.model.document.EnumNLP;
+import de.unistuttgart.vis.vita.model.progress.ModuleMetrics;
 import de.unistuttgart.vis.vita.services.ServiceTest;
 import de.unistuttgart.vis.vita.services.requests.DocumentRenameRequest;
 import de.unistuttgart.vis.vita.services.responses.DocumentIdResponse;
@@ -145,6 +146,39 @@ public class DocumentServiceTest extends ServiceTest {
     assertEquals(404, response.getStatus());
   }
 
+  /**
+   * Tests whether the module metrics of a document are removed together with it.
+   */
+  @Test
+  public void testDeleteDocumentRemovesMetrics() {
+    EntityManager em = getModel().getEntityManager();
+    em.getTransaction().begin();
+    em.persist(createMetrics(deletionId));
+    em.persist(createMetrics(documentId));
+    em.getTransaction().commit();
+
+    target("documents/" + deletionId).request().delete();
+
+    em.clear();
+    long deletedCount = em.createQuery("SELECT COUNT(m) FROM ModuleMetrics m "
+        + "WHERE m.documentId = :documentId", Long.class)
+        .setParameter("documentId", deletionId).getSingleResult();
+    long keptCount = em.createQuery("SELECT COUNT(m) FROM ModuleMetrics m "
+        + "WHERE m.documentId = :documentId", Long.class)
+        .setParameter("documentId", documentId).getSingleResult();
+    em.close();
+
+    assertEquals(0, deletedCount);
+    assertEquals(1, keptCount);
+  }
+
+  private ModuleMetrics createMetrics(String docId) {
+    ModuleMetrics metrics = new ModuleMetrics();
+    metrics.setDocumentId(docId);
+    metrics.setModuleName("de.unistuttgart.vis.vita.TestModule");
+    return metrics;
+  }
+
   /**
    * Tests whether a document can be deleted using REST.
    */
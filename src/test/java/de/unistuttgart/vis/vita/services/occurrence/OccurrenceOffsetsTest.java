@@ -0,0 +1,143 @@
+package de.unistuttgart.vis.vita.services.occurrence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.unistuttgart.vis.vita.model.dao.OccurrenceDao;
+import de.unistuttgart.vis.vita.model.document.Range;
+
+/**
+ * Checks the range queries of {@link OccurrenceOffsets} and the caching of
+ * {@link OccurrenceOffsetCache}.
+ */
+public class OccurrenceOffsetsTest {
+
+  private static final int DOCUMENT_LENGTH = 1000;
+  private static final String ENTITY_ID = "entity";
+
+  private OccurrenceOffsets offsets;
+
+  @Before
+  public void setUp() {
+    // three sentences starting at 0, 100 and 500
+    offsets = new OccurrenceOffsets(Arrays.asList(row(0, 0, 10, 20), row(100, 1, 110, 120),
+        row(100, 1, 150, 160), row(500, 4, 510, 520)));
+  }
+
+  @Test
+  public void testGetRanges() {
+    List<Range> ranges = offsets.getRanges(50, 500, DOCUMENT_LENGTH);
+
+    assertEquals(2, ranges.size());
+    assertEquals(110, ranges.get(0).getStart().getOffset());
+    assertEquals(160, ranges.get(1).getEnd().getOffset());
+  }
+
+  @Test
+  public void testCount() {
+    assertEquals(4, offsets.count(0, DOCUMENT_LENGTH));
+    assertEquals(3, offsets.count(100, 501));
+    assertEquals(0, offsets.count(101, 500));
+  }
+
+  @Test
+  public void testCountPerStep() {
+    assertArrayEquals(new int[] {3, 0, 1, 0}, offsets.countPerStep(4, 0, DOCUMENT_LENGTH));
+  }
+
+  @Test
+  public void testCountPerStepWithMoreStepsThanCharacters() {
+    assertArrayEquals(new int[] {0, 0, 2}, offsets.countPerStep(3, 100, 102));
+  }
+
+  @Test
+  public void testCacheLoadsOffsetsOnce() {
+    OccurrenceDao dao = mock(OccurrenceDao.class);
+    when(dao.findOccurrenceOffsetsForEntity(ENTITY_ID)).thenReturn(
+        Arrays.asList(row(0, 0, 10, 20)));
+    OccurrenceOffsetCache cache = new OccurrenceOffsetCache();
+
+    OccurrenceOffsets first = cache.getEntityOffsets("document", ENTITY_ID, dao);
+    OccurrenceOffsets second = cache.getEntityOffsets("document", ENTITY_ID, dao);
+
+    assertSame(first, second);
+    verify(dao, times(1)).findOccurrenceOffsetsForEntity(ENTITY_ID);
+  }
+
+  @Test
+  public void testCacheEvictsLeastRecentlyUsedDocument() {
+    OccurrenceDao dao = mock(OccurrenceDao.class);
+    when(dao.findOccurrenceOffsetsForEntity(ENTITY_ID)).thenReturn(new ArrayList<Object[]>());
+    OccurrenceOffsetCache cache = new OccurrenceOffsetCache();
+
+    for (int i = 0; i <= OccurrenceOffsetCache.MAXIMUM_DOCUMENTS; i++) {
+      cache.getEntityOffsets("document" + i, ENTITY_ID, dao);
+      // keep the first document in use
+      cache.getEntityOffsets("document0", ENTITY_ID, dao);
+    }
+
+    assertTrue(cache.isCached("document0"));
+    assertFalse(cache.isCached("document1"));
+    assertTrue(cache.isCached("document" + OccurrenceOffsetCache.MAXIMUM_DOCUMENTS));
+  }
+
+  @Test
+  public void testIntersectSentences() {
+    OccurrenceOffsets other = new OccurrenceOffsets(Arrays.asList(row(100, 1, 105, 108),
+        row(200, 2, 210, 220), row(500, 4, 500, 505), row(500, 4, 530, 540)));
+    OccurrenceOffsets third = new OccurrenceOffsets(Arrays.asList(row(0, 0, 1, 2),
+        row(100, 1, 190, 195), row(500, 4, 590, 595), row(600, 5, 610, 620)));
+
+    OccurrenceOffsets common =
+        OccurrenceOffsets.intersectSentences(Arrays.asList(offsets, other, third));
+
+    assertEquals(2, common.count(0, DOCUMENT_LENGTH));
+    List<Range> ranges = common.getRanges(0, DOCUMENT_LENGTH, DOCUMENT_LENGTH);
+    assertEquals(100, ranges.get(0).getStart().getOffset());
+    assertEquals(199, ranges.get(0).getEnd().getOffset());
+    assertEquals(500, ranges.get(1).getStart().getOffset());
+  }
+
+  @Test
+  public void testIntersectSentencesWithoutCommonSentence() {
+    OccurrenceOffsets other = new OccurrenceOffsets(Arrays.asList(row(200, 2, 210, 220)));
+
+    assertTrue(OccurrenceOffsets.intersectSentences(Arrays.asList(offsets, other)).isEmpty());
+  }
+
+  @Test
+  public void testSentenceRangesMergeAdjacentSentences() {
+    OccurrenceOffsets sentences = new OccurrenceOffsets(Arrays.asList(row(0, 0, 10, 20),
+        row(100, 1, 110, 120), row(500, 4, 510, 520)));
+
+    List<Range> ranges = sentences.getSentenceRanges(0, DOCUMENT_LENGTH, DOCUMENT_LENGTH);
+
+    assertEquals(2, ranges.size());
+    assertEquals(0, ranges.get(0).getStart().getOffset());
+    assertEquals(199, ranges.get(0).getEnd().getOffset());
+    assertEquals(500, ranges.get(1).getStart().getOffset());
+    assertEquals(599, ranges.get(1).getEnd().getOffset());
+  }
+
+  /**
+   * Creates a row for an Occurrence in a sentence ending 99 characters after its start.
+   */
+  private Object[] row(int sentenceStart, int sentenceIndex, int start, int end) {
+    return new Object[] {sentenceStart, sentenceStart + 99, sentenceIndex, start, end};
+  }
+
+}
@@ -6,7 +6,7 @@ import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
 @SuiteClasses({AttributeOccurrencesServiceTest.class, EntityOccurrencesServiceTest.class,
-    RelationOccurrencesServiceTest.class})
+    RelationOccurrencesServiceTest.class, OccurrenceOffsetsTest.class})
 public class OccurrencesServiceTests {
 
 }